@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.core;
+
+/**
+ * A histogram of latencies, in the HdrHistogram way : the values lower than 128 have their own bucket, and the
+ * higher values are stored in log-linear buckets, 64 buckets for each power of 2, so the recorded values are known
+ * with a relative error lower than 1/64. The recording is done in constant time, without any allocation.
+ * <br/>
+ * This class is not thread safe : each thread must record in its own histogram, the histograms being added at the
+ * end of the measure.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class LatencyHistogram {
+    /** The number of bits used to index the values in a power of 2 */
+    private static final int SUB_BUCKET_BITS = 7;
+
+    /** The number of values lower than the first log-linear bucket */
+    private static final int LINEAR_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** The number of buckets for each power of 2 */
+    private static final int HALF_COUNT = LINEAR_COUNT >> 1;
+
+    /** The number of buckets, up to Long.MAX_VALUE */
+    private static final int BUCKET_COUNT = LINEAR_COUNT + (64 - SUB_BUCKET_BITS) * HALF_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+
+    private long totalCount;
+
+    private long sum;
+
+    private long min = Long.MAX_VALUE;
+
+    private long max;
+
+    /**
+     * Record a value. The negative values are recorded as 0.
+     * 
+     * @param value the recorded value
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+
+        if (value < min) {
+            min = value;
+        }
+
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Add the values recorded by another histogram to this histogram.
+     * 
+     * @param histogram the added histogram
+     */
+    public void add(LatencyHistogram histogram) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += histogram.counts[i];
+        }
+
+        totalCount += histogram.totalCount;
+        sum += histogram.sum;
+        min = Math.min(min, histogram.min);
+        max = Math.max(max, histogram.max);
+    }
+
+    /**
+     * Forget all the recorded values
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = 0;
+        }
+
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return the lowest recorded value, 0 if there is no value
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * @return the highest recorded value, 0 if there is no value
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return the mean of the recorded values, 0 if there is no value
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Get the value at a given percentile : the highest value equivalent to the one below which the given percentage
+     * of the recorded values fall.
+     * 
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at this percentile, 0 if there is no value
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+        long cumulated = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulated += counts[i];
+
+            if (cumulated >= rank) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Compute the index of the bucket containing a positive value
+     */
+    static int indexOf(long value) {
+        if (value < LINEAR_COUNT) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+
+        return LINEAR_COUNT + (shift - 1) * HALF_COUNT + subBucket - HALF_COUNT;
+    }
+
+    /**
+     * Compute the highest value stored in a bucket
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < LINEAR_COUNT) {
+            return index;
+        }
+
+        int shift = (index - LINEAR_COUNT) / HALF_COUNT + 1;
+        long subBucket = (index - LINEAR_COUNT) % HALF_COUNT + HALF_COUNT;
+
+        long highest = ((subBucket + 1) << shift) - 1;
+
+        // the last bucket goes up to Long.MAX_VALUE
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
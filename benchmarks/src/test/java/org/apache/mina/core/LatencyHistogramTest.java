@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests class {@link LatencyHistogram}
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        assertEquals(127, LatencyHistogram.indexOf(127));
+        assertEquals(128, LatencyHistogram.indexOf(128));
+        assertEquals(128, LatencyHistogram.indexOf(129));
+        assertEquals(191, LatencyHistogram.indexOf(255));
+        assertEquals(192, LatencyHistogram.indexOf(256));
+
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            int index = LatencyHistogram.indexOf(value);
+            long highest = LatencyHistogram.highestEquivalentValue(index);
+
+            assertTrue(highest >= value);
+            assertTrue(value >= LatencyHistogram.highestEquivalentValue(index - 1) + 1);
+
+            // the relative error is lower than 1/64
+            assertTrue(highest - value <= value / 64);
+        }
+
+        assertEquals(Long.MAX_VALUE,
+                LatencyHistogram.highestEquivalentValue(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 1; i <= 10000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(10000, histogram.getTotalCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(10000000, histogram.getMax());
+        assertEquals(5000500.0, histogram.getMean(), 0.1);
+
+        assertNear(5000000, histogram.getValueAtPercentile(50));
+        assertNear(9900000, histogram.getValueAtPercentile(99));
+        assertEquals(10000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void addAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram other = new LatencyHistogram();
+        histogram.record(10);
+        other.record(-5);
+        other.record(1000);
+
+        histogram.add(other);
+        assertEquals(3, histogram.getTotalCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(10, histogram.getValueAtPercentile(66));
+
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    private static void assertNear(long expected, long value) {
+        assertTrue(value + " is not near " + expected, Math.abs(value - expected) <= expected / 64);
+    }
+}
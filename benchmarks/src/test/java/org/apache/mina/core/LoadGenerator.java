@@ -0,0 +1,664 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.BenchmarkFactory.Type;
+
+/**
+ * A load generator for the benchmark servers : it opens many connections, and sends on each of them messages
+ * prefixed by their length, the server acknowledging each message with a byte. The latency of each message, from its
+ * sending to its acknowledgement, is recorded in a {@link LatencyHistogram}.
+ * <ul>
+ * <li>in the closed loop mode, each connection keeps a fixed number of messages in flight : a new message is sent
+ * each time one is acknowledged</li>
+ * <li>in the open loop mode, the messages are sent at a fixed rate, whatever the server response time is. The latency
+ * is measured from the time the message should have been sent, so a server stall is not hidden by the client waiting
+ * for it.</li>
+ * </ul>
+ * The connections are spread over some threads, each one managing its connections with its own selector. Nothing is
+ * recorded during the warmup period, and the messages in flight at the end of the measure are given some time to be
+ * acknowledged.
+ * <br/>
+ * It can be run from the command line, with <code>key=value</code> arguments :
+ * 
+ * <pre>
+ * server=Mina|Netty   the server started in this JVM (Mina)
+ * address=host:port   the address of an external server, instead of starting one
+ * mode=closed|open    the load mode (closed)
+ * connections=N       the number of connections (1)
+ * inFlight=M          the number of messages in flight per connection, in the closed loop mode (1)
+ * rate=R              the number of messages per second for all the connections, in the open loop mode (10000)
+ * messageSize=S       the size of a message, length prefix excluded (10)
+ * threads=T           the number of threads (1)
+ * warmup=W            the warmup duration in seconds (5)
+ * duration=D          the measure duration in seconds (30)
+ * output=file         the file the JSON report is appended to (the report is printed if not set)
+ * </pre>
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class LoadGenerator {
+    /** The load modes */
+    public enum Mode {
+        /** A fixed number of messages are in flight */
+        CLOSED_LOOP,
+        /** The messages are sent at a fixed rate */
+        OPEN_LOOP
+    }
+
+    /** The size of the buffers used to send the messages */
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    /** The size of the buffers used to read the acknowledgements */
+    private static final int INPUT_BUFFER_SIZE = 8 * 1024;
+
+    /** The time given to the server to acknowledge the messages in flight at the end of the run */
+    private static final long DRAIN_MILLIS = 1000;
+
+    private Mode mode = Mode.CLOSED_LOOP;
+
+    private int connections = 1;
+
+    private int inFlight = 1;
+
+    private long rate = 10000;
+
+    private int messageSize = 10;
+
+    private int threads = 1;
+
+    private long warmupMillis = 5000;
+
+    private long durationMillis = 30000;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(int inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public long getRate() {
+        return rate;
+    }
+
+    public void setRate(long rate) {
+        this.rate = rate;
+    }
+
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    public void setMessageSize(int messageSize) {
+        this.messageSize = messageSize;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public long getWarmupMillis() {
+        return warmupMillis;
+    }
+
+    public void setWarmupMillis(long warmupMillis) {
+        this.warmupMillis = warmupMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Run the load against a server
+     * 
+     * @param address the server address
+     * @return the measures
+     * @throws IOException if a connection can't be established
+     * @throws InterruptedException if the current thread is interrupted while waiting for the end of the run
+     */
+    public LoadReport run(InetSocketAddress address) throws IOException, InterruptedException {
+        if ((connections < 1) || (threads < 1) || (inFlight < 1) || (messageSize < 0)
+                || ((mode == Mode.OPEN_LOOP) && (rate < 1))) {
+            throw new IllegalArgumentException("Invalid load configuration");
+        }
+
+        byte[] message = new byte[messageSize + 4];
+        ByteBuffer.wrap(message).putInt(messageSize);
+
+        int workerCount = Math.min(threads, connections);
+
+        if (mode == Mode.OPEN_LOOP) {
+            // each worker must send some messages
+            workerCount = (int) Math.min(workerCount, rate);
+        }
+        Worker[] workers = new Worker[workerCount];
+
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                // spread the connections and the rate over the workers
+                int workerConnections = connections / workerCount + (i < connections % workerCount ? 1 : 0);
+                long workerRate = rate / workerCount + (i < rate % workerCount ? 1 : 0);
+                workers[i] = new Worker(workerConnections, workerRate, message);
+                workers[i].connect(address);
+            }
+        } catch (IOException e) {
+            for (Worker worker : workers) {
+                if (worker != null) {
+                    worker.close();
+                }
+            }
+
+            throw e;
+        }
+
+        long start = System.nanoTime();
+        long measureStart = start + TimeUnit.MILLISECONDS.toNanos(warmupMillis);
+        long end = measureStart + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        Thread[] workerThreads = new Thread[workerCount];
+
+        for (int i = 0; i < workerCount; i++) {
+            workers[i].measureStart = measureStart;
+            workers[i].end = end;
+            workerThreads[i] = new Thread(workers[i], "LoadGenerator-" + i);
+            workerThreads[i].start();
+        }
+
+        sleepUntil(measureStart);
+        long[] startStats = jvmStats();
+        sleepUntil(end);
+        long[] endStats = jvmStats();
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        long sent = 0;
+        long acknowledged = 0;
+        int errors = 0;
+
+        for (int i = 0; i < workerCount; i++) {
+            workerThreads[i].join();
+            histogram.add(workers[i].histogram);
+            sent += workers[i].sent;
+            acknowledged += workers[i].acknowledged;
+
+            if (workers[i].failure != null) {
+                errors++;
+            }
+        }
+
+        LoadReport report = new LoadReport(mode, connections, inFlight, rate, messageSize, workerCount);
+        report.setMeasures(durationMillis, sent, acknowledged, errors, histogram);
+        report.setJvmMeasures(endStats[0] - startStats[0], endStats[1] - startStats[1], endStats[2] < 0 ? -1
+                : endStats[2] - startStats[2]);
+
+        return report;
+    }
+
+    private static void sleepUntil(long time) throws InterruptedException {
+        long delay = time - System.nanoTime();
+
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Get the number of garbage collections, their duration in milliseconds, and the number of bytes allocated by the
+     * live threads (-1 if the JVM can't tell).
+     */
+    private static long[] jvmStats() {
+        long collections = 0;
+        long collectionTime = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, gc.getCollectionCount());
+            collectionTime += Math.max(0, gc.getCollectionTime());
+        }
+
+        long allocated = -1;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+
+            if (sunThreadBean.isThreadAllocatedMemorySupported() && sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+                allocated = 0;
+
+                for (long bytes : sunThreadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+                    allocated += Math.max(0, bytes);
+                }
+            }
+        }
+
+        return new long[] { collections, collectionTime, allocated };
+    }
+
+    /**
+     * A thread managing some connections
+     */
+    private class Worker implements Runnable {
+        private final Connection[] connections;
+
+        /** The number of messages per second for the open loop mode */
+        private final long rate;
+
+        private final byte[] message;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private final Selector selector;
+
+        private final ByteBuffer input = ByteBuffer.allocateDirect(INPUT_BUFFER_SIZE);
+
+        /** The connections with some messages to flush */
+        private final Connection[] dirty;
+
+        private int dirtyCount;
+
+        // the following fields are set before the worker thread start, and read after its end
+
+        private long measureStart;
+
+        private long end;
+
+        /** The number of messages sent during the measure */
+        private long sent;
+
+        /** The number of messages acknowledged during the measure */
+        private long acknowledged;
+
+        private IOException failure;
+
+        /** The number of messages which are not acknowledged yet */
+        private long inFlightCount;
+
+        private Worker(int connectionCount, long rate, byte[] message) throws IOException {
+            this.connections = new Connection[connectionCount];
+            this.dirty = new Connection[connectionCount];
+            this.rate = rate;
+            this.message = message;
+            this.selector = Selector.open();
+        }
+
+        private void connect(InetSocketAddress address) throws IOException {
+            for (int i = 0; i < connections.length; i++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.socket().setTcpNoDelay(true);
+                channel.configureBlocking(false);
+                connections[i] = new Connection(channel);
+                connections[i].key = channel.register(selector, SelectionKey.OP_READ, connections[i]);
+            }
+        }
+
+        private void close() {
+            for (Connection connection : connections) {
+                if (connection != null) {
+                    try {
+                        connection.channel.close();
+                    } catch (IOException e) {
+                        // nothing to do
+                    }
+                }
+            }
+
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            try {
+                long now = System.nanoTime();
+                long start = now;
+                long scheduled = 0;
+                long nextSend = now;
+                int next = 0;
+
+                if (mode == Mode.CLOSED_LOOP) {
+                    for (Connection connection : connections) {
+                        for (int i = 0; i < inFlight; i++) {
+                            connection.enqueue(now);
+                        }
+                    }
+                }
+
+                long drainEnd = end + TimeUnit.MILLISECONDS.toNanos(DRAIN_MILLIS);
+
+                // after the end, we only wait for the messages in flight
+                while ((now < end) || ((now < drainEnd) && (inFlightCount > 0))) {
+                    if ((mode == Mode.OPEN_LOOP) && (now < end)) {
+                        // send the messages which are due, with the time they should have been sent at
+                        while (nextSend <= now) {
+                            connections[next].enqueue(nextSend);
+                            next = (next + 1) % connections.length;
+                            scheduled++;
+                            nextSend = start + scheduled * TimeUnit.SECONDS.toNanos(1) / rate;
+                        }
+                    }
+
+                    flushDirty();
+
+                    long timeout = (mode == Mode.OPEN_LOOP) && (now < end) ? nextSend - now : drainEnd - now;
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeout)));
+                    now = System.nanoTime();
+
+                    for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext();) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        Connection connection = (Connection) key.attachment();
+
+                        if (key.isReadable()) {
+                            read(connection, now);
+                        }
+
+                        if (key.isValid() && key.isWritable()) {
+                            connection.flush();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+                e.printStackTrace();
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Read the acknowledgements, and record the latency of the acknowledged messages sent during the measure
+         */
+        private void read(Connection connection, long now) throws IOException {
+            input.clear();
+            int read = connection.channel.read(input);
+
+            if (read < 0) {
+                throw new IOException("Connection closed by the server");
+            }
+
+            for (int i = 0; i < read; i++) {
+                long sendTime = connection.acknowledge();
+
+                if ((sendTime >= measureStart) && (sendTime < end)) {
+                    histogram.record(now - sendTime);
+                    acknowledged++;
+                }
+
+                if ((mode == Mode.CLOSED_LOOP) && (now < end)) {
+                    connection.enqueue(now);
+                }
+            }
+        }
+
+        private void flushDirty() throws IOException {
+            for (int i = 0; i < dirtyCount; i++) {
+                dirty[i].dirty = false;
+                dirty[i].flush();
+                dirty[i] = null;
+            }
+
+            dirtyCount = 0;
+        }
+
+        /**
+         * A connection, and the messages which are not yet acknowledged
+         */
+        private class Connection {
+            private final SocketChannel channel;
+
+            private SelectionKey key;
+
+            /** The send times of the messages which are not yet acknowledged, in a ring */
+            private long[] sendTimes = new long[16];
+
+            private int head;
+
+            private int size;
+
+            /** The bytes to copy in the output buffer */
+            private long unsentBytes;
+
+            /** The position in the message of the next byte to copy in the output buffer */
+            private int messageOffset;
+
+            private final ByteBuffer output = ByteBuffer.allocateDirect(OUTPUT_BUFFER_SIZE);
+
+            private boolean dirty;
+
+            private Connection(SocketChannel channel) {
+                this.channel = channel;
+                output.flip();
+            }
+
+            /**
+             * Add a message to send
+             */
+            private void enqueue(long sendTime) {
+                if (size == sendTimes.length) {
+                    long[] newSendTimes = new long[size * 2];
+
+                    for (int i = 0; i < size; i++) {
+                        newSendTimes[i] = sendTimes[(head + i) % size];
+                    }
+
+                    sendTimes = newSendTimes;
+                    head = 0;
+                }
+
+                sendTimes[(head + size) % sendTimes.length] = sendTime;
+                size++;
+                inFlightCount++;
+                unsentBytes += message.length;
+
+                if ((sendTime >= measureStart) && (sendTime < end)) {
+                    sent++;
+                }
+
+                if (!dirty) {
+                    dirty = true;
+                    Worker.this.dirty[dirtyCount++] = this;
+                }
+            }
+
+            /**
+             * Remove the oldest message, and return its send time
+             */
+            private long acknowledge() throws IOException {
+                if (size == 0) {
+                    throw new IOException("Unexpected acknowledgement");
+                }
+
+                long sendTime = sendTimes[head];
+                head = (head + 1) % sendTimes.length;
+                size--;
+                inFlightCount--;
+
+                return sendTime;
+            }
+
+            /**
+             * Write as many bytes as the socket accepts, and wait for it to be writable if some bytes remain
+             */
+            private void flush() throws IOException {
+                while (true) {
+                    if (!output.hasRemaining()) {
+                        if (unsentBytes == 0) {
+                            break;
+                        }
+
+                        fill();
+                    }
+
+                    if (channel.write(output) == 0) {
+                        break;
+                    }
+                }
+
+                boolean pending = output.hasRemaining();
+                key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+            }
+
+            /**
+             * Copy the next bytes of the messages in the output buffer
+             */
+            private void fill() {
+                output.clear();
+
+                while (output.hasRemaining() && (unsentBytes > 0)) {
+                    int size = (int) Math.min(Math.min(message.length - messageOffset, output.remaining()),
+                            unsentBytes);
+                    output.put(message, messageOffset, size);
+                    messageOffset = (messageOffset + size) % message.length;
+                    unsentBytes -= size;
+                }
+
+                output.flip();
+            }
+        }
+    }
+
+    /**
+     * Run a load from the command line
+     */
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        Type serverType = Type.Mina;
+        InetSocketAddress address = null;
+        String output = null;
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid argument, key=value expected : " + arg);
+            }
+
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+
+            if ("server".equals(key)) {
+                serverType = Type.valueOf(value);
+            } else if ("address".equals(key)) {
+                int portSeparator = value.lastIndexOf(':');
+                address = new InetSocketAddress(value.substring(0, portSeparator), Integer.parseInt(value
+                        .substring(portSeparator + 1)));
+            } else if ("mode".equals(key)) {
+                generator.setMode("open".equals(value) ? Mode.OPEN_LOOP : Mode.CLOSED_LOOP);
+            } else if ("connections".equals(key)) {
+                generator.setConnections(Integer.parseInt(value));
+            } else if ("inFlight".equals(key)) {
+                generator.setInFlight(Integer.parseInt(value));
+            } else if ("rate".equals(key)) {
+                generator.setRate(Long.parseLong(value));
+            } else if ("messageSize".equals(key)) {
+                generator.setMessageSize(Integer.parseInt(value));
+            } else if ("threads".equals(key)) {
+                generator.setThreads(Integer.parseInt(value));
+            } else if ("warmup".equals(key)) {
+                generator.setWarmupMillis(TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+            } else if ("duration".equals(key)) {
+                generator.setDurationMillis(TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+            } else if ("output".equals(key)) {
+                output = value;
+            } else {
+                throw new IllegalArgumentException("Unknown argument : " + key);
+            }
+        }
+
+        BenchmarkServer server = null;
+        String target;
+
+        if (address == null) {
+            int port = BenchmarkBinaryTest.getNextAvailable();
+            server = BenchmarkServerFactory.INSTANCE.get(serverType);
+            server.start(port);
+            address = new InetSocketAddress("127.0.0.1", port);
+            target = serverType.name();
+        } else {
+            target = address.toString();
+        }
+
+        try {
+            LoadReport report = generator.run(address);
+            report.setTarget(target);
+            System.out.println(report);
+
+            if (output == null) {
+                System.out.println(report.toJson());
+            } else {
+                Writer writer = new FileWriter(output, true);
+
+                try {
+                    writer.write(report.toJson());
+                    writer.write('\n');
+                } finally {
+                    writer.close();
+                }
+            }
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import org.apache.mina.core.LoadGenerator.Mode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Run short loads on a MINA server
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class LoadGeneratorTest {
+
+    private BenchmarkServer server;
+
+    private InetSocketAddress address;
+
+    @Before
+    public void init() throws IOException {
+        int port = BenchmarkBinaryTest.getNextAvailable();
+        server = new Mina3BenchmarkServer();
+        server.start(port);
+        address = new InetSocketAddress("127.0.0.1", port);
+    }
+
+    @After
+    public void shutdown() throws IOException {
+        server.stop();
+    }
+
+    @Test
+    public void closedLoop() throws IOException, InterruptedException {
+        LoadGenerator generator = new LoadGenerator();
+        generator.setConnections(10);
+        generator.setInFlight(4);
+        generator.setThreads(2);
+        generator.setMessageSize(100);
+        generator.setWarmupMillis(200);
+        generator.setDurationMillis(1000);
+
+        LoadReport report = generator.run(address);
+
+        assertEquals(0, report.getErrors());
+        assertTrue(report.getAcknowledged() > 0);
+        assertEquals(report.getAcknowledged(), report.getHistogram().getTotalCount());
+        assertTrue(report.toJson().contains("\"mode\":\"CLOSED_LOOP\""));
+    }
+
+    @Test
+    public void openLoop() throws IOException, InterruptedException {
+        LoadGenerator generator = new LoadGenerator();
+        generator.setMode(Mode.OPEN_LOOP);
+        generator.setConnections(4);
+        generator.setRate(1000);
+        generator.setWarmupMillis(200);
+        generator.setDurationMillis(1000);
+
+        LoadReport report = generator.run(address);
+
+        assertEquals(0, report.getErrors());
+
+        // about 1000 messages are sent during the measure
+        assertTrue(report.getSent() >= 900 && report.getSent() <= 1100);
+        assertTrue(report.getAcknowledged() >= 900);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.core;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.LoadGenerator.Mode;
+
+/**
+ * The measures done by a {@link LoadGenerator} run. It can be written as a single line JSON object, to be compared
+ * with the previous runs.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class LoadReport {
+    /** The reported latency percentiles */
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+    private String target;
+
+    private final Mode mode;
+
+    private final int connections;
+
+    private final int inFlight;
+
+    private final long rate;
+
+    private final int messageSize;
+
+    private final int threads;
+
+    private final long timestamp = System.currentTimeMillis();
+
+    private long durationMillis;
+
+    private long sent;
+
+    private long acknowledged;
+
+    private int errors;
+
+    private LatencyHistogram histogram;
+
+    private long gcCount;
+
+    private long gcTimeMillis;
+
+    private long allocatedBytes;
+
+    LoadReport(Mode mode, int connections, int inFlight, long rate, int messageSize, int threads) {
+        this.mode = mode;
+        this.connections = connections;
+        this.inFlight = inFlight;
+        this.rate = rate;
+        this.messageSize = messageSize;
+        this.threads = threads;
+    }
+
+    void setMeasures(long durationMillis, long sent, long acknowledged, int errors, LatencyHistogram histogram) {
+        this.durationMillis = durationMillis;
+        this.sent = sent;
+        this.acknowledged = acknowledged;
+        this.errors = errors;
+        this.histogram = histogram;
+    }
+
+    void setJvmMeasures(long gcCount, long gcTimeMillis, long allocatedBytes) {
+        this.gcCount = gcCount;
+        this.gcTimeMillis = gcTimeMillis;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * @return the name of the server which has been loaded
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    /**
+     * @return the number of messages sent during the measure
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * @return the number of messages sent and acknowledged during the measure
+     */
+    public long getAcknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * @return the number of threads which stopped on an error
+     */
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the number of acknowledged messages per second
+     */
+    public double getThroughput() {
+        return durationMillis == 0 ? 0 : acknowledged * 1000.0 / durationMillis;
+    }
+
+    /**
+     * @return the histogram of the latencies, in nanoseconds
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * @return the number of garbage collections during the measure
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * @return the time spent in garbage collections during the measure
+     */
+    public long getGcTimeMillis() {
+        return gcTimeMillis;
+    }
+
+    /**
+     * @return the number of bytes allocated by the live threads during the measure, -1 if unknown
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return the measures as a single line JSON object, the latencies being in microseconds
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append('{');
+        json.append("\"timestamp\":").append(timestamp);
+        json.append(",\"target\":\"").append(target == null ? "" : target.replace("\"", "\\\"")).append('"');
+        json.append(",\"mode\":\"").append(mode).append('"');
+        json.append(",\"connections\":").append(connections);
+        json.append(",\"inFlight\":").append(inFlight);
+        json.append(",\"rate\":").append(mode == Mode.OPEN_LOOP ? rate : 0);
+        json.append(",\"messageSize\":").append(messageSize);
+        json.append(",\"threads\":").append(threads);
+        json.append(",\"durationMillis\":").append(durationMillis);
+        json.append(",\"sent\":").append(sent);
+        json.append(",\"acknowledged\":").append(acknowledged);
+        json.append(",\"errors\":").append(errors);
+        json.append(",\"throughput\":").append(format(getThroughput()));
+        json.append(",\"latencyMicros\":{");
+        json.append("\"min\":").append(format(micros(histogram.getMin())));
+        json.append(",\"mean\":").append(format(histogram.getMean() / 1000.0));
+
+        for (double percentile : PERCENTILES) {
+            json.append(",\"p").append(format(percentile).replace('.', '_')).append("\":")
+                    .append(format(micros(histogram.getValueAtPercentile(percentile))));
+        }
+
+        json.append(",\"max\":").append(format(micros(histogram.getMax())));
+        json.append('}');
+        json.append(",\"gc\":{\"count\":").append(gcCount).append(",\"timeMillis\":").append(gcTimeMillis).append('}');
+        json.append(",\"allocatedBytes\":").append(allocatedBytes);
+        json.append(",\"allocationRate\":").append(
+                allocatedBytes < 0 || durationMillis == 0 ? -1 : allocatedBytes * 1000 / durationMillis);
+        json.append('}');
+
+        return json.toString();
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    private static String format(double value) {
+        String formatted = String.format(Locale.US, "%.3f", value);
+
+        // drop the useless zeros
+        if (formatted.indexOf('.') >= 0) {
+            int end = formatted.length();
+
+            while (formatted.charAt(end - 1) == '0') {
+                end--;
+            }
+
+            if (formatted.charAt(end - 1) == '.') {
+                end--;
+            }
+
+            formatted = formatted.substring(0, end);
+        }
+
+        return formatted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(target).append(", ").append(mode).append(", ").append(connections).append(" connections");
+
+        if (mode == Mode.CLOSED_LOOP) {
+            sb.append(" x ").append(inFlight).append(" in flight");
+        } else {
+            sb.append(", ").append(rate).append(" msg/s");
+        }
+
+        sb.append(", ").append(messageSize).append(" bytes\n");
+        sb.append(String.format(Locale.US, "  %d acknowledged / %d sent in %d ms, %.0f msg/s, %d errors\n",
+                acknowledged, sent, durationMillis, getThroughput(), errors));
+        sb.append(String.format(Locale.US, "  latency (us) : min %.1f, mean %.1f", micros(histogram.getMin()),
+                histogram.getMean() / 1000.0));
+
+        for (double percentile : PERCENTILES) {
+            sb.append(String.format(Locale.US, ", p%s %.1f", format(percentile),
+                    micros(histogram.getValueAtPercentile(percentile))));
+        }
+
+        sb.append(String.format(Locale.US, ", max %.1f\n", micros(histogram.getMax())));
+        sb.append(String.format(Locale.US, "  gc : %d collections, %d ms, %d bytes allocated", gcCount, gcTimeMillis,
+                allocatedBytes));
+
+        return sb.toString();
+    }
+}
@@ -90,6 +90,10 @@ public class Mina3BenchmarkClient implements BenchmarkClient {
                 //System.out.println("Client message sent : " + message);
             }
 
+            @Override
+            public void sessionWritabilityChanged(IoSession session, boolean writable) {
+            }
+
             @Override
             public void serviceActivated(IoService service) {
             }
@@ -28,7 +28,9 @@ import org.apache.mina.api.IoHandler;
 import org.apache.mina.api.IoService;
 import org.apache.mina.api.IoSession;
 import org.apache.mina.session.AttributeKey;
+import org.apache.mina.transport.nio.NioSelectorLoop;
 import org.apache.mina.transport.nio.NioTcpServer;
+import org.apache.mina.transport.nio.SelectorLoopPool;
 
 /**
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
@@ -54,11 +56,47 @@ public class Mina3BenchmarkServer implements BenchmarkServer {
 
     private NioTcpServer tcpServer;
 
+    /** The pool of the read/write loops, or null for the default one */
+    private final SelectorLoopPool selectorLoopPool;
+
+    /** The size from which a message is processed with some extra CPU time */
+    private int heavyMessageSize = Integer.MAX_VALUE;
+
+    /** The CPU time spent on a heavy message, in nanoseconds */
+    private long heavyMessageWorkNanos;
+
+    public Mina3BenchmarkServer() {
+        this(null);
+    }
+
+    /**
+     * @param selectorLoopPool the pool of the loops handling the sessions, or <code>null</code> for the default one
+     */
+    public Mina3BenchmarkServer(SelectorLoopPool selectorLoopPool) {
+        this.selectorLoopPool = selectorLoopPool;
+    }
+
+    /**
+     * Spend some CPU time in the I/O loop for each large message, to simulate a skewed workload.
+     * 
+     * @param size the length from which a message is heavy
+     * @param workNanos the time spent on each heavy message, in nanoseconds
+     */
+    public void setHeavyMessages(int size, long workNanos) {
+        this.heavyMessageSize = size;
+        this.heavyMessageWorkNanos = workNanos;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void start(int port) throws IOException {
-        tcpServer = new NioTcpServer();
+        if (selectorLoopPool == null) {
+            tcpServer = new NioTcpServer();
+        } else {
+            tcpServer = new NioTcpServer(new NioSelectorLoop("accept", 0), selectorLoopPool, null);
+        }
+
         tcpServer.getSessionConfig().setReceiveBufferSize(128 * 1024);
         tcpServer.getSessionConfig().setTcpNoDelay(true);
         tcpServer.setIoHandler(new IoHandler() {
@@ -96,6 +134,9 @@ public class Mina3BenchmarkServer implements BenchmarkServer {
                         case WAIT_FOR_FOURTH_BYTE_LENGTH:
                             length += (buffer.get() & 255);
                             state = State.READING;
+                            if (length >= heavyMessageSize) {
+                                work(heavyMessageWorkNanos);
+                            }
                             if ((length == 0) && (buffer.remaining() == 0)) {
                                 session.write(ACK.slice());
                                 state = State.WAIT_FOR_FIRST_BYTE_LENGTH;
@@ -136,6 +177,10 @@ public class Mina3BenchmarkServer implements BenchmarkServer {
                 //System.out.println("Server message sent :" + message);
             }
 
+            @Override
+            public void sessionWritabilityChanged(IoSession session, boolean writable) {
+            }
+
             @Override
             public void serviceActivated(IoService service) {
             }
@@ -148,6 +193,14 @@ public class Mina3BenchmarkServer implements BenchmarkServer {
         tcpServer.bind(new InetSocketAddress(port));
     }
 
+    private static void work(long nanos) {
+        long end = System.nanoTime() + nanos;
+
+        while (System.nanoTime() < end) {
+            // burn the CPU of the I/O loop
+        }
+    }
+
     /**
      * {@inheritedDoc}
      */
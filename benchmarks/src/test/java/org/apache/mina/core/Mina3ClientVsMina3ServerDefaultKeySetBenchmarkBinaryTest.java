@@ -0,0 +1,52 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.mina.core;
+
+import org.apache.mina.transport.nio.NioSelectorLoop;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+/**
+ * The {@link Mina3ClientVsMina3ServerBenchmarkBinaryTest} benchmark, run with selector loops keeping the JDK selected
+ * key set instead of the array based one. Compare the results of both benchmarks to measure the selector loop
+ * optimization.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class Mina3ClientVsMina3ServerDefaultKeySetBenchmarkBinaryTest extends Mina3ClientVsMina3ServerBenchmarkBinaryTest {
+
+    /**
+     * @param numberOfMessages
+     * @param messageSize
+     */
+    public Mina3ClientVsMina3ServerDefaultKeySetBenchmarkBinaryTest(int numberOfMessages, int messageSize, int timeout) {
+        super(numberOfMessages, messageSize, timeout);
+    }
+
+    @BeforeClass
+    public static void disableSelectedKeySetOptimization() {
+        System.setProperty(NioSelectorLoop.OPTIMIZE_SELECTED_KEYS_PROPERTY, "false");
+    }
+
+    @AfterClass
+    public static void restoreSelectedKeySetOptimization() {
+        System.clearProperty(NioSelectorLoop.OPTIMIZE_SELECTED_KEYS_PROPERTY);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.LoadGenerator.Mode;
+import org.apache.mina.transport.nio.FixedSelectorLoopPool;
+import org.apache.mina.transport.nio.LeastLoadedSelectorLoopPool;
+import org.apache.mina.transport.nio.SelectorLoopPool;
+
+/**
+ * Compare the latency of the light sessions of a MINA server when a few heavy sessions are connected first, with the
+ * round robin {@link FixedSelectorLoopPool} and the {@link LeastLoadedSelectorLoopPool}. The heavy connections keep
+ * sending large messages, each one costing some CPU time to the loop handling it, while the latency of the light
+ * connections is measured by an open loop {@link LoadGenerator}.
+ * <br/>
+ * It can be run from the command line, with <code>key=value</code> arguments :
+ * 
+ * <pre>
+ * loops=L          the number of read/write loops of the server (4)
+ * heavy=H          the number of heavy connections (2)
+ * heavyWork=W      the CPU time spent on each heavy message, in microseconds (500)
+ * light=N          the number of light connections (16)
+ * rate=R           the number of light messages per second (4000)
+ * warmup=W         the warmup duration in seconds (2)
+ * duration=D       the measure duration in seconds (10)
+ * output=file      the file the JSON reports are appended to (the reports are printed if not set)
+ * </pre>
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class SkewedLoadBenchmark {
+    /** The size of the heavy messages */
+    private static final int HEAVY_MESSAGE_SIZE = 1024;
+
+    /** The size of the light messages */
+    private static final int LIGHT_MESSAGE_SIZE = 10;
+
+    /** The delay given to the heavy connections to load their loops before the light ones connect */
+    private static final long HEAVY_START_MILLIS = 500;
+
+    private int loops = 4;
+
+    private int heavyConnections = 2;
+
+    private long heavyWorkNanos = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private int lightConnections = 16;
+
+    private long rate = 4000;
+
+    private long warmupMillis = 2000;
+
+    private long durationMillis = 10000;
+
+    /**
+     * Measure the light connections latency on a server using the given pool
+     * 
+     * @param name the name of the pool in the report
+     * @param pool the read/write loops of the server
+     * @return the report of the light connections
+     */
+    public LoadReport run(String name, SelectorLoopPool pool) throws IOException, InterruptedException {
+        int port = BenchmarkBinaryTest.getNextAvailable();
+        Mina3BenchmarkServer server = new Mina3BenchmarkServer(pool);
+        server.setHeavyMessages(HEAVY_MESSAGE_SIZE, heavyWorkNanos);
+        server.start(port);
+
+        final InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+
+        try {
+            final LoadGenerator heavy = new LoadGenerator();
+            heavy.setConnections(heavyConnections);
+            heavy.setThreads(heavyConnections);
+            heavy.setMessageSize(HEAVY_MESSAGE_SIZE);
+            heavy.setWarmupMillis(0);
+            heavy.setDurationMillis(HEAVY_START_MILLIS + warmupMillis + durationMillis);
+
+            final IOException[] heavyFailure = new IOException[1];
+            Thread heavyThread = new Thread("SkewedLoad-heavy") {
+                @Override
+                public void run() {
+                    try {
+                        heavy.run(address);
+                    } catch (IOException e) {
+                        heavyFailure[0] = e;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            heavyThread.start();
+            Thread.sleep(HEAVY_START_MILLIS);
+
+            LoadGenerator light = new LoadGenerator();
+            light.setMode(Mode.OPEN_LOOP);
+            light.setConnections(lightConnections);
+            light.setRate(rate);
+            light.setMessageSize(LIGHT_MESSAGE_SIZE);
+            light.setWarmupMillis(warmupMillis);
+            light.setDurationMillis(durationMillis);
+
+            LoadReport report = light.run(address);
+            report.setTarget(name + ", " + loops + " loops, " + heavyConnections + " heavy connections");
+            heavyThread.join();
+
+            if (heavyFailure[0] != null) {
+                throw heavyFailure[0];
+            }
+
+            return report;
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Run the benchmark from the command line
+     */
+    public static void main(String[] args) throws Exception {
+        SkewedLoadBenchmark benchmark = new SkewedLoadBenchmark();
+        String output = null;
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid argument, key=value expected : " + arg);
+            }
+
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+
+            if ("loops".equals(key)) {
+                benchmark.loops = Integer.parseInt(value);
+            } else if ("heavy".equals(key)) {
+                benchmark.heavyConnections = Integer.parseInt(value);
+            } else if ("heavyWork".equals(key)) {
+                benchmark.heavyWorkNanos = TimeUnit.MICROSECONDS.toNanos(Long.parseLong(value));
+            } else if ("light".equals(key)) {
+                benchmark.lightConnections = Integer.parseInt(value);
+            } else if ("rate".equals(key)) {
+                benchmark.rate = Long.parseLong(value);
+            } else if ("warmup".equals(key)) {
+                benchmark.warmupMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+            } else if ("duration".equals(key)) {
+                benchmark.durationMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(value));
+            } else if ("output".equals(key)) {
+                output = value;
+            } else {
+                throw new IllegalArgumentException("Unknown argument : " + key);
+            }
+        }
+
+        LoadReport[] reports = new LoadReport[] {
+                benchmark.run("RoundRobin", new FixedSelectorLoopPool("RoundRobin", benchmark.loops)),
+                benchmark.run("LeastLoaded", new LeastLoadedSelectorLoopPool("LeastLoaded", benchmark.loops)) };
+
+        for (LoadReport report : reports) {
+            System.out.println(report);
+        }
+
+        if (output == null) {
+            for (LoadReport report : reports) {
+                System.out.println(report.toJson());
+            }
+        } else {
+            Writer writer = new FileWriter(output, true);
+
+            try {
+                for (LoadReport report : reports) {
+                    writer.write(report.toJson());
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.filter.codec;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.codec.ProtocolDecoder;
+import org.apache.mina.codec.ProtocolEncoder;
+import org.apache.mina.service.idlechecker.IndexedIdleChecker;
+import org.apache.mina.session.BenchmarkSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the decoding of the received buffers by a {@link ProtocolCodecFilter} using a
+ * {@link LengthPrefixedProtocolDecoder}, from the session read event to the handler. The messages are received in a
+ * single buffer, or split in two reads so that the decoder has to cumulate the bytes.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolCodecFilterBenchmark {
+    /** The number of messages in the received bytes */
+    @Param({ "1", "16" })
+    private int messageCount;
+
+    /** The size of a message, prefix excluded */
+    @Param({ "32", "1024" })
+    private int messageSize;
+
+    /** Split the received bytes in two reads, in the middle of a message */
+    @Param({ "false", "true" })
+    private boolean fragmented;
+
+    private BenchmarkSession session;
+
+    private ByteBuffer received;
+
+    private ByteBuffer firstRead;
+
+    private ByteBuffer secondRead;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        ProtocolCodecFilter<ByteBuffer, ByteBuffer> codecFilter = new ProtocolCodecFilter<ByteBuffer, ByteBuffer>(
+                new ProtocolCodecFactory<ByteBuffer, ByteBuffer>() {
+                    private final ProtocolEncoder<ByteBuffer, ByteBuffer> encoder = new ProtocolEncoder<ByteBuffer, ByteBuffer>() {
+                        @Override
+                        public ByteBuffer encode(ByteBuffer message) {
+                            return message;
+                        }
+                    };
+
+                    @Override
+                    public ProtocolEncoder<ByteBuffer, ByteBuffer> getEncoder(IoSession session) {
+                        return encoder;
+                    }
+
+                    @Override
+                    public ProtocolDecoder<ByteBuffer, ByteBuffer> getDecoder(IoSession session) {
+                        return new LengthPrefixedProtocolDecoder();
+                    }
+                });
+
+        session = new BenchmarkSession(new IndexedIdleChecker(), new AbstractIoHandler() {
+            @Override
+            public void messageReceived(IoSession session, Object message) {
+                blackhole.consume(message);
+            }
+        }, codecFilter);
+
+        received = ByteBuffer.allocate(messageCount * (4 + messageSize));
+
+        for (int i = 0; i < messageCount; i++) {
+            received.putInt(messageSize);
+
+            for (int j = 0; j < messageSize; j++) {
+                received.put((byte) j);
+            }
+        }
+
+        received.flip();
+
+        // the first read stops in the middle of the last message
+        int split = received.limit() - messageSize / 2;
+        firstRead = received.duplicate();
+        firstRead.limit(split);
+        secondRead = received.duplicate();
+        secondRead.position(split);
+    }
+
+    /**
+     * Decode the received messages
+     */
+    @Benchmark
+    public void decode() {
+        if (fragmented) {
+            firstRead.position(0);
+            session.processMessageReceived(firstRead);
+            secondRead.position(firstRead.limit());
+            session.processMessageReceived(secondRead);
+        } else {
+            received.position(0);
+            session.processMessageReceived(received);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProtocolCodecFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.codec.ProtocolDecoderException;
+import org.apache.mina.codec.ProtocolDecoderOutput;
+import org.apache.mina.http.api.HttpPdu;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the parsing of HTTP request heads by the {@link HttpServerDecoder}, for a single request or for pipelined
+ * requests received in the same buffer.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpServerDecoderBenchmark {
+    private static final String REQUEST = "GET /index.html?param=value HTTP/1.1\r\n" //
+            + "Host: localhost:8080\r\n" //
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:17.0) Gecko/20100101 Firefox/17.0\r\n" //
+            + "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8\r\n" //
+            + "Accept-Language: en-US,en;q=0.5\r\n" //
+            + "Accept-Encoding: gzip, deflate\r\n" //
+            + "Connection: keep-alive\r\n" //
+            + "\r\n";
+
+    /** The number of requests in the received buffer */
+    @Param({ "1", "8" })
+    private int pipelined;
+
+    /** Decode a direct buffer */
+    @Param({ "false", "true" })
+    private boolean direct;
+
+    private HttpServerDecoder decoder;
+
+    private ByteBuffer received;
+
+    private ProtocolDecoderOutput<HttpPdu> output;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        decoder = new HttpServerDecoder();
+        output = new ProtocolDecoderOutput<HttpPdu>() {
+            @Override
+            public void write(HttpPdu message) {
+                blackhole.consume(message);
+            }
+        };
+
+        StringBuilder requests = new StringBuilder();
+
+        for (int i = 0; i < pipelined; i++) {
+            requests.append(REQUEST);
+        }
+
+        byte[] bytes = requests.toString().getBytes(Charset.forName("ISO-8859-1"));
+        received = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+        received.put(bytes).flip();
+    }
+
+    /**
+     * Decode the received requests
+     */
+    @Benchmark
+    public void decode() throws ProtocolDecoderException {
+        received.position(0);
+        decoder.decode(received, output);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HttpServerDecoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.service.idlechecker;
+
+import java.nio.channels.SelectableChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.IdleStatus;
+import org.apache.mina.session.BenchmarkSession;
+import org.apache.mina.transport.nio.RegistrationCallback;
+import org.apache.mina.transport.nio.ScheduledTask;
+import org.apache.mina.transport.nio.SelectorListener;
+import org.apache.mina.transport.nio.SelectorLoop;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures {@link IdleChecker#sessionRead(org.apache.mina.session.AbstractIoSession, long)}, called for each read event,
+ * with many sessions read every second. The {@link HashedWheelIdleChecker} used by the selector loops is compared to
+ * the former {@link IndexedIdleChecker}, whose sessions move from an index to another one.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdleCheckerBenchmark {
+    /** The idle checker implementation */
+    @Param({ "hashedWheel", "indexed" })
+    private String implementation;
+
+    /** The number of sessions */
+    @Param({ "1", "1000" })
+    private int sessionCount;
+
+    /** Enable the read idle detection on the sessions */
+    @Param({ "false", "true" })
+    private boolean idle;
+
+    private IdleChecker idleChecker;
+
+    private BenchmarkSession[] sessions;
+
+    private int next;
+
+    private long time;
+
+    @Setup
+    public void setup() {
+        if ("hashedWheel".equals(implementation)) {
+            idleChecker = new HashedWheelIdleChecker(new BenchmarkSelectorLoop());
+        } else {
+            idleChecker = new IndexedIdleChecker();
+        }
+
+        sessions = new BenchmarkSession[sessionCount];
+
+        for (int i = 0; i < sessionCount; i++) {
+            sessions[i] = new BenchmarkSession(idleChecker, null);
+
+            if (idle) {
+                sessions[i].getConfig().setIdleTimeInMillis(IdleStatus.READ_IDLE, 60000);
+            }
+        }
+
+        time = System.currentTimeMillis();
+    }
+
+    /**
+     * Signal a read on a session, one second after its previous read, so that the session changes of index
+     */
+    @Benchmark
+    public void sessionRead() {
+        next = (next + 1) % sessionCount;
+
+        if (next == 0) {
+            time += 1000L;
+        }
+
+        idleChecker.sessionRead(sessions[next], time);
+    }
+
+    /**
+     * A selector loop run by the benchmark thread, which is never ticked : only the session events are measured.
+     */
+    private static final class BenchmarkSelectorLoop implements SelectorLoop {
+        @Override
+        public void register(boolean accept, boolean connect, boolean read, boolean write,
+                SelectorListener listener, SelectableChannel channel, RegistrationCallback callback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void modifyRegistration(boolean accept, boolean read, boolean write, SelectorListener listener,
+                SelectableChannel channel, boolean wakeup) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void unregister(SelectorListener listener, SelectableChannel channel) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void wakeup() {
+        }
+
+        @Override
+        public boolean isInLoopThread() {
+            return true;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IdleChecker getIdleChecker() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdleCheckerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.session;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the accesses to the session attributes, which are done by the filters for each event of a session. The
+ * {@link IndexedAttributeContainer} used by the sessions is compared to the former {@link DefaultAttributeContainer}.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttributeContainerBenchmark {
+    /** The container implementation */
+    @Param({ "indexed", "default" })
+    private String implementation;
+
+    /** The number of attributes stored in the container */
+    @Param({ "1", "8" })
+    private int attributeCount;
+
+    private AttributeContainer container;
+
+    private AttributeKey<Integer>[] keys;
+
+    private AttributeKey<Integer> missingKey;
+
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        if ("indexed".equals(implementation)) {
+            container = new IndexedAttributeContainer();
+        } else {
+            container = new DefaultAttributeContainer();
+        }
+
+        keys = new AttributeKey[attributeCount];
+
+        for (int i = 0; i < attributeCount; i++) {
+            keys[i] = new AttributeKey<Integer>(Integer.class, "key" + i);
+            container.setAttribute(keys[i], i);
+        }
+
+        missingKey = new AttributeKey<Integer>(Integer.class, "missing");
+    }
+
+    /**
+     * Get an existing attribute
+     */
+    @Benchmark
+    public Integer getAttribute() {
+        return container.getAttribute(nextKey());
+    }
+
+    /**
+     * Get a missing attribute, with a default value
+     */
+    @Benchmark
+    public Integer getMissingAttribute() {
+        return container.getAttribute(missingKey, -1);
+    }
+
+    /**
+     * Replace an existing attribute
+     */
+    @Benchmark
+    public Integer setAttribute() {
+        return container.setAttribute(nextKey(), next);
+    }
+
+    /**
+     * Add then remove an attribute
+     */
+    @Benchmark
+    public Integer setRemoveAttribute() {
+        container.setAttribute(missingKey, next);
+
+        return container.removeAttribute(missingKey);
+    }
+
+    private AttributeKey<Integer> nextKey() {
+        next = (next + 1) % attributeCount;
+
+        return keys[next];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AttributeContainerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
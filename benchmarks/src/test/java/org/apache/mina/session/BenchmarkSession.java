@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.session;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+import org.apache.mina.api.IoFilter;
+import org.apache.mina.api.IoHandler;
+import org.apache.mina.api.IoSessionConfig;
+import org.apache.mina.service.AbstractIoService;
+import org.apache.mina.service.idlechecker.IdleChecker;
+import org.apache.mina.transport.tcp.DefaultTcpSessionConfig;
+
+/**
+ * A session without any channel, used by the micro benchmarks to run the session code paths : the written messages
+ * are consumed immediately, as if the socket was always writable.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class BenchmarkSession extends AbstractIoSession {
+    /** The session configuration */
+    private final DefaultTcpSessionConfig config;
+
+    /**
+     * Create a session, with its own service.
+     * 
+     * @param idleChecker the idle checker to notify of the session reads and writes
+     * @param handler the service handler, can be <code>null</code>
+     * @param filters the service filters
+     */
+    public BenchmarkSession(IdleChecker idleChecker, IoHandler handler, IoFilter... filters) {
+        super(new BenchmarkService(handler, filters), idleChecker);
+        config = (DefaultTcpSessionConfig) getService().getSessionConfig();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DefaultTcpSessionConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SocketAddress getLocalAddress() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SocketAddress getRemoteAddress() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReadSuspended() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isWriteSuspended() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resumeRead() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resumeWrite() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void suspendRead() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void suspendWrite() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int writeDirect(Object message) {
+        ByteBuffer buffer = (ByteBuffer) message;
+        int written = buffer.remaining();
+        buffer.position(buffer.limit());
+
+        return written;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ByteBuffer convertToDirectBuffer(WriteRequest writeRequest, boolean createNew) {
+        return (ByteBuffer) writeRequest.getMessage();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flushWriteQueue() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void channelClose() {
+    }
+
+    /**
+     * The service of a benchmark session
+     */
+    private static class BenchmarkService extends AbstractIoService {
+        private final IoSessionConfig config = new DefaultTcpSessionConfig();
+
+        private BenchmarkService(IoHandler handler, IoFilter... filters) {
+            super(null);
+            setIoHandler(handler);
+            setFilters(filters);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public IoSessionConfig getSessionConfig() {
+            return config;
+        }
+    }
+}
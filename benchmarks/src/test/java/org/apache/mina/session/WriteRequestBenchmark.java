@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.session;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IdleStatus;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.service.idlechecker.IndexedIdleChecker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures {@link AbstractIoSession#enqueueWriteRequest(WriteRequest)} when the message can be written immediately,
+ * which is the path taken by most of the writes : the idle checker update, the written bytes accounting and the
+ * message sent event.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteRequestBenchmark {
+    /** The size of the written messages */
+    @Param({ "16", "1024" })
+    private int messageSize;
+
+    /** Enable the write idle detection on the session */
+    @Param({ "false", "true" })
+    private boolean idle;
+
+    private BenchmarkSession session;
+
+    private ByteBuffer message;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        session = new BenchmarkSession(new IndexedIdleChecker(), new AbstractIoHandler() {
+            @Override
+            public void messageSent(IoSession session, Object message) {
+                blackhole.consume(message);
+            }
+        });
+
+        if (idle) {
+            session.getConfig().setIdleTimeInMillis(IdleStatus.WRITE_IDLE, 60000);
+        }
+
+        message = ByteBuffer.allocate(messageSize);
+    }
+
+    /**
+     * Enqueue a write request which is written immediately
+     */
+    @Benchmark
+    public WriteRequest enqueueWriteRequest() {
+        message.clear();
+
+        return session.enqueueWriteRequest(new DefaultWriteRequest(message));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WriteRequestBenchmark.class.getSimpleName()).build()).run();
+    }
+}
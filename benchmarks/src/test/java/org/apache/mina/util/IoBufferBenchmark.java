@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the reads done on an {@link IoBuffer} gathering many ByteBuffers with the reads done
+ * after copying these ByteBuffers into a single ByteBuffer, which is what we would do without
+ * IoBuffer.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IoBufferBenchmark {
+    /** The number of ByteBuffers */
+    @Param({ "1", "16", "128" })
+    private int bufferCount;
+
+    /** The size of each ByteBuffer */
+    @Param({ "61", "1024" })
+    private int bufferSize;
+
+    /** Use direct ByteBuffers */
+    @Param({ "false", "true" })
+    private boolean direct;
+
+    private ByteBuffer[] buffers;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        buffers = new ByteBuffer[bufferCount];
+
+        for (int i = 0; i < bufferCount; i++) {
+            buffers[i] = direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+
+            for (int j = 0; j < bufferSize; j++) {
+                buffers[i].put((byte) j);
+            }
+
+            buffers[i].flip();
+        }
+
+        bytes = new byte[bufferCount * bufferSize];
+    }
+
+    /**
+     * Reads all the bytes one by one from an IoBuffer
+     */
+    @Benchmark
+    public long ioBufferGetBytes() {
+        IoBuffer ioBuffer = new IoBuffer(buffers);
+        long sum = 0;
+
+        while (ioBuffer.hasRemaining()) {
+            sum += ioBuffer.get();
+        }
+
+        return sum;
+    }
+
+    /**
+     * Reads all the bytes one by one after a copy into a single ByteBuffer
+     */
+    @Benchmark
+    public long copyGetBytes() {
+        ByteBuffer copy = copy();
+        long sum = 0;
+
+        while (copy.hasRemaining()) {
+            sum += copy.get();
+        }
+
+        return sum;
+    }
+
+    /**
+     * Reads all the ints from an IoBuffer, some being spread over two ByteBuffers
+     */
+    @Benchmark
+    public long ioBufferGetInts() {
+        IoBuffer ioBuffer = new IoBuffer(buffers);
+        long sum = 0;
+
+        while (ioBuffer.remaining() >= 4) {
+            sum += ioBuffer.getInt();
+        }
+
+        return sum;
+    }
+
+    /**
+     * Reads all the ints after a copy into a single ByteBuffer
+     */
+    @Benchmark
+    public long copyGetInts() {
+        ByteBuffer copy = copy();
+        long sum = 0;
+
+        while (copy.remaining() >= 4) {
+            sum += copy.getInt();
+        }
+
+        return sum;
+    }
+
+    /**
+     * Reads all the bytes of an IoBuffer with a bulk get
+     */
+    @Benchmark
+    public byte[] ioBufferBulkGet() {
+        new IoBuffer(buffers).get(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Reads all the bytes with a bulk get after a copy into a single ByteBuffer
+     */
+    @Benchmark
+    public byte[] copyBulkGet() {
+        copy().get(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Reads the ints at random indexes in an IoBuffer, using the ByteBuffers lookup
+     */
+    @Benchmark
+    public long ioBufferRandomGetInts() {
+        IoBuffer ioBuffer = new IoBuffer(buffers);
+        int max = ioBuffer.limit() - 4;
+        long sum = 0;
+
+        for (int i = 0, index = 0; i < 1024; i++, index = (index + 7919) % max) {
+            sum += ioBuffer.getInt(index);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Reads the ints at random indexes after a copy into a single ByteBuffer
+     */
+    @Benchmark
+    public long copyRandomGetInts() {
+        ByteBuffer copy = copy();
+        int max = copy.limit() - 4;
+        long sum = 0;
+
+        for (int i = 0, index = 0; i < 1024; i++, index = (index + 7919) % max) {
+            sum += copy.getInt(index);
+        }
+
+        return sum;
+    }
+
+    /**
+     * Copy the ByteBuffers in a single ByteBuffer, the way it's done without IoBuffer
+     */
+    private ByteBuffer copy() {
+        ByteBuffer copy = direct ? ByteBuffer.allocateDirect(bytes.length) : ByteBuffer.allocate(bytes.length);
+
+        for (ByteBuffer buffer : buffers) {
+            copy.put(buffer.duplicate());
+        }
+
+        copy.flip();
+
+        return copy;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IoBufferBenchmark.class.getSimpleName()).build()).run();
+    }
+}
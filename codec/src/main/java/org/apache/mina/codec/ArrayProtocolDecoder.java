@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.codec;
+
+/**
+ * A base class for the decoders returning an array of messages per call, as the {@link ProtocolDecoder} of the
+ * previous releases did. As the codec filter used to do, {@link #decode(Object)} is called until it returns
+ * <code>null</code>, so a decoder returning one frame per call still gets all the frames of the input. The returned
+ * messages are written to the {@link ProtocolDecoderOutput}, at the price of one array per call.
+ * <p>
+ * Migrating a decoder written against the array-returning contract only takes to extend this class instead of
+ * implementing {@link ProtocolDecoder}: its <code>OUTPUT[] decode(INPUT)</code> method is kept as is. Writing the
+ * messages directly to the output, by implementing {@link ProtocolDecoder#decode(Object, ProtocolDecoderOutput)}, avoids
+ * the array allocation.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ * 
+ */
+public abstract class ArrayProtocolDecoder<INPUT, OUTPUT> implements ProtocolDecoder<INPUT, OUTPUT> {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void decode(INPUT input, ProtocolDecoderOutput<OUTPUT> output) throws ProtocolDecoderException {
+        OUTPUT[] messages;
+
+        // loop until the decoder cannot decode more
+        while ((messages = decode(input)) != null) {
+            for (OUTPUT message : messages) {
+                output.write(message);
+            }
+        }
+    }
+
+    /**
+     * Decode binary or protocol-specific content of type <code>INPUT</code> into higher-level protocol message objects,
+     * of type OUTPUT
+     * 
+     * @param input the received message to decode
+     * @return the decoded messages or <code>null</code> if nothing more can be decoded from the input
+     * @throws ProtocolDecoderException if something wrong happen during decoding (e.g. : a malformed input message)
+     */
+    public abstract OUTPUT[] decode(INPUT input) throws ProtocolDecoderException;
+}
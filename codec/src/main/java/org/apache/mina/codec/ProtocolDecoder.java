@@ -23,6 +23,10 @@ package org.apache.mina.codec;
  * Decodes binary or protocol-specific data into higher-level message objects.
  * 
  * Should be state-full, and have one instance per new session.
+ * <p>
+ * The decoded messages are written to a {@link ProtocolDecoderOutput} instead of being returned in an array. A decoder
+ * implementing the former <code>OUTPUT[] decode(INPUT)</code> method can extend {@link ArrayProtocolDecoder} and keep
+ * its code unchanged : that method is still called until it returns <code>null</code>.
  * 
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  * 
@@ -31,13 +35,14 @@ public interface ProtocolDecoder<INPUT, OUTPUT> {
 
     /**
      * Decode binary or protocol-specific content of type <code>INPUT</code> into higher-level protocol message objects,
-     * of type OUTPUT
+     * of type OUTPUT. All the messages which can be decoded from the input are written to the output, and the
+     * remaining bytes are kept by the decoder for the next call.
      * 
      * @param input the received message to decode
-     * @return the decoded messages or <code>null</code> if nothing was decoded
+     * @param output the receiver of the decoded messages
      * @throws ProtocolDecoderException if something wrong happen during decoding (e.g. : a malformed input message)
      */
-    OUTPUT[] decode(INPUT input) throws ProtocolDecoderException;
+    void decode(INPUT input, ProtocolDecoderOutput<OUTPUT> output) throws ProtocolDecoderException;
 
     /**
      * Finish decoding, for example if the decoder accumulated some unused input, it should discard it, or throw an
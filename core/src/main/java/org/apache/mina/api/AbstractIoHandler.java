@@ -60,6 +60,13 @@ public abstract class AbstractIoHandler implements IoHandler {
     public void messageSent(final IoSession session, final Object message) {
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sessionWritabilityChanged(final IoSession session, final boolean writable) {
+    }
+
     /**
      * {@inheritDoc}
      */
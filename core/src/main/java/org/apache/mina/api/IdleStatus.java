@@ -25,12 +25,13 @@ package org.apache.mina.api;
  * <ul>
  * <li>{@link #READ_IDLE} - No data is coming from the remote peer.</li>
  * <li>{@link #WRITE_IDLE} - Session is not writing any data.</li>
+ * <li>{@link #BOTH_IDLE} - Session is neither reading nor writing any data.</li>
  * </ul>
  *
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  */
 public enum IdleStatus {
-    READ_IDLE("read idle"), WRITE_IDLE("write idle");
+    READ_IDLE("read idle"), WRITE_IDLE("write idle"), BOTH_IDLE("both idle");
 
     private final String description;
 
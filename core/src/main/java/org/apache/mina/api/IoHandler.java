@@ -58,6 +58,17 @@ public interface IoHandler {
      */
     void messageSent(IoSession session, Object message);
 
+    /**
+     * Invoked when the write queue of a session reaches its high watermark (the session becomes not writable), or
+     * goes back under its low watermark (the session is writable again). A handler relaying the messages of another
+     * session should suspend the reads of this other session while the session is not writable.
+     * 
+     * @param session {@link IoSession} associated with the invocation
+     * @param writable <code>true</code> if the session is writable again
+     * @see IoSessionConfig#setWriteQueueHighWatermark(int)
+     */
+    void sessionWritabilityChanged(IoSession session, boolean writable);
+
     /**
      * Invoked when a new service is activated by an {@link IoService}.
      * 
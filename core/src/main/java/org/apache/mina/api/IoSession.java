@@ -214,6 +214,22 @@ public interface IoSession {
      */
     boolean isWriteSuspended();
 
+    /**
+     * Tells if the write queue of this session is under its high watermark. A session stays not writable until its
+     * write queue goes back under its low watermark.
+     * 
+     * @return <code>true</code> if more messages can be written without overloading the write queue
+     * @see IoSessionConfig#setWriteQueueHighWatermark(int)
+     */
+    boolean isWritable();
+
+    /**
+     * Gets the number of bytes waiting in the write queue of this session.
+     * 
+     * @return the number of queued bytes
+     */
+    long getWriteQueueBytes();
+
     /* BASIC STATS */
     /**
      * Gets the total number of bytes read for this session since it was created.
@@ -41,4 +41,51 @@ public interface IoSessionConfig {
      * @param ildeTimeInMilli the timeout in milliseconds (<code>-1</code> for no idle detection on this status)
      */
     void setIdleTimeInMillis(IdleStatus status, long ildeTimeInMilli);
+
+    /**
+     * Returns the number of queued bytes at which the session becomes not writable.
+     * 
+     * @return the high watermark in bytes, or <code>-1</code> if the write queue is not bounded
+     */
+    int getWriteQueueHighWatermark();
+
+    /**
+     * Set the number of queued bytes at which the session becomes not writable : a
+     * {@link IoHandler#sessionWritabilityChanged(IoSession, boolean)} event is generated and
+     * {@link IoSession#isWritable()} returns <code>false</code> until the write queue goes back under the low
+     * watermark.
+     * 
+     * @param highWatermark the high watermark in bytes (<code>-1</code> for an unbounded write queue)
+     */
+    void setWriteQueueHighWatermark(int highWatermark);
+
+    /**
+     * Returns the number of queued bytes under which a not writable session becomes writable again.
+     * 
+     * @return the low watermark in bytes
+     */
+    int getWriteQueueLowWatermark();
+
+    /**
+     * Set the number of queued bytes under which a not writable session becomes writable again. It should be lower
+     * than the high watermark.
+     * 
+     * @param lowWatermark the low watermark in bytes
+     */
+    void setWriteQueueLowWatermark(int lowWatermark);
+
+    /**
+     * Tells if the reads of a session are suspended while the session is not writable.
+     * 
+     * @return <code>true</code> if the reads are suspended while the write queue is full
+     */
+    boolean isSuspendReadWhenNotWritable();
+
+    /**
+     * Suspend the reads of a session while the session is not writable : we stop reading the requests of a peer which
+     * doesn't read our responses.
+     * 
+     * @param suspendRead <code>true</code> to suspend the reads while the write queue is full
+     */
+    void setSuspendReadWhenNotWritable(boolean suspendRead);
 }
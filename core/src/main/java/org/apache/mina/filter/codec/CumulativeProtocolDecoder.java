@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.filter.codec;
+
+import java.nio.ByteBuffer;
+
+import org.apache.mina.codec.ProtocolDecoder;
+import org.apache.mina.codec.ProtocolDecoderException;
+import org.apache.mina.codec.ProtocolDecoderOutput;
+import org.apache.mina.util.IoBuffer;
+
+/**
+ * A {@link ProtocolDecoder} cumulating the received bytes until a full message can be decoded, so the implementations
+ * don't have to handle the messages split over several reads. The implementations decode the messages in
+ * {@link #doDecode(IoBuffer, ProtocolDecoderOutput)}.
+ * <p>
+ * The bytes left undecoded are copied once in a new buffer, appended to an {@link IoBuffer}, so we don't copy again the
+ * whole received data for each new fragment. The fully decoded buffers are dropped from the {@link IoBuffer}. When
+ * nothing is left from the previous reads, the received buffer is decoded without any copy.
+ * <p>
+ * Like any decoder, an instance is used by a single session.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public abstract class CumulativeProtocolDecoder<MESSAGE> implements ProtocolDecoder<ByteBuffer, MESSAGE> {
+    /** The default maximum number of bytes waiting for the end of a message */
+    public static final int DEFAULT_MAX_CUMULATED_BYTES = 1024 * 1024;
+
+    /** The maximum number of bytes waiting for the end of a message */
+    private final int maxCumulatedBytes;
+
+    /** The bytes left undecoded by the previous reads, null if there is none */
+    private IoBuffer cumulated;
+
+    /**
+     * Create a decoder keeping at most {@link #DEFAULT_MAX_CUMULATED_BYTES} undecoded bytes
+     */
+    protected CumulativeProtocolDecoder() {
+        this(DEFAULT_MAX_CUMULATED_BYTES);
+    }
+
+    /**
+     * Create a decoder
+     * 
+     * @param maxCumulatedBytes the maximum number of bytes waiting for the end of a message
+     */
+    protected CumulativeProtocolDecoder(int maxCumulatedBytes) {
+        if (maxCumulatedBytes <= 0) {
+            throw new IllegalArgumentException("Invalid maximum number of cumulated bytes : " + maxCumulatedBytes);
+        }
+
+        this.maxCumulatedBytes = maxCumulatedBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void decode(ByteBuffer input, ProtocolDecoderOutput<MESSAGE> output) throws ProtocolDecoderException {
+        if (!input.hasRemaining()) {
+            return;
+        }
+
+        final IoBuffer buffer;
+
+        if (cumulated == null) {
+            // nothing left from the previous reads : decode the received buffer as is
+            buffer = new IoBuffer(input.slice());
+        } else {
+            cumulated.add(copy(input));
+            buffer = cumulated;
+        }
+
+        final int start = input.position();
+
+        try {
+            while (buffer.hasRemaining()) {
+                final int position = buffer.position();
+
+                if (!doDecode(buffer, output)) {
+                    // wait for the end of the message
+                    if (buffer.position() != position) {
+                        buffer.position(position);
+                    }
+
+                    break;
+                }
+
+                if (buffer.position() == position) {
+                    throw new IllegalStateException("doDecode() can't return true when the buffer is not consumed");
+                }
+            }
+        } catch (ProtocolDecoderException e) {
+            // the remaining bytes can't be trusted any more
+            cumulated = null;
+            input.position(input.limit());
+            throw e;
+        }
+
+        if (!buffer.hasRemaining()) {
+            cumulated = null;
+        } else {
+            if (buffer.remaining() > maxCumulatedBytes) {
+                cumulated = null;
+                input.position(input.limit());
+                throw new ProtocolDecoderException("Too many bytes waiting for the end of a message : "
+                        + buffer.remaining() + " (maximum " + maxCumulatedBytes + ")");
+            }
+
+            if (buffer == cumulated) {
+                // drop the decoded buffers
+                cumulated.compact();
+            } else {
+                // the received buffer is reused for the next read : copy the undecoded bytes
+                input.position(start + buffer.position());
+                cumulated = new IoBuffer(copy(input));
+            }
+        }
+
+        input.position(input.limit());
+    }
+
+    /**
+     * Decode as many messages as possible from the cumulated bytes.
+     * 
+     * @param in the bytes received and not decoded yet
+     * @param out the receiver of the decoded messages
+     * @return <code>true</code> if a message was decoded and the remaining bytes must be decoded too, or
+     *         <code>false</code> if more bytes are needed : the position of the buffer is then moved back to where
+     *         it was before the call
+     * @throws ProtocolDecoderException if the bytes can't be decoded
+     */
+    protected abstract boolean doDecode(IoBuffer in, ProtocolDecoderOutput<MESSAGE> out)
+            throws ProtocolDecoderException;
+
+    /**
+     * Discard the cumulated bytes, so the decoder can be used again.
+     */
+    @Override
+    public void finishDecode() {
+        cumulated = null;
+    }
+
+    /**
+     * @return the number of bytes waiting for the end of a message
+     */
+    public int getCumulatedBytes() {
+        return cumulated == null ? 0 : cumulated.remaining();
+    }
+
+    /**
+     * Copy the remaining bytes of a buffer in a new heap buffer
+     */
+    private static ByteBuffer copy(ByteBuffer input) {
+        final ByteBuffer copy = ByteBuffer.allocate(input.remaining());
+        copy.put(input);
+        copy.flip();
+
+        return copy;
+    }
+}
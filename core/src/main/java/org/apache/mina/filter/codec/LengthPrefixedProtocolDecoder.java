@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.filter.codec;
+
+import java.nio.ByteBuffer;
+
+import org.apache.mina.codec.ProtocolDecoderException;
+import org.apache.mina.codec.ProtocolDecoderOutput;
+import org.apache.mina.util.IoBuffer;
+
+/**
+ * A decoder for the messages prefixed by their length, as an unsigned big endian integer of 1, 2 or 4 bytes. The
+ * decoded messages are heap {@link ByteBuffer}s containing the bytes following the prefix.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class LengthPrefixedProtocolDecoder extends CumulativeProtocolDecoder<ByteBuffer> {
+    /** The default maximum length of a message */
+    public static final int DEFAULT_MAX_MESSAGE_LENGTH = 64 * 1024;
+
+    /** The number of bytes of the length prefix */
+    private final int prefixLength;
+
+    /** The maximum length of a message, prefix excluded */
+    private final int maxMessageLength;
+
+    /**
+     * Create a decoder for messages prefixed with a 4 bytes length, up to {@link #DEFAULT_MAX_MESSAGE_LENGTH} bytes
+     */
+    public LengthPrefixedProtocolDecoder() {
+        this(4, DEFAULT_MAX_MESSAGE_LENGTH);
+    }
+
+    /**
+     * Create a decoder
+     * 
+     * @param prefixLength the number of bytes of the length prefix : 1, 2 or 4
+     * @param maxMessageLength the maximum length of a message, prefix excluded
+     */
+    public LengthPrefixedProtocolDecoder(int prefixLength, int maxMessageLength) {
+        super(prefixLength + maxMessageLength);
+
+        if ((prefixLength != 1) && (prefixLength != 2) && (prefixLength != 4)) {
+            throw new IllegalArgumentException("The prefix length must be 1, 2 or 4 : " + prefixLength);
+        }
+
+        if (maxMessageLength <= 0) {
+            throw new IllegalArgumentException("Invalid maximum message length : " + maxMessageLength);
+        }
+
+        this.prefixLength = prefixLength;
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean doDecode(IoBuffer in, ProtocolDecoderOutput<ByteBuffer> out) throws ProtocolDecoderException {
+        if (in.remaining() < prefixLength) {
+            return false;
+        }
+
+        int length = 0;
+
+        for (int i = 0; i < prefixLength; i++) {
+            length = (length << 8) | (in.get() & 0xFF);
+        }
+
+        if ((length < 0) || (length > maxMessageLength)) {
+            throw new ProtocolDecoderException("Invalid message length : " + (length & 0xFFFFFFFFL) + " (maximum "
+                    + maxMessageLength + ")");
+        }
+
+        if (in.remaining() < length) {
+            return false;
+        }
+
+        byte[] message = new byte[length];
+        in.get(message);
+        out.write(ByteBuffer.wrap(message));
+
+        return true;
+    }
+}
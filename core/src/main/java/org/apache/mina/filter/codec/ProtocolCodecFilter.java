@@ -24,6 +24,7 @@ import org.apache.mina.api.IoFilter;
 import org.apache.mina.api.IoSession;
 import org.apache.mina.codec.ProtocolDecoder;
 import org.apache.mina.codec.ProtocolDecoderException;
+import org.apache.mina.codec.ProtocolDecoderOutput;
 import org.apache.mina.codec.ProtocolEncoder;
 import org.apache.mina.filterchain.ReadFilterChainController;
 import org.apache.mina.filterchain.WriteFilterChainController;
@@ -47,17 +48,25 @@ public class ProtocolCodecFilter<MESSAGE, ENCODED> extends AbstractIoFilter {
 
     /** key for session attribute holding the encoder */
     @SuppressWarnings("rawtypes")
-    private final AttributeKey<ProtocolEncoder> ENCODER = new AttributeKey<ProtocolEncoder>(ProtocolEncoder.class,
+    private static final AttributeKey<ProtocolEncoder> ENCODER = new AttributeKey<ProtocolEncoder>(ProtocolEncoder.class,
             "internal_encoder");
 
     /** key for session attribute holding the decoder */
     @SuppressWarnings("rawtypes")
-    private final AttributeKey<ProtocolDecoder> DECODER = new AttributeKey<ProtocolDecoder>(ProtocolDecoder.class,
+    private static final AttributeKey<ProtocolDecoder> DECODER = new AttributeKey<ProtocolDecoder>(ProtocolDecoder.class,
             "internal_decoder");
 
+    /** key for session attribute holding the output of the decoder */
+    @SuppressWarnings("rawtypes")
+    private static final AttributeKey<DecoderOutput> DECODER_OUTPUT = new AttributeKey<DecoderOutput>(DecoderOutput.class,
+            "internal_decoderOutput");
+
     /** The factory responsible for creating the encoder and decoder */
     private final ProtocolCodecFactory<MESSAGE, ENCODED> factory;
 
+    /** The pool of the decoders released by the closed sessions, if any */
+    private volatile ProtocolDecoderPool<ENCODED, MESSAGE> decoderPool;
+
     /**
      * 
      * Creates a new instance of ProtocolCodecFilter, associating a factory for the creation of the encoder and decoder.
@@ -74,14 +83,15 @@ public class ProtocolCodecFilter<MESSAGE, ENCODED> extends AbstractIoFilter {
 
     /**
      * Creates a new instance of ProtocolCodecFilter, without any factory. The encoder/decoder factory will be created
-     * as an anonymous class, using the two parameters (encoder and decoder), which are class names. Instances for those
-     * classes will be created in this constructor.
+     * as an anonymous class, using the two parameters (encoder and decoder), which are class names. The encoder is
+     * instantiated in this constructor and shared by all the sessions, while a new decoder is instantiated for each
+     * session (or taken from the decoder pool), as the decoders keep the state of the decoding.
      * 
      * @param encoderClass The class responsible for encoding the message
      * @param decoderClass The class responsible for decoding the message
      */
     public ProtocolCodecFilter(Class<? extends ProtocolEncoder<MESSAGE, ENCODED>> encoderClass,
-            Class<? extends ProtocolDecoder<ENCODED, MESSAGE>> decoderClass) {
+            final Class<? extends ProtocolDecoder<ENCODED, MESSAGE>> decoderClass) {
         Assert.assertNotNull(encoderClass, "Encoder Class");
         Assert.assertNotNull(decoderClass, "Decoder Class");
 
@@ -100,15 +110,13 @@ public class ProtocolCodecFilter<MESSAGE, ENCODED> extends AbstractIoFilter {
         final ProtocolEncoder<MESSAGE, ENCODED> encoder;
 
         try {
-            encoder = encoderClass.newInstance();
+            encoder = encoderClass.getConstructor().newInstance();
         } catch (Exception e) {
             throw new IllegalArgumentException("encoderClass cannot be initialized");
         }
 
-        final ProtocolDecoder<ENCODED, MESSAGE> decoder;
-
         try {
-            decoder = decoderClass.newInstance();
+            decoderClass.getConstructor().newInstance();
         } catch (Exception e) {
             throw new IllegalArgumentException("decoderClass cannot be initialized");
         }
@@ -122,40 +130,80 @@ public class ProtocolCodecFilter<MESSAGE, ENCODED> extends AbstractIoFilter {
 
             @Override
             public ProtocolDecoder<ENCODED, MESSAGE> getDecoder(IoSession session) {
-                return decoder;
+                try {
+                    return decoderClass.getConstructor().newInstance();
+                } catch (Exception e) {
+                    throw new IllegalStateException("decoderClass cannot be initialized", e);
+                }
             }
         };
     }
 
     /**
-     * Get the encoder instance from a given session.
+     * Set the pool of decoders : the decoders of the closed sessions are reset and given to the new sessions, instead
+     * of asking the factory for a new decoder per session.
+     * 
+     * @param decoderPool the pool of decoders, <code>null</code> for creating a decoder per session
+     */
+    public void setDecoderPool(ProtocolDecoderPool<ENCODED, MESSAGE> decoderPool) {
+        this.decoderPool = decoderPool;
+    }
+
+    /**
+     * @return the pool of decoders, <code>null</code> if a decoder is created per session
+     */
+    public ProtocolDecoderPool<ENCODED, MESSAGE> getDecoderPool() {
+        return decoderPool;
+    }
+
+    /**
+     * Get the encoder instance from a given session. The encoder is asked to the factory and attached to the session
+     * the first time.
      * 
      * @param session The associated session we will get the encoder from
      * @return The encoder instance, if any
      */
+    @SuppressWarnings("unchecked")
     public ProtocolEncoder<MESSAGE, ENCODED> getEncoder(IoSession session) {
-        return factory.getEncoder(session);
+        ProtocolEncoder<MESSAGE, ENCODED> encoder = session.getAttribute(ENCODER, null);
+
+        if (encoder == null) {
+            encoder = factory.getEncoder(session);
+            session.setAttribute(ENCODER, encoder);
+        }
+
+        return encoder;
     }
 
     /**
-     * Get the decoder instance from a given session.
+     * Get the decoder instance from a given session. The decoder is taken from the pool, or asked to the factory, and
+     * attached to the session the first time.
      * 
      * @param session The associated session we will get the decoder from
      * @return The decoder instance, if any
      */
+    @SuppressWarnings("unchecked")
     public ProtocolDecoder<ENCODED, MESSAGE> getDecoder(IoSession session) {
-        return factory.getDecoder(session);
+        ProtocolDecoder<ENCODED, MESSAGE> decoder = session.getAttribute(DECODER, null);
+
+        if (decoder == null) {
+            final ProtocolDecoderPool<ENCODED, MESSAGE> pool = decoderPool;
+            decoder = pool != null ? pool.acquire() : null;
+
+            if (decoder == null) {
+                decoder = factory.getDecoder(session);
+            }
+
+            session.setAttribute(DECODER, decoder);
+        }
+
+        return decoder;
     }
 
     /**
      * Process the incoming message, calling the session decoder. As the incoming buffer might contains more than one
-     * messages, we have to loop until the decoder throws an exception. <code>
-     *  while ( buffer not empty )
-     *    try
-     *      decode ( buffer )
-     *    catch
-     *      break;
-     * </code>
+     * messages, the decoder pushes each decoded message to the next filter through a {@link ProtocolDecoderOutput}
+     * kept in the session, so no array is created for the decoded messages.
      */
     @SuppressWarnings("unchecked")
     @Override
@@ -164,16 +212,23 @@ public class ProtocolCodecFilter<MESSAGE, ENCODED> extends AbstractIoFilter {
 
         ProtocolDecoder<ENCODED, MESSAGE> decoder = getDecoder(session);
 
-        // Loop until the codec cannot decode more
-        MESSAGE[] msg;
+        DecoderOutput<MESSAGE> output = session.getAttribute(DECODER_OUTPUT, null);
+
+        if (output == null) {
+            output = new DecoderOutput<MESSAGE>();
+            session.setAttribute(DECODER_OUTPUT, output);
+        }
+
+        // a nested read of the same session reuses the output, so we restore its controller afterward
+        ReadFilterChainController previousController = output.controller;
+        output.controller = controller;
+
         try {
-            while ((msg = decoder.decode((ENCODED) in)) != null) {
-                for (MESSAGE m : msg) {
-                    controller.callReadNextFilter(m);
-                }
-            }
+            decoder.decode((ENCODED) in, output);
         } catch (ProtocolDecoderException e) {
             LOGGER.debug("decoding exception : ", e);
+        } finally {
+            output.controller = previousController;
         }
     }
 
@@ -197,13 +252,9 @@ public class ProtocolCodecFilter<MESSAGE, ENCODED> extends AbstractIoFilter {
      */
     @Override
     public void sessionOpened(IoSession session) {
-        // Initialize the encoder and decoder if we use a factory
-        if (factory != null) {
-            ProtocolEncoder<MESSAGE, ENCODED> encoder = factory.getEncoder(session);
-            session.setAttribute(ENCODER, encoder);
-            ProtocolDecoder<ENCODED, MESSAGE> decoder = factory.getDecoder(session);
-            session.setAttribute(DECODER, decoder);
-        }
+        // Initialize the encoder and decoder of the session
+        getEncoder(session);
+        getDecoder(session);
     }
 
     /**
@@ -223,6 +274,7 @@ public class ProtocolCodecFilter<MESSAGE, ENCODED> extends AbstractIoFilter {
         // from the session
         disposeEncoder(session);
         disposeDecoder(session);
+        disposeDecoderOutput(session);
     }
 
     /**
@@ -233,17 +285,51 @@ public class ProtocolCodecFilter<MESSAGE, ENCODED> extends AbstractIoFilter {
         session.removeAttribute(ENCODER);
     }
 
+    /**
+     * Dispose the output of the decoder, removing its instance from the session's attributes.
+     */
+    private void disposeDecoderOutput(IoSession session) {
+        session.removeAttribute(DECODER_OUTPUT);
+    }
+
     /**
      * Dispose the decoder, removing its instance from the session's attributes, and calling the associated dispose
-     * method.
+     * method. The reset decoder is given back to the pool, if any.
      */
     private void disposeDecoder(IoSession session) {
         @SuppressWarnings("unchecked")
         ProtocolDecoder<ENCODED, MESSAGE> decoder = session.removeAttribute(DECODER);
+
+        if (decoder == null) {
+            return;
+        }
+
         try {
             decoder.finishDecode();
         } catch (Throwable t) {
-            LOGGER.warn("Failed to dispose: " + decoder.getClass().getName() + " (" + decoder + ')');
+            LOGGER.warn("Failed to dispose: " + decoder.getClass().getName() + " (" + decoder + ')', t);
+            return;
+        }
+
+        final ProtocolDecoderPool<ENCODED, MESSAGE> pool = decoderPool;
+
+        if (pool != null) {
+            pool.release(decoder);
+        }
+    }
+
+    /**
+     * Push the decoded messages to the next filter, using the controller of the message being decoded.
+     */
+    private static class DecoderOutput<MESSAGE> implements ProtocolDecoderOutput<MESSAGE> {
+        private ReadFilterChainController controller;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(MESSAGE message) {
+            controller.callReadNextFilter(message);
         }
     }
-}
\ No newline at end of file
+}
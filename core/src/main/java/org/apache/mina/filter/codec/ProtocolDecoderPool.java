@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.filter.codec;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.mina.codec.ProtocolDecoder;
+
+/**
+ * A pool of the {@link ProtocolDecoder}s released by the closed sessions. A {@link ProtocolCodecFilter} using a pool
+ * takes the decoder of a new session from the pool, and only asks its {@link ProtocolCodecFactory} for a new decoder
+ * when the pool is empty. The decoders are reset with {@link ProtocolDecoder#finishDecode()} before being pooled.
+ * 
+ * The factory must return a new decoder instance per call, as a pooled decoder is given to a single session.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class ProtocolDecoderPool<ENCODED, MESSAGE> {
+    /** The default maximum number of free decoders kept by the pool */
+    public static final int DEFAULT_MAX_POOLED_DECODERS = 1024;
+
+    private final int maxPooledDecoders;
+
+    /** the free decoders */
+    private final Queue<ProtocolDecoder<ENCODED, MESSAGE>> freeDecoders =
+            new ConcurrentLinkedQueue<ProtocolDecoder<ENCODED, MESSAGE>>();
+
+    /** the number of free decoders, as the queue size() isn't a constant time operation */
+    private final AtomicInteger freeDecoderCount = new AtomicInteger();
+
+    /**
+     * Create a pool keeping up to {@link #DEFAULT_MAX_POOLED_DECODERS} free decoders
+     */
+    public ProtocolDecoderPool() {
+        this(DEFAULT_MAX_POOLED_DECODERS);
+    }
+
+    /**
+     * Create a pool
+     * 
+     * @param maxPooledDecoders the maximum number of free decoders kept by the pool, the other ones are left to the
+     *        garbage collector
+     */
+    public ProtocolDecoderPool(int maxPooledDecoders) {
+        if (maxPooledDecoders < 0) {
+            throw new IllegalArgumentException("Invalid maximum number of pooled decoders : " + maxPooledDecoders);
+        }
+
+        this.maxPooledDecoders = maxPooledDecoders;
+    }
+
+    /**
+     * Take a free decoder from the pool
+     * 
+     * @return a reset decoder, or <code>null</code> if the pool is empty
+     */
+    public ProtocolDecoder<ENCODED, MESSAGE> acquire() {
+        ProtocolDecoder<ENCODED, MESSAGE> decoder = freeDecoders.poll();
+
+        if (decoder != null) {
+            freeDecoderCount.decrementAndGet();
+        }
+
+        return decoder;
+    }
+
+    /**
+     * Give back a reset decoder, no more used by its session
+     * 
+     * @param decoder the decoder
+     */
+    public void release(ProtocolDecoder<ENCODED, MESSAGE> decoder) {
+        if (freeDecoderCount.incrementAndGet() > maxPooledDecoders) {
+            freeDecoderCount.decrementAndGet();
+            return;
+        }
+
+        freeDecoders.offer(decoder);
+    }
+
+    /**
+     * @return the number of free decoders kept by the pool
+     */
+    public int getPooledDecoderCount() {
+        return freeDecoderCount.get();
+    }
+}
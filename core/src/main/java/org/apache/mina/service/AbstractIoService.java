@@ -27,6 +27,10 @@ import org.apache.mina.api.IoHandler;
 import org.apache.mina.api.IoService;
 import org.apache.mina.api.IoSession;
 import org.apache.mina.service.executor.IoHandlerExecutor;
+import org.apache.mina.util.Assert;
+import org.apache.mina.util.BufferAllocator;
+import org.apache.mina.util.PooledBufferAllocator;
+import org.apache.mina.util.RefCountedBufferPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +58,12 @@ public abstract class AbstractIoService implements IoService {
     /** used for executing IoHandler event in another pool of thread (not in the low level I/O one) */
     protected final IoHandlerExecutor ioHandlerExecutor;
 
+    /** The allocator used by the sessions for the buffers of the write path */
+    private BufferAllocator bufferAllocator = new PooledBufferAllocator();
+
+    /** the pool of the buffers the sessions read into, if any */
+    private RefCountedBufferPool receiveBufferPool;
+
     /**
      * The Service states
      */
@@ -116,6 +126,44 @@ public abstract class AbstractIoService implements IoService {
         return ioHandlerExecutor;
     }
 
+    /**
+     * @return the allocator used by the sessions of this service for the buffers of the write path
+     */
+    public BufferAllocator getBufferAllocator() {
+        return bufferAllocator;
+    }
+
+    /**
+     * Set the allocator used by the sessions of this service for the buffers of the write path. It will be used by
+     * the sessions created after this call.
+     * 
+     * @param bufferAllocator the allocator to use
+     */
+    public void setBufferAllocator(final BufferAllocator bufferAllocator) {
+        Assert.assertNotNull(bufferAllocator, "bufferAllocator");
+        this.bufferAllocator = bufferAllocator;
+    }
+
+    /**
+     * @return the pool of the buffers the sessions read into, or <code>null</code> if they read into the selector
+     *         loop buffer
+     */
+    public RefCountedBufferPool getReceiveBufferPool() {
+        return receiveBufferPool;
+    }
+
+    /**
+     * Set the pool of the buffers the sessions of this service read into. With a pool, the received buffers are handed
+     * to the {@link IoHandlerExecutor} without being copied, and released once the {@link IoHandler} has processed
+     * them : the handler must not keep a reference to a received buffer. Without a pool, the sessions read into the
+     * selector loop buffer, which is copied for the executor. It will be used by the sessions created after this call.
+     * 
+     * @param receiveBufferPool the pool to use, or <code>null</code>
+     */
+    public void setReceiveBufferPool(final RefCountedBufferPool receiveBufferPool) {
+        this.receiveBufferPool = receiveBufferPool;
+    }
+
     /**
      * @return true if the IoService is active
      */
@@ -49,6 +49,9 @@ class HandlerCaller implements EventVisitor {
             session.getService().getIoHandler().messageReceived(session, event.getMessage());
         } catch (Exception e) {
             session.getService().getIoHandler().exceptionCaught(session, e);
+        } finally {
+            // the handler is not allowed to keep the received buffer
+            event.release();
         }
     }
 
@@ -61,4 +64,14 @@ class HandlerCaller implements EventVisitor {
             session.getService().getIoHandler().exceptionCaught(session, e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void visit(WritabilityEvent event) {
+        IoSession session = event.getSession();
+        try {
+            session.getService().getIoHandler().sessionWritabilityChanged(session, event.isWritable());
+        } catch (Exception e) {
+            session.getService().getIoHandler().exceptionCaught(session, e);
+        }
+    }
+}
@@ -29,7 +29,8 @@ import org.apache.mina.api.IoHandler;
 public interface IoHandlerExecutor {
 
     /**
-     * execute a given event
+     * execute a given event. Once this method returns, the executor owns the event and releases the pooled buffer of a
+     * {@link ReceiveEvent}; if it throws, the event was not accepted and its buffer stays owned by the caller.
      * 
      * @param event the event to execute
      */
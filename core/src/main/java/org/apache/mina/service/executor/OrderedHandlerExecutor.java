@@ -19,6 +19,8 @@
  */
 package org.apache.mina.service.executor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -36,6 +38,15 @@ public class OrderedHandlerExecutor implements IoHandlerExecutor {
 
     private static final Logger LOG = LoggerFactory.getLogger(OrderedHandlerExecutor.class);
 
+    /** default maximum number of events taken from the queue at once by a worker */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
+    /** the maximum number of checks of an empty queue before parking the worker thread */
+    private static final int MAX_SPINS = 1024;
+
+    /** the minimum number of checks of an empty queue before parking the worker thread */
+    private static final int MIN_SPINS = 16;
+
     private Worker[] workers;
 
     /**
@@ -45,11 +56,28 @@ public class OrderedHandlerExecutor implements IoHandlerExecutor {
      * @param queueSize the size of the queue for each worker thread
      */
     public OrderedHandlerExecutor(int workerThreadCount, int queueSize) {
+        this(workerThreadCount, queueSize, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Create an {@link OrderedHandlerExecutor} with a given number of thread, a given queue size and a given batch
+     * size.
+     * 
+     * @param workerThreadCount the worker thread count
+     * @param queueSize the size of the queue for each worker thread
+     * @param maxBatchSize the maximum number of events taken from the queue at once, 1 for taking them one by one
+     */
+    public OrderedHandlerExecutor(int workerThreadCount, int queueSize, int maxBatchSize) {
         LOG.debug("creating OrderedHandlerExecutor workerThreadCount = {} queueSize = {}", workerThreadCount, queueSize);
+
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batch size : " + maxBatchSize);
+        }
+
         workers = new Worker[workerThreadCount];
 
         for (int i = 0; i < workerThreadCount; i++) {
-            workers[i] = new Worker(i, queueSize);
+            workers[i] = new Worker(i, queueSize, maxBatchSize);
         }
         for (int i = 0; i < workerThreadCount; i++) {
             workers[i].start();
@@ -72,6 +100,55 @@ public class OrderedHandlerExecutor implements IoHandlerExecutor {
         }
     }
 
+    /**
+     * @return the number of worker threads
+     */
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * @param worker the worker index
+     * @return the number of events waiting in the queue of the worker
+     */
+    public int getQueueDepth(int worker) {
+        return workers[worker].queue.size();
+    }
+
+    /**
+     * @param worker the worker index
+     * @return the number of times the worker took some events from its queue
+     */
+    public long getDrainCount(int worker) {
+        return workers[worker].drainCount;
+    }
+
+    /**
+     * @param worker the worker index
+     * @return the number of events run by the worker
+     */
+    public long getDrainedEventCount(int worker) {
+        return workers[worker].drainedEventCount;
+    }
+
+    /**
+     * @param worker the worker index
+     * @return the maximum number of events taken at once by the worker
+     */
+    public int getMaxDrainSize(int worker) {
+        return workers[worker].maxDrainSize;
+    }
+
+    /**
+     * @param worker the worker index
+     * @return the average number of events taken at once by the worker
+     */
+    public double getAverageDrainSize(int worker) {
+        long drains = workers[worker].drainCount;
+
+        return drains == 0 ? 0 : (double) workers[worker].drainedEventCount / drains;
+    }
+
     /** thread in charge of gathering events from a queue and running them */
     private static class Worker extends Thread {
 
@@ -79,9 +156,27 @@ public class OrderedHandlerExecutor implements IoHandlerExecutor {
 
         private final BlockingQueue<Event> queue;
 
-        public Worker(int index, int queueSize) {
+        /** the events taken from the queue, reused for each drain */
+        private final List<Event> batch;
+
+        private final int maxBatchSize;
+
+        /** the current number of checks of an empty queue before parking, adapted to the event rate */
+        private int spins = MIN_SPINS;
+
+        // the metrics, only written by the worker thread
+
+        private volatile long drainCount;
+
+        private volatile long drainedEventCount;
+
+        private volatile int maxDrainSize;
+
+        public Worker(int index, int queueSize, int maxBatchSize) {
             super("IoHandlerWorker " + index);
             queue = new LinkedBlockingQueue<Event>(queueSize);
+            batch = new ArrayList<Event>(maxBatchSize);
+            this.maxBatchSize = maxBatchSize;
         }
 
         public void enqueue(Event event) throws InterruptedException {
@@ -96,16 +191,62 @@ public class OrderedHandlerExecutor implements IoHandlerExecutor {
         public void run() {
             for (;;) {
                 try {
-
-                    Event e = queue.take();
-                    LOG.debug("dequeing event {}", e);
-                    e.visit(caller);
-
+                    if (queue.drainTo(batch, maxBatchSize) == 0) {
+                        if (!spin()) {
+                            // nothing came while spinning, park until the next event
+                            batch.add(queue.take());
+                            queue.drainTo(batch, maxBatchSize - 1);
+                        } else {
+                            continue;
+                        }
+                    }
+
+                    int size = batch.size();
+
+                    for (int i = 0; i < size; i++) {
+                        Event e = batch.get(i);
+                        LOG.debug("dequeing event {}", e);
+                        e.visit(caller);
+                    }
+
+                    batch.clear();
+                    updateMetrics(size);
                 } catch (InterruptedException e) {
                     // end this thread
                     return;
                 }
             }
         }
+
+        /**
+         * Wait for an event without parking the thread, as parking and unparking cost more than handling a small
+         * event. The number of checks grows when it's successful, and shrinks when it isn't.
+         * 
+         * @return <code>true</code> if the queue isn't empty anymore
+         */
+        private boolean spin() {
+            for (int i = 0; i < spins; i++) {
+                if (!queue.isEmpty()) {
+                    spins = Math.min(spins * 2, MAX_SPINS);
+                    return true;
+                }
+
+                if (i > MIN_SPINS) {
+                    Thread.yield();
+                }
+            }
+
+            spins = Math.max(spins / 2, MIN_SPINS);
+            return false;
+        }
+
+        private void updateMetrics(int size) {
+            drainCount++;
+            drainedEventCount += size;
+
+            if (size > maxDrainSize) {
+                maxDrainSize = size;
+            }
+        }
     }
 }
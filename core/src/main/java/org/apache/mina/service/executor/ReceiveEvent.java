@@ -20,6 +20,7 @@
 package org.apache.mina.service.executor;
 
 import org.apache.mina.api.IoSession;
+import org.apache.mina.util.RefCountedBuffer;
 
 /**
  * A {@link IoSession} received a message {@link Event}.
@@ -30,9 +31,25 @@ public class ReceiveEvent implements Event {
     private final IoSession session;
     private final Object message;
 
+    /** the pooled buffer containing the message, or null */
+    private final RefCountedBuffer pooledBuffer;
+
     public ReceiveEvent(final IoSession session, final Object message) {
+        this(session, message, null);
+    }
+
+    /**
+     * Create an event for a message contained in a pooled buffer. The event owns a reference to the buffer, which is
+     * released by {@link #release()} once the message is processed.
+     * 
+     * @param session the session receiving the message
+     * @param message the received message
+     * @param pooledBuffer the pooled buffer containing the message, or <code>null</code>
+     */
+    public ReceiveEvent(final IoSession session, final Object message, final RefCountedBuffer pooledBuffer) {
         this.session = session;
         this.message = message;
+        this.pooledBuffer = pooledBuffer;
     }
 
     /**
@@ -47,6 +64,15 @@ public class ReceiveEvent implements Event {
         return message;
     }
 
+    /**
+     * Release the pooled buffer containing the message, if any. The message must not be used after this call.
+     */
+    public void release() {
+        if (pooledBuffer != null) {
+            pooledBuffer.release();
+        }
+    }
+
     @Override
     public void visit(EventVisitor visitor) {
         visitor.visit(this);
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.service.executor;
+
+/**
+ * A handler for the events which can't be queued by an {@link IoHandlerExecutor}, because the queue of their session
+ * is full. It's called by the thread submitting the event, usually an I/O thread, so it must not block. When this
+ * call returns, the event is dropped and the pooled buffer of a rejected {@link ReceiveEvent} is released by the
+ * executor; when it throws, the buffer is left to the caller of {@link IoHandlerExecutor#execute(Event)}.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public interface RejectedEventHandler {
+
+    /**
+     * Handle an event which can't be executed
+     * 
+     * @param event the rejected event
+     * @param executor the executor rejecting the event
+     */
+    void rejectedEvent(Event event, IoHandlerExecutor executor);
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.service.executor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.mina.api.IoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.session.AttributeKey;
+import org.apache.mina.util.Assert;
+import org.apache.mina.util.MpscArrayQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Use this executor if you want the {@link IoHandler} events of a session to be executed in order, without pinning
+ * the session to a thread. In your {@link IoHandler} code you don't need to care about session level concurrency.<br>
+ * 
+ * Each session has its own bounded, lock-free queue of events. Its slots are allocated by chunks as it fills up, so an
+ * idle session only costs a small chunk whatever the bound is. The queue is submitted to the shared {@link Executor}
+ * when an event is added to it, and runs until it's empty or it has run {@link #MAX_EVENTS_PER_RUN} events, so a session is
+ * processed by one thread at a time, and a busy session can't starve the other sessions : any free thread of the pool
+ * takes the next session with pending events.<br>
+ * 
+ * The I/O threads are never blocked : when the queue of a session is full, the event is given to a
+ * {@link RejectedEventHandler}.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class SerialHandlerExecutor implements IoHandlerExecutor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SerialHandlerExecutor.class);
+
+    /** default size of the event queue of a session */
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    /** the maximum number of events of a session run before giving the thread to another session */
+    public static final int MAX_EVENTS_PER_RUN = 64;
+
+    /** throws a {@link RejectedExecutionException}, which will be processed as an exception of the session */
+    public static final RejectedEventHandler ABORT_POLICY = new RejectedEventHandler() {
+        @Override
+        public void rejectedEvent(Event event, IoHandlerExecutor executor) {
+            throw new RejectedExecutionException("event queue full for session " + event.getSession());
+        }
+    };
+
+    /** silently discards the event */
+    public static final RejectedEventHandler DISCARD_POLICY = new RejectedEventHandler() {
+        @Override
+        public void rejectedEvent(Event event, IoHandlerExecutor executor) {
+            LOG.warn("event queue full, discarding event {}", event);
+        }
+    };
+
+    /** discards the event and closes the session, which can't keep up with its peer */
+    public static final RejectedEventHandler CLOSE_POLICY = new RejectedEventHandler() {
+        @Override
+        public void rejectedEvent(Event event, IoHandlerExecutor executor) {
+            LOG.warn("event queue full, closing session {}", event.getSession());
+            IoSession session = event.getSession();
+
+            if (session.isConnected() || session.isConnectedSecured()) {
+                session.close(true);
+            }
+        }
+    };
+
+    private static final AttributeKey<SessionQueue> SESSION_QUEUE = AttributeKey.createKey(SessionQueue.class,
+            "internal_serialExecutorQueue");
+
+    private static final HandlerCaller caller = new HandlerCaller();
+
+    private final Executor executor;
+
+    private final int queueSize;
+
+    private final RejectedEventHandler rejectedEventHandler;
+
+    /**
+     * Create a {@link SerialHandlerExecutor} with queues of default size, throwing an exception for the rejected
+     * events.
+     * 
+     * @param executor the executor running the session queues
+     */
+    public SerialHandlerExecutor(Executor executor) {
+        this(executor, DEFAULT_QUEUE_SIZE, ABORT_POLICY);
+    }
+
+    /**
+     * Create a {@link SerialHandlerExecutor}
+     * 
+     * @param executor the executor running the session queues
+     * @param queueSize the maximum number of queued events of each session
+     * @param rejectedEventHandler the handler of the events which can't be queued
+     */
+    public SerialHandlerExecutor(Executor executor, int queueSize, RejectedEventHandler rejectedEventHandler) {
+        Assert.assertNotNull(executor, "executor");
+        Assert.assertNotNull(rejectedEventHandler, "rejectedEventHandler");
+
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("Invalid queue size : " + queueSize);
+        }
+
+        this.executor = executor;
+        this.queueSize = queueSize;
+        this.rejectedEventHandler = rejectedEventHandler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Event event) {
+        SessionQueue queue = getSessionQueue(event.getSession());
+
+        if (!queue.offer(event)) {
+            // if the handler throws, the event is still owned by the caller, which releases its buffer
+            rejectedEventHandler.rejectedEvent(event, this);
+
+            // the event is dropped
+            if (event instanceof ReceiveEvent) {
+                ((ReceiveEvent) event).release();
+            }
+
+            return;
+        }
+
+        queue.schedule(event);
+    }
+
+    private SessionQueue getSessionQueue(IoSession session) {
+        SessionQueue queue = session.getAttribute(SESSION_QUEUE);
+
+        if (queue == null) {
+            // only done once per session
+            synchronized (session) {
+                queue = session.getAttribute(SESSION_QUEUE);
+
+                if (queue == null) {
+                    queue = new SessionQueue();
+                    session.setAttribute(SESSION_QUEUE, queue);
+                }
+            }
+        }
+
+        return queue;
+    }
+
+    /** the events of a session, run by at most one thread at a time */
+    private class SessionQueue implements Runnable {
+
+        private final MpscArrayQueue<Event> events = new MpscArrayQueue<Event>(queueSize);
+
+        /** true when the queue is submitted to the executor, or running : only its owner polls the events */
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        /**
+         * Add an event, if the queue is not full. Can be called by any thread.
+         */
+        boolean offer(Event event) {
+            return events.offer(event);
+        }
+
+        /**
+         * Submit the queue to the executor, if it's not already. If the executor rejects it, the queued events are
+         * dropped : the exception is thrown if the event of the caller was one of them, as it's still owned by the
+         * caller.
+         * 
+         * @param callerEvent the event just queued by the caller, or <code>null</code>
+         */
+        void schedule(Event callerEvent) {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // we own the queue until the flag is reset
+                boolean callerEventDropped = dropEvents(callerEvent);
+                scheduled.set(false);
+
+                if (callerEventDropped) {
+                    throw e;
+                }
+
+                // the event of the caller, if any, was processed by a previous run of the queue
+                LOG.error("the session queue was rejected by the executor, its events have been dropped", e);
+            }
+        }
+
+        /**
+         * Drop the queued events, releasing their buffers, except the one of the caller
+         * 
+         * @return <code>true</code> if the event of the caller was queued
+         */
+        private boolean dropEvents(Event callerEvent) {
+            boolean callerEventDropped = false;
+            Event event;
+
+            while ((event = events.poll()) != null) {
+                if (event == callerEvent) {
+                    callerEventDropped = true;
+                } else if (event instanceof ReceiveEvent) {
+                    ((ReceiveEvent) event).release();
+                }
+            }
+
+            return callerEventDropped;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < MAX_EVENTS_PER_RUN; i++) {
+                    Event event = events.poll();
+
+                    if (event == null) {
+                        break;
+                    }
+
+                    LOG.debug("dequeing event {}", event);
+                    event.visit(caller);
+                }
+            } finally {
+                scheduled.set(false);
+
+                // some events may have been added since the last poll, or we reached the maximum
+                if (!events.isEmpty()) {
+                    schedule(null);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.service.idlechecker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.IdleStatus;
+import org.apache.mina.session.AbstractIoSession;
+import org.apache.mina.transport.nio.ScheduledTask;
+import org.apache.mina.transport.nio.SelectorLoop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A session idle detector using a hashed wheel timer driven by a {@link SelectorLoop}. It doesn't need a thread of
+ * its own : it's ticked by a task scheduled on the loop, so the checks are done in the select() timeout of the loop
+ * in charge of the sessions.<br>
+ * 
+ * Each session owns one {@link IdleTimeout} per {@link IdleStatus}, linked in the slot of its deadline. The wheel
+ * is not updated on every read or write event : only the time of the event is recorded, and the timeout is linked if
+ * it's not already in the wheel. When a timeout expires, its deadline is computed again from the last event time, and
+ * the timeout is moved to the slot of this new deadline if the session wasn't idle. So the cost of the idle tracking
+ * doesn't depend on the message rate.
+ * 
+ * <pre>
+ * 
+ *               +--- Current tick
+ *               |
+ *               v
+ * +---+---+...+---+---+...+---+
+ * | 0 | 1 |   | T |T+1|   |N-1|
+ * +---+---+...+---+---+...+---+
+ *                   |
+ *                   +--> S2 <-> S7 <-> S12 (timeouts to check at tick T+1, T+1+N, T+1+2N...)
+ * </pre>
+ * 
+ * The idle times are rounded up to the tick duration (100 ms by default), there is no maximum idle time : the
+ * timeouts which are more than one round away are simply kept in their slot until their deadline.<br>
+ * 
+ * All the session timeouts are managed by the loop thread, the events happening in another thread are handed over
+ * to the loop.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class HashedWheelIdleChecker implements IdleChecker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HashedWheelIdleChecker.class);
+
+    /** default duration of a tick in ms */
+    public static final long DEFAULT_TICK_DURATION = 100L;
+
+    /** default number of slots of the wheel */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /** the loop ticking this checker, and in charge of the checked sessions */
+    private final SelectorLoop selectorLoop;
+
+    /** the duration of a tick in ms */
+    private final long tickDuration;
+
+    /** the wheel slots, each one is the head of a list of timeouts */
+    private final IdleTimeout[] wheel;
+
+    /** the mask for computing a slot from a tick, the wheel size is a power of 2 */
+    private final int mask;
+
+    /** the last processed tick */
+    private long currentTick;
+
+    /** the timeouts expired during a tick, reused for not allocating on each tick */
+    private final List<IdleTimeout> expired = new ArrayList<IdleTimeout>();
+
+    /** the next tick task */
+    private volatile ScheduledTask tickTask;
+
+    private volatile boolean running = false;
+
+    private final Runnable ticker = new Runnable() {
+        @Override
+        public void run() {
+            if (running) {
+                processIdleSession(System.currentTimeMillis());
+                tickTask = selectorLoop.schedule(this, tickDuration, TimeUnit.MILLISECONDS);
+            }
+        }
+    };
+
+    /**
+     * Create an idle checker with the default tick duration and wheel size
+     * 
+     * @param selectorLoop the loop in charge of the checked sessions
+     */
+    public HashedWheelIdleChecker(SelectorLoop selectorLoop) {
+        this(selectorLoop, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Create an idle checker
+     * 
+     * @param selectorLoop the loop in charge of the checked sessions
+     * @param tickDuration the duration of a tick in ms, which is the precision of the idle detection
+     * @param wheelSize the number of slots of the wheel, rounded up to a power of 2
+     */
+    public HashedWheelIdleChecker(SelectorLoop selectorLoop, long tickDuration, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Invalid tick duration : " + tickDuration);
+        }
+
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid wheel size : " + wheelSize);
+        }
+
+        int size = 1;
+
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.selectorLoop = selectorLoop;
+        this.tickDuration = tickDuration;
+        this.wheel = new IdleTimeout[size];
+        this.mask = size - 1;
+        this.currentTick = System.currentTimeMillis() / tickDuration;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sessionRead(AbstractIoSession session, long time) {
+        schedule(session, IdleStatus.READ_IDLE, time);
+        schedule(session, IdleStatus.BOTH_IDLE, time);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sessionWritten(AbstractIoSession session, long time) {
+        schedule(session, IdleStatus.WRITE_IDLE, time);
+        schedule(session, IdleStatus.BOTH_IDLE, time);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sessionClosed(final AbstractIoSession session) {
+        if (!selectorLoop.isInLoopThread()) {
+            selectorLoop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    sessionClosed(session);
+                }
+            });
+            return;
+        }
+
+        for (IdleStatus status : IdleStatus.values()) {
+            unlink(session.getIdleTimeout(status));
+        }
+    }
+
+    /**
+     * Record the I/O event time for the given status, and link the session timeout in the wheel if it's not already
+     * scheduled. A scheduled timeout is left in its slot, it will be moved when it expires.
+     */
+    private void schedule(final AbstractIoSession session, final IdleStatus status, final long time) {
+        if (!selectorLoop.isInLoopThread()) {
+            selectorLoop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    schedule(session, status, time);
+                }
+            });
+            return;
+        }
+
+        // a late event must not link again the timeouts of a closed session
+        if (session.isClosing() || session.isClosed()) {
+            return;
+        }
+
+        IdleTimeout timeout = session.getIdleTimeout(status);
+
+        // the events handed over from another thread can be late
+        if (time > timeout.lastIoTime) {
+            timeout.lastIoTime = time;
+        }
+
+        if (!timeout.isScheduled()) {
+            long idleTime = session.getConfig().getIdleTimeInMillis(status);
+
+            if (idleTime > 0) {
+                link(timeout, time + idleTime);
+            }
+        }
+    }
+
+    /**
+     * Link the timeout in the slot of the given deadline, rounded up to the next tick.
+     */
+    private void link(IdleTimeout timeout, long deadline) {
+        long deadlineTick = (deadline + tickDuration - 1) / tickDuration;
+
+        if (deadlineTick <= currentTick) {
+            deadlineTick = currentTick + 1;
+        }
+
+        int slot = (int) (deadlineTick & mask);
+        IdleTimeout head = wheel[slot];
+
+        timeout.deadlineTick = deadlineTick;
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = head;
+
+        if (head != null) {
+            head.prev = timeout;
+        }
+
+        wheel[slot] = timeout;
+    }
+
+    private void unlink(IdleTimeout timeout) {
+        if (timeout.slot < 0) {
+            return;
+        }
+
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            wheel[timeout.slot] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.slot = -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * To be called by the loop thread.
+     */
+    @Override
+    public int processIdleSession(long time) {
+        long nowTick = time / tickDuration;
+
+        if (nowTick <= currentTick) {
+            return 0;
+        }
+
+        // no need to scan the wheel more than once
+        long ticks = Math.min(nowTick - currentTick, wheel.length);
+
+        for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+            IdleTimeout timeout = wheel[(int) (tick & mask)];
+
+            while (timeout != null) {
+                IdleTimeout next = timeout.next;
+
+                if (timeout.deadlineTick <= nowTick) {
+                    unlink(timeout);
+                    expired.add(timeout);
+                }
+
+                timeout = next;
+            }
+        }
+
+        currentTick = nowTick;
+
+        // process the timeouts once the wheel is consistent, the handlers can write and reschedule the timeouts
+        int counter = 0;
+
+        for (int i = 0; i < expired.size(); i++) {
+            IdleTimeout timeout = expired.get(i);
+            AbstractIoSession session = timeout.session;
+
+            long idleTime = session.getConfig().getIdleTimeInMillis(timeout.status);
+
+            // check if idle detection wasn't disabled since the timeout was scheduled
+            if (session.isClosing() || session.isClosed() || idleTime <= 0) {
+                continue;
+            }
+
+            long deadline = timeout.lastIoTime + idleTime;
+
+            if (deadline > time) {
+                // some I/O happened since the timeout was scheduled, check again later
+                link(timeout, deadline);
+            } else {
+                session.processSessionIdle(timeout.status);
+                counter++;
+            }
+        }
+
+        expired.clear();
+
+        if (counter > 0) {
+            LOG.debug("detected {} idleing sessions", counter);
+        }
+
+        return counter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() {
+        running = true;
+        tickTask = selectorLoop.schedule(ticker, tickDuration, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy() {
+        running = false;
+        ScheduledTask task = tickTask;
+
+        if (task != null) {
+            task.cancel();
+        }
+    }
+}
@@ -43,6 +43,13 @@ public interface IdleChecker {
      */
     void sessionRead(AbstractIoSession session, long time);
 
+    /**
+     * Inform the IdleCheker a session is closed : it must not be checked anymore
+     * 
+     * @param session the closed session
+     */
+    void sessionClosed(AbstractIoSession session);
+
     /**
      * Find idle session, to be called for each select() call.
      * 
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.service.idlechecker;
+
+import org.apache.mina.api.IdleStatus;
+import org.apache.mina.session.AbstractIoSession;
+
+/**
+ * The idle timeout of a session for a given {@link IdleStatus}. It's a node of the doubly linked list of one of the
+ * {@link HashedWheelIdleChecker} wheel slots, so a session can be moved from a slot to another in constant time and
+ * without allocation.<br>
+ * 
+ * The instances are owned by the session (see {@link AbstractIoSession#getIdleTimeout(IdleStatus)}) and must only be
+ * used by the thread of the {@link HashedWheelIdleChecker} in charge of the session.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public final class IdleTimeout {
+
+    /** the session to check */
+    final AbstractIoSession session;
+
+    /** the idle status to fire */
+    final IdleStatus status;
+
+    /** the time in ms of the last I/O event for this status */
+    long lastIoTime;
+
+    /** the tick at which the timeout will be checked */
+    long deadlineTick;
+
+    /** the wheel slot containing this timeout, -1 if it's not scheduled */
+    int slot = -1;
+
+    /** the previous timeout of the slot */
+    IdleTimeout prev;
+
+    /** the next timeout of the slot */
+    IdleTimeout next;
+
+    /**
+     * Create an unscheduled idle timeout
+     * 
+     * @param session the session to check
+     * @param status the idle status to fire
+     */
+    public IdleTimeout(AbstractIoSession session, IdleStatus status) {
+        this.session = session;
+        this.status = status;
+    }
+
+    /**
+     * @return the session to check
+     */
+    public AbstractIoSession getSession() {
+        return session;
+    }
+
+    /**
+     * @return the idle status to fire
+     */
+    public IdleStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return <code>true</code> if this timeout is in one of the wheel slots
+     */
+    public boolean isScheduled() {
+        return slot >= 0;
+    }
+}
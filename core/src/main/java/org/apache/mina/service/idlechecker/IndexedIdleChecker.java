@@ -139,6 +139,24 @@ public class IndexedIdleChecker implements IdleChecker {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sessionClosed(final AbstractIoSession session) {
+        final Integer readIndex = session.getAttribute(READ_IDLE_INDEX);
+
+        if (readIndex != null && readIdleSessionIndex[readIndex] != null) {
+            readIdleSessionIndex[readIndex].remove(session);
+        }
+
+        final Integer writeIndex = session.getAttribute(WRITE_IDLE_INDEX);
+
+        if (writeIndex != null && writeIdleSessionIndex[writeIndex] != null) {
+            writeIdleSessionIndex[writeIndex].remove(session);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
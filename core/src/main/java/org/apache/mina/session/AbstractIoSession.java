@@ -25,9 +25,8 @@ import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLException;
@@ -38,6 +37,7 @@ import org.apache.mina.api.IoFuture;
 import org.apache.mina.api.IoHandler;
 import org.apache.mina.api.IoService;
 import org.apache.mina.api.IoSession;
+import org.apache.mina.api.IoSessionConfig;
 import org.apache.mina.filterchain.ReadFilterChainController;
 import org.apache.mina.filterchain.WriteFilterChainController;
 import org.apache.mina.service.executor.CloseEvent;
@@ -46,9 +46,12 @@ import org.apache.mina.service.executor.IoHandlerExecutor;
 import org.apache.mina.service.executor.OpenEvent;
 import org.apache.mina.service.executor.ReceiveEvent;
 import org.apache.mina.service.executor.SentEvent;
+import org.apache.mina.service.executor.WritabilityEvent;
 import org.apache.mina.service.idlechecker.IdleChecker;
+import org.apache.mina.service.idlechecker.IdleTimeout;
 import org.apache.mina.transport.nio.SelectorLoop;
 import org.apache.mina.util.AbstractIoFuture;
+import org.apache.mina.util.RefCountedBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,7 +60,7 @@ import org.slf4j.LoggerFactory;
  * 
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  */
-public abstract class AbstractIoSession implements IoSession, ReadFilterChainController, WriteFilterChainController {
+public abstract class AbstractIoSession implements IoSession {
     /** The logger for this class */
     private static final Logger LOG = LoggerFactory.getLogger(AbstractIoSession.class);
 
@@ -74,11 +77,14 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
     private final IoService service;
 
     /** attributes map */
-    private final AttributeContainer attributes = new DefaultAttributeContainer();
+    private final AttributeContainer attributes = new IndexedAttributeContainer();
 
     /** the {@link IdleChecker} in charge of detecting idle event for this session */
     protected final IdleChecker idleChecker;
 
+    /** the idle timeouts of this session, indexed by {@link IdleStatus} ordinal, created on demand */
+    private final IdleTimeout[] idleTimeouts = new IdleTimeout[IdleStatus.values().length];
+
     // ------------------------------------------------------------------------
     // Basic statistics
     // ------------------------------------------------------------------------
@@ -99,17 +105,18 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
     // Session state
     // ------------------------------------------------------------------------
 
-    /** The session's state : one of CREATED, CONNECTED, CLOSING, CLOSED, SECURING, CONNECTED_SECURED */
-    protected volatile SessionState state;
-
-    /** A lock to protect the access to the session's state */
-    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    /** The states, indexed by ordinal */
+    private static final SessionState[] STATES = SessionState.values();
 
-    /** A Read lock on the reentrant session's state lock */
-    private final Lock stateReadLock = stateLock.readLock();
+    /** The updater for the session's state */
+    private static final AtomicIntegerFieldUpdater<AbstractIoSession> STATE_UPDATER = AtomicIntegerFieldUpdater
+            .newUpdater(AbstractIoSession.class, "state");
 
-    /** A Write lock on the reentrant session's state lock */
-    private final Lock stateWriteLock = stateLock.writeLock();
+    /**
+     * The session's state : the ordinal of one of CREATED, CONNECTED, CLOSING, CLOSED, SECURING, SECURED. Only modified
+     * by CAS, so reading it is a single volatile load.
+     */
+    private volatile int state;
 
     /** Tells if the session is secured or not */
     protected volatile boolean secured;
@@ -124,6 +131,12 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
     /** the queue of pending writes for the session, to be dequeued by the {@link SelectorLoop} */
     private final Queue<WriteRequest> writeQueue = new DefaultWriteQueue();
 
+    /** the number of bytes waiting in the write queue */
+    private final AtomicLong writeQueueBytes = new AtomicLong();
+
+    /** false once the write queue reached its high watermark, until it goes back under its low watermark */
+    private final AtomicBoolean writable = new AtomicBoolean(true);
+
     // ------------------------------------------------------------------------
     // Filter chain
     // ------------------------------------------------------------------------
@@ -131,11 +144,20 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
     /** The list of {@link IoFilter} implementing this chain. */
     private final IoFilter[] chain;
 
-    /** the current position in the write chain for this thread */
-    private int writeChainPosition;
+    /**
+     * the controllers given to the filters of the read chain, one per position. A controller knows its position, so
+     * the chain can be re-entered and run by several threads at once
+     */
+    private final ReadChainController[] readControllers;
 
-    /** the current position in the read chain for this thread */
-    private int readChainPosition;
+    /** the controllers given to the filters of the write chain, one per position */
+    private final WriteChainController[] writeControllers;
+
+    /** the buffer being processed by the read chain, owned by the selector loop */
+    private ByteBuffer receivedBuffer;
+
+    /** the pooled buffer being processed by the read chain, if any */
+    private RefCountedBuffer receivedPooledBuffer;
 
     /**
      * Create an {@link org.apache.mina.api.IoSession} with a unique identifier (
@@ -152,9 +174,18 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
         this.chain = service.getFilters();
         this.idleChecker = idleChecker;
 
+        final int chainLength = chain == null ? 0 : chain.length;
+        readControllers = new ReadChainController[chainLength];
+        writeControllers = new WriteChainController[chainLength];
+
+        for (int i = 0; i < chainLength; i++) {
+            readControllers[i] = new ReadChainController(i);
+            writeControllers[i] = new WriteChainController(i);
+        }
+
         LOG.debug("Created new session with id : {}", id);
 
-        this.state = SessionState.CREATED;
+        this.state = SessionState.CREATED.ordinal();
         service.getManagedSessions().put(id, this);
     }
 
@@ -166,13 +197,7 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      */
     @Override
     public boolean isClosed() {
-        try {
-            stateReadLock.lock();
-
-            return state == SessionState.CLOSED;
-        } finally {
-            stateReadLock.unlock();
-        }
+        return state == SessionState.CLOSED.ordinal();
     }
 
     /**
@@ -180,13 +205,7 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      */
     @Override
     public boolean isClosing() {
-        try {
-            stateReadLock.lock();
-
-            return state == SessionState.CLOSING;
-        } finally {
-            stateReadLock.unlock();
-        }
+        return state == SessionState.CLOSING.ordinal();
     }
 
     /**
@@ -194,13 +213,7 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      */
     @Override
     public boolean isConnected() {
-        try {
-            stateReadLock.lock();
-
-            return state == SessionState.CONNECTED;
-        } finally {
-            stateReadLock.unlock();
-        }
+        return state == SessionState.CONNECTED.ordinal();
     }
 
     /**
@@ -208,13 +221,7 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      */
     @Override
     public boolean isCreated() {
-        try {
-            stateReadLock.lock();
-
-            return state == SessionState.CREATED;
-        } finally {
-            stateReadLock.unlock();
-        }
+        return state == SessionState.CREATED.ordinal();
     }
 
     /**
@@ -222,13 +229,7 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      */
     @Override
     public boolean isSecuring() {
-        try {
-            stateReadLock.lock();
-
-            return state == SessionState.SECURING;
-        } finally {
-            stateReadLock.unlock();
-        }
+        return state == SessionState.SECURING.ordinal();
     }
 
     /**
@@ -236,13 +237,28 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      */
     @Override
     public boolean isConnectedSecured() {
-        try {
-            stateReadLock.lock();
+        return state == SessionState.SECURED.ordinal();
+    }
 
-            return state == SessionState.SECURED;
-        } finally {
-            stateReadLock.unlock();
-        }
+    /**
+     * Get the current state of this session
+     * 
+     * @return the session's state
+     */
+    protected SessionState getState() {
+        return STATES[state];
+    }
+
+    /**
+     * Atomically change the session's state, if it's the expected one. The transition isn't validated.
+     * 
+     * @param expect the expected current state
+     * @param update the new state
+     * @return <code>true</code> if the state was changed, <code>false</code> if the current state isn't the expected
+     *         one
+     */
+    protected boolean compareAndSetState(final SessionState expect, final SessionState update) {
+        return STATE_UPDATER.compareAndSet(this, expect.ordinal(), update.ordinal());
     }
 
     /**
@@ -250,77 +266,47 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      */
     @Override
     public void changeState(final SessionState to) throws IllegalStateException {
-        try {
-            stateWriteLock.lock();
-
-            switch (state) {
-            case CREATED:
-                switch (to) {
-                case CONNECTED:
-                case SECURING:
-                case CLOSING:
-                    state = to;
-                    break;
-
-                default:
-                    throw new IllegalStateException("Cannot transit from " + state + " to " + to);
-                }
-
-                break;
-
-            case CONNECTED:
-                switch (to) {
-                case SECURING:
-                case CLOSING:
-                    state = to;
-                    break;
+        for (;;) {
+            final SessionState from = getState();
 
-                default:
-                    throw new IllegalStateException("Cannot transit from " + state + " to " + to);
-                }
-
-                break;
+            if (from == SessionState.CLOSED) {
+                throw new IllegalStateException("The session is already closed. cannot switch to " + to);
+            }
 
-            case SECURING:
-                switch (to) {
-                case SECURED:
-                case CLOSING:
-                    state = to;
-                    break;
+            if (!isValidTransition(from, to)) {
+                throw new IllegalStateException("Cannot transit from " + from + " to " + to);
+            }
 
-                default:
-                    throw new IllegalStateException("Cannot transit from " + state + " to " + to);
-                }
+            if (compareAndSetState(from, to)) {
+                return;
+            }
 
-                break;
+            // the state was changed by another thread, validate the transition again
+        }
+    }
 
-            case SECURED:
-                switch (to) {
-                case CONNECTED:
-                case SECURING:
-                case CLOSING:
-                    state = to;
-                    break;
+    /**
+     * Tells if a session can switch from a state to another one
+     */
+    private static boolean isValidTransition(final SessionState from, final SessionState to) {
+        switch (from) {
+        case CREATED:
+            return (to == SessionState.CONNECTED) || (to == SessionState.SECURING) || (to == SessionState.CLOSING);
 
-                default:
-                    throw new IllegalStateException("Cannot transit from " + state + " to " + to);
-                }
+        case CONNECTED:
+            return (to == SessionState.SECURING) || (to == SessionState.CLOSING);
 
-                break;
-            case CLOSING:
-                if (to != SessionState.CLOSED) {
-                    throw new IllegalStateException("Cannot transit from " + state + " to " + to);
-                }
+        case SECURING:
+            return (to == SessionState.SECURED) || (to == SessionState.CLOSING);
 
-                state = to;
+        case SECURED:
+            return (to == SessionState.CONNECTED) || (to == SessionState.SECURING) || (to == SessionState.CLOSING);
 
-                break;
+        case CLOSING:
+            return to == SessionState.CLOSED;
 
-            case CLOSED:
-                throw new IllegalStateException("The session is already closed. cannot switch to " + to);
-            }
-        } finally {
-            stateWriteLock.unlock();
+        default:
+            return false;
         }
     }
 
@@ -395,6 +381,24 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
         return writtenBytes;
     }
 
+    /**
+     * Get the timeout used by the {@link IdleChecker} for detecting the given idle status of this session. To be called
+     * by the idle checker thread only.
+     * 
+     * @param status the idle status
+     * @return the idle timeout, created on the first call
+     */
+    public IdleTimeout getIdleTimeout(final IdleStatus status) {
+        IdleTimeout timeout = idleTimeouts[status.ordinal()];
+
+        if (timeout == null) {
+            timeout = new IdleTimeout(this, status);
+            idleTimeouts[status.ordinal()] = timeout;
+        }
+
+        return timeout;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -512,7 +516,9 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
     private void doWriteWithFuture(final Object message, final IoFuture<Void> future) {
         LOG.debug("writing message {} to session {}", message, this);
 
-        if ((state == SessionState.CLOSED) || (state == SessionState.CLOSING)) {
+        final SessionState current = getState();
+
+        if ((current == SessionState.CLOSED) || (current == SessionState.CLOSING)) {
             LOG.error("writing to closed or closing session, the message is discarded");
             return;
         }
@@ -541,6 +547,16 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      */
     protected abstract ByteBuffer convertToDirectBuffer(WriteRequest writeRequest, boolean createNew);
 
+    /**
+     * Give back the DirectBuffer created by {@link #convertToDirectBuffer(WriteRequest, boolean)} once the request has
+     * been completely written. Does nothing by default.
+     * 
+     * @param writeRequest The written request
+     */
+    protected void releaseDirectBuffer(WriteRequest writeRequest) {
+        // Nothing to do
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -557,65 +573,144 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
             writeRequest = sslHelper.processWrite(this, writeRequest, writeQueue);
         }
 
-        synchronized (writeQueue) {
-            ByteBuffer message = (ByteBuffer) writeRequest.getMessage();
+        // No lock here : the write queue is only modified by the thread in charge of the
+        // session I/O events (the transports hand the requests over to this thread)
+        ByteBuffer message = (ByteBuffer) writeRequest.getMessage();
+
+        if (writeQueue.isEmpty()) {
+            // Transfer the buffer in a DirectByteBuffer if it's a HeapByteBuffer and if it's too big
+            message = convertToDirectBuffer(writeRequest, false);
 
-            if (writeQueue.isEmpty()) {
-                // Transfer the buffer in a DirectByteBuffer if it's a HeapByteBuffer and if it's too big
-                message = convertToDirectBuffer(writeRequest, false);
+            // We don't have anything in the writeQueue, let's try to write the
+            // data in the channel immediately if we can
+            int written = writeDirect(writeRequest.getMessage());
 
-                // We don't have anything in the writeQueue, let's try to write the
-                // data in the channel immediately if we can
-                int written = writeDirect(writeRequest.getMessage());
+            LOG.debug("wrote {} bytes to {}", written, this);
+
+            if (written > 0) {
+                incrementWrittenBytes(written);
+            }
 
-                LOG.debug("wrote {} bytes to {}", written, this);
+            // Update the idle status for this session
+            idleChecker.sessionWritten(this, System.currentTimeMillis());
+            int remaining = message.remaining();
 
-                if (written > 0) {
-                    incrementWrittenBytes(written);
+            if ((written < 0) || (remaining > 0)) {
+                // Create a DirectBuffer unconditionally
+                message = convertToDirectBuffer(writeRequest, true);
+
+                // We have to push the request on the writeQueue
+                writeQueue.add(writeRequest);
+                updateWriteQueueBytes(message.remaining());
+
+                // If it wasn't, we register this session as interested to write.
+                if (!registeredForWrite.getAndSet(true)) {
+                    flushWriteQueue();
                 }
+            } else {
+                // The message has been fully written : we don't need the DirectBuffer anymore
+                releaseDirectBuffer(writeRequest);
 
-                // Update the idle status for this session
-                idleChecker.sessionWritten(this, System.currentTimeMillis());
-                int remaining = message.remaining();
+                // update the stats, and signal the handler
+                // generate the message sent event
+                // complete the future if we have one (we should...)
+                final DefaultWriteFuture future = (DefaultWriteFuture) writeRequest.getFuture();
 
-                if ((written < 0) || (remaining > 0)) {
-                    // Create a DirectBuffer unconditionally
-                    convertToDirectBuffer(writeRequest, true);
+                if (future != null) {
+                    future.complete();
+                }
 
-                    // We have to push the request on the writeQueue
-                    writeQueue.add(writeRequest);
+                final Object highLevel = writeRequest.getOriginalMessage();
 
-                    // If it wasn't, we register this session as interested to write.
-                    // It's done in atomic fashion for avoiding two concurrent registering.
-                    if (!registeredForWrite.getAndSet(true)) {
-                        flushWriteQueue();
-                    }
-                } else {
-                    // The message has been fully written : update the stats, and signal the handler
-                    // generate the message sent event
-                    // complete the future if we have one (we should...)
-                    final DefaultWriteFuture future = (DefaultWriteFuture) writeRequest.getFuture();
+                if (highLevel != null) {
+                    processMessageSent(highLevel);
+                }
+            }
+        } else {
+            // Transfer the buffer in a DirectByteBuffer if it's a HeapByteBuffer
+            message = convertToDirectBuffer(writeRequest, true);
 
-                    if (future != null) {
-                        future.complete();
-                    }
+            // We have to push the request on the writeQueue
+            writeQueue.add(writeRequest);
+            updateWriteQueueBytes(message.remaining());
+        }
 
-                    final Object highLevel = ((DefaultWriteRequest) writeRequest).getOriginalMessage();
+        return writeRequest;
+    }
 
-                    if (highLevel != null) {
-                        processMessageSent(highLevel);
-                    }
+    /**
+     * Add some bytes to the write queue size, or remove some when <code>bytes</code> is negative, and update the
+     * session writability. To be called by the {@link SelectorLoop} each time it writes some queued data, or by the
+     * transports accounting the requests which are about to be queued.
+     * 
+     * @param bytes the number of bytes added to the write queue size
+     */
+    protected void updateWriteQueueBytes(long bytes) {
+        if (bytes == 0) {
+            return;
+        }
+
+        writeQueueBytes.addAndGet(bytes);
+
+        if ((bytes > 0) || !writable.get()) {
+            updateWritability();
+        }
+    }
+
+    /**
+     * Check the write queue size against its watermarks, and generate a writability changed event if the session
+     * writability changed. The check is done again after a change, because the queue size may have been modified
+     * concurrently by the {@link SelectorLoop} and by a writer.
+     */
+    private void updateWritability() {
+        final IoSessionConfig config = getConfig();
+
+        if (config == null) {
+            return;
+        }
+
+        final int highWatermark = config.getWriteQueueHighWatermark();
+
+        if ((highWatermark < 0) && writable.get()) {
+            // unbounded write queue
+            return;
+        }
+
+        final long lowWatermark = Math.min(config.getWriteQueueLowWatermark(), highWatermark);
+
+        for (;;) {
+            final long queued = writeQueueBytes.get();
+
+            if (writable.get()) {
+                if ((highWatermark < 0) || (queued < highWatermark) || !writable.compareAndSet(true, false)) {
+                    return;
                 }
+
+                processWritabilityChanged(false);
             } else {
-                // Transfer the buffer in a DirectByteBuffer if it's a HeapByteBuffer
-                message = convertToDirectBuffer(writeRequest, true);
+                if ((queued > lowWatermark) || !writable.compareAndSet(false, true)) {
+                    return;
+                }
 
-                // We have to push the request on the writeQueue
-                writeQueue.add(writeRequest);
+                processWritabilityChanged(true);
             }
         }
+    }
 
-        return writeRequest;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isWritable() {
+        return writable.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getWriteQueueBytes() {
+        return writeQueueBytes.get();
     }
 
     public abstract void flushWriteQueue();
@@ -658,12 +753,18 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      */
     @Override
     public IoFuture<Void> close(final boolean immediately) {
-        switch (state) {
+        final SessionState current = getState();
+
+        switch (current) {
         case CREATED:
             LOG.error("Session {} not opened", this);
             throw new IllegalStateException("cannot close an not opened session");
         case CONNECTED:
-            state = SessionState.CLOSING;
+            if (!compareAndSetState(SessionState.CONNECTED, SessionState.CLOSING)) {
+                // the state was changed by another thread
+                return close(immediately);
+            }
+
             if (immediately) {
                 channelClose();
                 processSessionClosed();
@@ -680,7 +781,7 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
             LOG.warn("Already closed session {}", this);
             break;
         default:
-            throw new IllegalStateException("not implemented session state : " + state);
+            throw new IllegalStateException("not implemented session state : " + current);
         }
 
         return closeFuture;
@@ -757,6 +858,11 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
         } catch (final RuntimeException e) {
             processException(e);
         }
+
+        if (idleChecker != null) {
+            idleChecker.sessionClosed(this);
+        }
+
         service.getManagedSessions().remove(id);
     }
 
@@ -786,13 +892,39 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
         }
     }
 
-    /** for knowing if the message buffer is the selector loop one */
-    static ThreadLocal<ByteBuffer> tl = new ThreadLocal<ByteBuffer>() {
-        @Override
-        protected ByteBuffer initialValue() {
-            return null;
+    /**
+     * process session writability changed event : the session write queue crossed one of its watermarks. The reads are
+     * suspended or resumed if the session is configured to do so, then the {@link IoHandler} is notified.
+     * 
+     * @param writable <code>true</code> if the session is writable again
+     */
+    public void processWritabilityChanged(final boolean writable) {
+        LOG.debug("processing writability changed to {} event for session {}", writable, this);
+
+        try {
+            if (getConfig().isSuspendReadWhenNotWritable()) {
+                if (writable) {
+                    resumeRead();
+                } else {
+                    suspendRead();
+                }
+            }
+
+            final IoHandler handler = getService().getIoHandler();
+            if (handler != null) {
+                IoHandlerExecutor executor = getService().getIoHandlerExecutor();
+                if (executor != null) {
+                    // asynchronous event
+                    executor.execute(new WritabilityEvent(this, writable));
+                } else {
+                    // synchronous call (in the I/O loop)
+                    handler.sessionWritabilityChanged(this, writable);
+                }
+            }
+        } catch (final RuntimeException e) {
+            processException(e);
         }
-    };
+    }
 
     /**
      * process session message received event using the filter chain. To be called by the session {@link SelectorLoop} .
@@ -800,9 +932,26 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
      * @param message the received message
      */
     public void processMessageReceived(final ByteBuffer message) {
+        processMessageReceived(message, null);
+    }
+
+    /**
+     * process session message received event using the filter chain. To be called by the session {@link SelectorLoop} .
+     * If the message reaches the {@link IoHandlerExecutor}, it's copied if it's in the selector loop buffer, or handed
+     * over with a new reference if it's in a pooled buffer.
+     * 
+     * @param message the received message
+     * @param pooledBuffer the pooled buffer containing the message, <code>null</code> if the message is in the
+     *        selector loop buffer
+     */
+    public void processMessageReceived(final ByteBuffer message, final RefCountedBuffer pooledBuffer) {
         LOG.debug("processing message '{}' received event for session {}", message, this);
 
-        tl.set(message);
+        final ByteBuffer previousBuffer = receivedBuffer;
+        final RefCountedBuffer previousPooledBuffer = receivedPooledBuffer;
+        receivedBuffer = message;
+        receivedPooledBuffer = pooledBuffer;
+
         try {
             // save basic statistics
             readBytes += message.remaining();
@@ -810,35 +959,42 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
 
             if (chain.length < 1) {
                 LOG.debug("Nothing to do, the chain is empty");
-                final IoHandler handler = getService().getIoHandler();
-                if (handler != null) {
-                    IoHandlerExecutor executor = getService().getIoHandlerExecutor();
-                    if (executor != null) {
-                        // asynchronous event
-                        // copy the bytebuffer
-                        LOG.debug("copying bytebuffer before pushing to the executor");
-                        ByteBuffer original = message;
-                        ByteBuffer clone = ByteBuffer.allocate(original.capacity());
-                        original.rewind();// copy from the beginning
-                        clone.put(original);
-                        original.rewind();
-                        clone.flip();
-                        executor.execute(new ReceiveEvent(this, clone));
-                    } else {
-                        // synchronous call (in the I/O loop)
-                        handler.messageReceived(this, message);
-                    }
-                }
-
+                processHandlerMessageReceived(message);
             } else {
-                readChainPosition = 0;
                 // we call the first filter, it's supposed to call the next ones using the filter chain controller
-                chain[readChainPosition].messageReceived(this, message, this);
+                chain[0].messageReceived(this, message, readControllers[0]);
             }
         } catch (final RuntimeException e) {
             processException(e);
+        } finally {
+            receivedBuffer = previousBuffer;
+            receivedPooledBuffer = previousPooledBuffer;
         }
+    }
 
+    /**
+     * Push a received message to the executor. The buffer being processed by the selector loop can't be given as is,
+     * as it will be reused for the next read : it's either retained if it's pooled, or its remaining bytes are copied.
+     */
+    private void executeReceiveEvent(final IoHandlerExecutor executor, final Object message) {
+        if (message != receivedBuffer) {
+            executor.execute(new ReceiveEvent(this, message));
+        } else if (receivedPooledBuffer != null) {
+            receivedPooledBuffer.retain();
+
+            try {
+                executor.execute(new ReceiveEvent(this, message, receivedPooledBuffer));
+            } catch (final RuntimeException e) {
+                receivedPooledBuffer.release();
+                throw e;
+            }
+        } else {
+            LOG.debug("copying bytebuffer before pushing to the executor");
+            final ByteBuffer clone = ByteBuffer.allocate(receivedBuffer.remaining());
+            clone.put(receivedBuffer.duplicate());
+            clone.flip();
+            executor.execute(new ReceiveEvent(this, clone));
+        }
     }
 
     /**
@@ -850,21 +1006,18 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
         LOG.debug("processing message '{}' writing event for session {}", writeRequest, this);
 
         try {
-            //lastWriteRequest = null;
+            // put the future in the write request before it is queued : when written from another thread, the
+            // request may be written and completed by the selector loop before this method returns
+            if (future != null) {
+                writeRequest.setFuture(future);
+            }
 
             if (chain.length < 1) {
                 enqueueWriteRequest(writeRequest);
             } else {
-                writeChainPosition = chain.length - 1;
                 // we call the first filter, it's supposed to call the next ones using the filter chain controller
-                final int position = writeChainPosition;
-                final IoFilter nextFilter = chain[position];
-                nextFilter.messageWriting(this, writeRequest, this);
-            }
-
-            // put the future in the last write request
-            if (future != null) {
-                writeRequest.setFuture(future);
+                final int position = chain.length - 1;
+                chain[position].messageWriting(this, writeRequest, writeControllers[position]);
             }
         } catch (final RuntimeException e) {
             processException(e);
@@ -898,63 +1051,76 @@ public abstract class AbstractIoSession implements IoSession, ReadFilterChainCon
     }
 
     /**
-     * process session message received event using the filter chain. To be called by the session {@link SelectorLoop} .
-     * 
-     * @param message the received message
+     * Push a message out of the read chain to the {@link IoHandler}, directly or through the {@link IoHandlerExecutor}
      */
-    @Override
-    public void callWriteNextFilter(WriteRequest message) {
-        LOG.debug("calling next filter for writing for message '{}' position : {}", message, writeChainPosition);
+    private void processHandlerMessageReceived(final Object message) {
+        final IoHandler handler = getService().getIoHandler();
 
-        writeChainPosition--;
+        if (handler != null) {
+            IoHandlerExecutor executor = getService().getIoHandlerExecutor();
+            if (executor != null) {
+                // asynchronous event
+                executeReceiveEvent(executor, message);
+            } else {
+                // synchronous call (in the I/O loop)
+                handler.messageReceived(this, message);
+            }
+        }
+    }
 
-        if (writeChainPosition < 0 || chain.length == 0) {
-            // end of chain processing
-            enqueueWriteRequest(message);
-        } else {
-            chain[writeChainPosition].messageWriting(this, message, this);
+    /**
+     * The controller given to the filter at a position of the read chain : it calls the following filter, or the
+     * {@link IoHandler} at the end of the chain.
+     */
+    private final class ReadChainController implements ReadFilterChainController {
+        private final int position;
+
+        private ReadChainController(final int position) {
+            this.position = position;
         }
 
-        writeChainPosition++;
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void callReadNextFilter(final Object message) {
+            final int next = position + 1;
+
+            if (next >= chain.length) {
+                // end of chain processing
+                processHandlerMessageReceived(message);
+            } else {
+                chain[next].messageReceived(AbstractIoSession.this, message, readControllers[next]);
+            }
+        }
     }
 
     /**
-     * {@inheritDoc}
+     * The controller given to the filter at a position of the write chain : it calls the previous filter, or enqueue
+     * the message at the end of the chain.
      */
-    @Override
-    public void callReadNextFilter(final Object message) {
-        readChainPosition++;
+    private final class WriteChainController implements WriteFilterChainController {
+        private final int position;
 
-        if (readChainPosition >= chain.length) {
-            // end of chain processing
-            final IoHandler handler = getService().getIoHandler();
-            if (handler != null) {
-                IoHandlerExecutor executor = getService().getIoHandlerExecutor();
-                if (executor != null) {
-                    // asynchronous event
-                    if (message == tl.get()) {
-                        // copy the bytebuffer
-                        LOG.debug("copying bytebuffer before pushing to the executor");
-                        ByteBuffer original = (ByteBuffer) message;
-                        ByteBuffer clone = ByteBuffer.allocate(original.capacity());
-                        original.rewind();// copy from the beginning
-                        clone.put(original);
-                        original.rewind();
-                        clone.flip();
-                        executor.execute(new ReceiveEvent(this, clone));
-                    } else {
-                        executor.execute(new ReceiveEvent(this, message));
-                    }
-                } else {
-                    // synchronous call (in the I/O loop)
-                    handler.messageReceived(this, message);
-                }
-            }
-        } else {
-            chain[readChainPosition].messageReceived(this, message, this);
+        private WriteChainController(final int position) {
+            this.position = position;
         }
 
-        readChainPosition--;
-    }
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void callWriteNextFilter(final WriteRequest message) {
+            LOG.debug("calling next filter for writing for message '{}' position : {}", message, position);
 
-}
\ No newline at end of file
+            final int next = position - 1;
+
+            if (next < 0) {
+                // end of chain processing
+                enqueueWriteRequest(message);
+            } else {
+                chain[next].messageWriting(AbstractIoSession.this, message, writeControllers[next]);
+            }
+        }
+    }
+}
@@ -40,6 +40,8 @@ public abstract class AbstractIoSessionConfig implements IoSessionConfig {
 
     private long idleTimeWrite = -1;
 
+    private long idleTimeBoth = -1;
+
     /**
      * {@inheritDoc}
      */
@@ -50,6 +52,8 @@ public abstract class AbstractIoSessionConfig implements IoSessionConfig {
             return idleTimeRead;
         case WRITE_IDLE:
             return idleTimeWrite;
+        case BOTH_IDLE:
+            return idleTimeBoth;
         default:
             throw new RuntimeException("unexpected excetion, unknown idle status : " + status);
         }
@@ -67,9 +71,77 @@ public abstract class AbstractIoSessionConfig implements IoSessionConfig {
         case WRITE_IDLE:
             this.idleTimeWrite = ildeTimeInMilli;
             break;
+        case BOTH_IDLE:
+            this.idleTimeBoth = ildeTimeInMilli;
+            break;
         default:
             throw new RuntimeException("unexpected excetion, unknown idle status : " + status);
         }
     }
 
+    //=====================
+    // write queue management
+    //=====================
+
+    private int writeQueueHighWatermark = -1;
+
+    private int writeQueueLowWatermark = 0;
+
+    private boolean suspendReadWhenNotWritable = false;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWriteQueueHighWatermark() {
+        return writeQueueHighWatermark;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setWriteQueueHighWatermark(int highWatermark) {
+        if (highWatermark < -1) {
+            throw new IllegalArgumentException("Invalid write queue high watermark : " + highWatermark);
+        }
+
+        this.writeQueueHighWatermark = highWatermark;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWriteQueueLowWatermark() {
+        return writeQueueLowWatermark;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setWriteQueueLowWatermark(int lowWatermark) {
+        if (lowWatermark < 0) {
+            throw new IllegalArgumentException("Invalid write queue low watermark : " + lowWatermark);
+        }
+
+        this.writeQueueLowWatermark = lowWatermark;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSuspendReadWhenNotWritable() {
+        return suspendReadWhenNotWritable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSuspendReadWhenNotWritable(boolean suspendRead) {
+        this.suspendReadWhenNotWritable = suspendRead;
+    }
 }
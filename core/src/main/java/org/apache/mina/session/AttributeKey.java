@@ -21,19 +21,45 @@ package org.apache.mina.session;
 
 import static org.apache.mina.util.Assert.assertNotNull;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.mina.api.IoSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Represents the Key for an attribute-value of an {@link IoSession}. A key
  * consists of the Type of the referenced attribute value and a name.<br>
  * <br>
  * Two {@link AttributeKey}'s are equal if the have the same attribute-type and
- * attribute-name.
+ * attribute-name.<br>
+ * <br>
+ * Each key gets a dense index at creation, shared by the equal keys : creating
+ * again a key with the same type and name doesn't allocate a new index. The
+ * indexes are never released, so the keys are expected to be constants, or at
+ * least to have a name which doesn't depend on an instance or a session. A
+ * warning is logged when more than {@link #MAX_EXPECTED_KEYS} different keys
+ * have been created.
  * 
  * @param <T> Type of the attribute-value this key is referring to
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  */
 public final class AttributeKey<T> {
+    /** The number of different keys from which a leak of keys is suspected */
+    public static final int MAX_EXPECTED_KEYS = 1024;
+
+    private static final Logger LOG = LoggerFactory.getLogger(AttributeKey.class);
+
+    /** the indexes of the created keys */
+    private static final Map<AttributeKey<?>, Integer> INDEXES = new HashMap<AttributeKey<?>, Integer>();
+
+    /** the created keys, by index */
+    private static volatile AttributeKey<?>[] keys = new AttributeKey<?>[16];
+
+    /** the number of created indexes */
+    private static volatile int keyCount = 0;
+
     /** the {@link Class} of the referenced attribute-value */
     private final Class<T> attributeType;
 
@@ -43,6 +69,9 @@ public final class AttributeKey<T> {
     /** the cached hash code of this instance */
     private final int hashCode;
 
+    /** the index of this key, for storing the attribute values in an array */
+    private final int index;
+
     /**
      * Creates a new {@link AttributeKey} with the given parameters. A
      * {@link IllegalArgumentException} will be thrown if any parameter is
@@ -62,6 +91,7 @@ public final class AttributeKey<T> {
         this.attributeName = assertNotNull(attributeName, "attributeName");
 
         this.hashCode = createHashCode();
+        this.index = register(this);
     }
 
     /**
@@ -96,6 +126,71 @@ public final class AttributeKey<T> {
         return result;
     }
 
+    /**
+     * Gives the index of a key, allocating the next one if no equal key was
+     * created before.
+     * 
+     * @return the index of the key
+     */
+    private static synchronized int register(AttributeKey<?> key) {
+        Integer index = INDEXES.get(key);
+
+        if (index != null) {
+            return index;
+        }
+
+        index = INDEXES.size();
+        INDEXES.put(key, index);
+
+        if (index == MAX_EXPECTED_KEYS) {
+            LOG.warn("{} different attribute keys have been created, the last one is {} : the keys must be constants,"
+                    + " their index is never released", MAX_EXPECTED_KEYS + 1, key.getName());
+        }
+
+        AttributeKey<?>[] currentKeys = keys;
+
+        if (index >= currentKeys.length) {
+            AttributeKey<?>[] newKeys = new AttributeKey<?>[currentKeys.length * 2];
+            System.arraycopy(currentKeys, 0, newKeys, 0, currentKeys.length);
+            currentKeys = newKeys;
+        }
+
+        currentKeys[index] = key;
+        keys = currentKeys;
+        keyCount = index + 1;
+
+        return index;
+    }
+
+    /**
+     * Returns the key registered with the given index.
+     * 
+     * @param index
+     *            the index of the key
+     * @return the first key created with this index
+     */
+    static AttributeKey<?> getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Returns the number of different keys created so far.
+     * 
+     * @return the number of indexes
+     */
+    static int getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Returns the index of this key. Equal keys have the same index.
+     * 
+     * @return the index of this key
+     */
+    int getIndex() {
+        return index;
+    }
+
     /**
      * Returns the name of this key.
      * 
@@ -135,6 +230,7 @@ public final class AttributeKey<T> {
 
         AttributeKey<?> other = (AttributeKey<?>) obj;
 
-        return hashCode == other.hashCode;
+        return (hashCode == other.hashCode) && attributeType.equals(other.attributeType)
+                && attributeName.equals(other.attributeName);
     }
 }
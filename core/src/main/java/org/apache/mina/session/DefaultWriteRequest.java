@@ -39,6 +39,9 @@ public class DefaultWriteRequest implements WriteRequest {
     /** the future to complete when this message is written */
     private IoFuture<Void> future;
 
+    /** Tells if the message is a buffer taken from the session's buffer allocator */
+    private boolean pooled;
+
     /**
      * Creates a new instance of a WriteRequest, storing the message as it was
      * when the IoSession.write() has been called.
@@ -90,6 +93,25 @@ public class DefaultWriteRequest implements WriteRequest {
         return originalMessage;
     }
 
+    /**
+     * Tells if the message is a buffer which has been taken from a {@link org.apache.mina.util.BufferAllocator}, and
+     * which must be released once written.
+     * 
+     * @return <code>true</code> if the message has to be given back to the allocator
+     */
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    /**
+     * Mark the message as a buffer taken from a {@link org.apache.mina.util.BufferAllocator}.
+     * 
+     * @param pooled <code>true</code> if the message has to be given back to the allocator
+     */
+    public void setPooled(boolean pooled) {
+        this.pooled = pooled;
+    }
+
     /**
      * @see Object#toString()
      */
@@ -0,0 +1,204 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.mina.session;
+
+import static java.util.Collections.unmodifiableSet;
+import static org.apache.mina.util.Assert.assertNotNull;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An {@link AttributeContainer} storing the attribute values in arrays, at the
+ * index of their {@link AttributeKey}. The accesses are lock-free and done in
+ * constant time.<br>
+ * <br>
+ * The values are stored in chunks of {@link #CHUNK_SIZE} slots, which are
+ * never moved once created : only the array of chunks is copied when growing,
+ * so a value can't be lost by a concurrent growth.<br>
+ * <br>
+ * This class is Thread-Safe !
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+final class IndexedAttributeContainer implements AttributeContainer {
+    /** the number of values in a chunk */
+    static final int CHUNK_SIZE = 16;
+
+    private static final int CHUNK_SHIFT = 4;
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** the value chunks, by index / CHUNK_SIZE. Only grown when holding the container lock */
+    private volatile AtomicReferenceArray<Object>[] chunks;
+
+    /**
+     * Creates a container sized for the keys created so far
+     */
+    IndexedAttributeContainer() {
+        chunks = newChunks(((AttributeKey.getKeyCount() + CHUNK_MASK) >>> CHUNK_SHIFT));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AtomicReferenceArray<Object>[] newChunks(int size) {
+        return (AtomicReferenceArray<Object>[]) new AtomicReferenceArray<?>[size];
+    }
+
+    /**
+     * Returns the chunk containing the given index, <code>null</code> if it
+     * doesn't exist yet.
+     */
+    private AtomicReferenceArray<Object> getChunk(int index) {
+        AtomicReferenceArray<Object>[] currentChunks = chunks;
+        int position = index >>> CHUNK_SHIFT;
+
+        if (position >= currentChunks.length) {
+            return null;
+        }
+
+        return currentChunks[position];
+    }
+
+    /**
+     * Returns the chunk containing the given index, creating it if needed.
+     */
+    private AtomicReferenceArray<Object> getOrCreateChunk(int index) {
+        AtomicReferenceArray<Object> chunk = getChunk(index);
+
+        if (chunk != null) {
+            return chunk;
+        }
+
+        synchronized (this) {
+            AtomicReferenceArray<Object>[] currentChunks = chunks;
+            int position = index >>> CHUNK_SHIFT;
+
+            if (position < currentChunks.length && currentChunks[position] != null) {
+                return currentChunks[position];
+            }
+
+            // copy on write, the readers may be using the current array
+            AtomicReferenceArray<Object>[] newChunks = newChunks(Math.max(currentChunks.length, position + 1));
+            System.arraycopy(currentChunks, 0, newChunks, 0, currentChunks.length);
+            chunk = new AtomicReferenceArray<Object>(CHUNK_SIZE);
+            newChunks[position] = chunk;
+            chunks = newChunks;
+
+            return chunk;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(AttributeKey<T> key) {
+        assertNotNull(key, "key");
+        int index = key.getIndex();
+        AtomicReferenceArray<Object> chunk = getChunk(index);
+
+        if (chunk == null) {
+            return null;
+        }
+
+        return (T) chunk.get(index & CHUNK_MASK);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public <T> T getAttribute(AttributeKey<T> key, T defaultValue) {
+        T value = getAttribute(key);
+
+        if (value != null) {
+            return value;
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T setAttribute(AttributeKey<? extends T> key, T value) {
+        assertNotNull(key, "key");
+
+        if (value == null) {
+            return (T) removeAttribute(key);
+        }
+
+        Class<? extends T> expectedValueType = key.getType();
+
+        if (!expectedValueType.isInstance(value)) {
+            throw new IllegalArgumentException("Invalid attribute value" + "\r\n  expected type: "
+                    + expectedValueType.getName() + "\r\n  actual type  : " + value.getClass().getName()
+                    + "\r\n  actual value : " + value);
+        }
+
+        int index = key.getIndex();
+
+        return (T) getOrCreateChunk(index).getAndSet(index & CHUNK_MASK, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T removeAttribute(AttributeKey<T> key) {
+        assertNotNull(key, "key");
+        int index = key.getIndex();
+        AtomicReferenceArray<Object> chunk = getChunk(index);
+
+        if (chunk == null) {
+            return null;
+        }
+
+        return (T) chunk.getAndSet(index & CHUNK_MASK, null);
+    }
+
+    /**
+     * Returns an unmodifiable snapshot of the keys of this container. If this
+     * container contains no key's an empty {@link Set} will be returned.
+     * 
+     * @return all Keys, never <code>null</code>
+     */
+    public Set<AttributeKey<?>> getAttributeKeys() {
+        AtomicReferenceArray<Object>[] currentChunks = chunks;
+        Set<AttributeKey<?>> keys = new HashSet<AttributeKey<?>>();
+
+        for (int position = 0; position < currentChunks.length; position++) {
+            AtomicReferenceArray<Object> chunk = currentChunks[position];
+
+            if (chunk == null) {
+                continue;
+            }
+
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                if (chunk.get(i) != null) {
+                    keys.add(AttributeKey.getKey((position << CHUNK_SHIFT) + i));
+                }
+            }
+        }
+
+        return unmodifiableSet(keys);
+    }
+}
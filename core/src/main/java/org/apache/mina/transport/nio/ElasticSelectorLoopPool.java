@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.nio;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of {@link NioSelectorLoop} whose size follows the load : it starts with a few loops, adds one when all the
+ * loops have been busy for most of the last sampling period, and retires the loops which have handled no session for
+ * a while. The new sessions are given to the least loaded loop, as in {@link LeastLoadedSelectorLoopPool}, so a loop
+ * just added gets the next sessions. The sessions already created stay on their loop.
+ * <p>
+ * The loads are sampled when a loop is requested, and periodically by a task run in the first loop, which is never
+ * retired.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class ElasticSelectorLoopPool implements SelectorLoopPool {
+    /** A logger for this class */
+    private static final Logger LOG = LoggerFactory.getLogger(ElasticSelectorLoopPool.class);
+
+    /** The default minimal number of loops */
+    public static final int DEFAULT_MIN_SIZE = 1;
+
+    /** The default busy ratio from which all the loops are considered as overloaded */
+    public static final double DEFAULT_GROW_THRESHOLD = 0.75;
+
+    /** The default delay after which a loop without session is retired */
+    public static final long DEFAULT_RETIRE_DELAY_MILLIS = 60000;
+
+    /** the prefix of the loop names */
+    private final String prefix;
+
+    /** the minimal number of loops */
+    private final int minSize;
+
+    /** the load of each loop, the first ones being the oldest */
+    private final SelectorLoopLoad[] loads;
+
+    /** the current number of loops */
+    private int size;
+
+    /** the index of the next created loop, used in its name */
+    private int nextLoopIndex;
+
+    /** the index of the first loop compared, so that equally loaded loops are served in turn */
+    private int nextIndex;
+
+    /** the time of the last sampling */
+    private long sampleTime;
+
+    /** the task sampling the loads periodically */
+    private ScheduledTask sampleTask;
+
+    private volatile long samplePeriodNanos = TimeUnit.MILLISECONDS
+            .toNanos(LeastLoadedSelectorLoopPool.DEFAULT_SAMPLE_PERIOD_MILLIS);
+
+    private volatile double busyWeight = LeastLoadedSelectorLoopPool.DEFAULT_BUSY_WEIGHT;
+
+    private volatile double growThreshold = DEFAULT_GROW_THRESHOLD;
+
+    private volatile long retireDelayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_RETIRE_DELAY_MILLIS);
+
+    /**
+     * Create a pool growing from {@link #DEFAULT_MIN_SIZE} to one loop per processor, plus one
+     * 
+     * @param prefix the prefix of the loop names
+     */
+    public ElasticSelectorLoopPool(final String prefix) {
+        this(prefix, DEFAULT_MIN_SIZE, Runtime.getRuntime().availableProcessors() + 1);
+    }
+
+    /**
+     * Create a pool of "minSize" {@link NioSelectorLoop}, which can grow up to "maxSize" loops
+     * 
+     * @param prefix the prefix of the loop names
+     * @param minSize the minimal number of loops, at least 1
+     * @param maxSize the maximal number of loops
+     */
+    public ElasticSelectorLoopPool(final String prefix, final int minSize, final int maxSize) {
+        if (minSize <= 0) {
+            throw new IllegalArgumentException("We can't create a pool with no Selectorloop in it");
+        }
+
+        if (maxSize < minSize) {
+            throw new IllegalArgumentException("The maximal size " + maxSize + " is lower than the minimal size "
+                    + minSize);
+        }
+
+        this.prefix = prefix;
+        this.minSize = minSize;
+        loads = new SelectorLoopLoad[maxSize];
+        sampleTime = System.nanoTime();
+
+        for (int i = 0; i < minSize; i++) {
+            addSelectorLoop(sampleTime);
+        }
+
+        scheduleSampling();
+    }
+
+    /**
+     * @return the current number of loops
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the current loops of this pool
+     */
+    public synchronized NioSelectorLoop[] getSelectorLoops() {
+        final NioSelectorLoop[] loops = new NioSelectorLoop[size];
+
+        for (int i = 0; i < size; i++) {
+            loops[i] = loads[i].getSelectorLoop();
+        }
+
+        return loops;
+    }
+
+    /**
+     * @return the minimal delay between two samplings of the loops busy time, in milliseconds
+     */
+    public long getSamplePeriodMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(samplePeriodNanos);
+    }
+
+    /**
+     * Set the minimal delay between two samplings of the loops busy time. At most one loop is added or retired for
+     * each sampling.
+     * 
+     * @param samplePeriodMillis the delay in milliseconds, at least 1
+     */
+    public void setSamplePeriodMillis(final long samplePeriodMillis) {
+        if (samplePeriodMillis < 1) {
+            throw new IllegalArgumentException("The sample period must be at least 1 ms : " + samplePeriodMillis);
+        }
+
+        this.samplePeriodNanos = TimeUnit.MILLISECONDS.toNanos(samplePeriodMillis);
+    }
+
+    /**
+     * @return the weight of the busy time in the load of a loop
+     */
+    public double getBusyWeight() {
+        return busyWeight;
+    }
+
+    /**
+     * Set the weight of the busy time in the load of a loop, the rest of the load being its share of the registered
+     * channels.
+     * 
+     * @param busyWeight the weight, between 0 and 1
+     */
+    public void setBusyWeight(final double busyWeight) {
+        if (!(busyWeight >= 0 && busyWeight <= 1)) {
+            throw new IllegalArgumentException("The busy weight must be between 0 and 1 : " + busyWeight);
+        }
+
+        this.busyWeight = busyWeight;
+    }
+
+    /**
+     * @return the busy ratio from which all the loops are considered as overloaded
+     */
+    public double getGrowThreshold() {
+        return growThreshold;
+    }
+
+    /**
+     * Set the busy ratio from which a loop is added : when even the least busy loop has been processing events for
+     * this part of the last sampling period, there is no room left for new sessions.
+     * 
+     * @param growThreshold the busy ratio, greater than 0 and at most 1
+     */
+    public void setGrowThreshold(final double growThreshold) {
+        if (!(growThreshold > 0 && growThreshold <= 1)) {
+            throw new IllegalArgumentException("The grow threshold must be in ]0, 1] : " + growThreshold);
+        }
+
+        this.growThreshold = growThreshold;
+    }
+
+    /**
+     * @return the delay after which a loop without session is retired, in milliseconds
+     */
+    public long getRetireDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(retireDelayNanos);
+    }
+
+    /**
+     * Set the delay after which a loop is retired, when it has no channel registered and no session has been given to
+     * it during this delay. A session given to a loop counts as one of its channels until it's registered, so even
+     * with no delay a loop is never retired while a new session is on its way. The pool never shrinks under its
+     * minimal size.
+     * 
+     * @param retireDelayMillis the delay in milliseconds
+     */
+    public void setRetireDelayMillis(final long retireDelayMillis) {
+        if (retireDelayMillis < 0) {
+            throw new IllegalArgumentException("The retire delay can't be negative : " + retireDelayMillis);
+        }
+
+        this.retireDelayNanos = TimeUnit.MILLISECONDS.toNanos(retireDelayMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized SelectorLoop getSelectorLoop() {
+        if (size == 0) {
+            throw new IllegalStateException("The pool has been shut down");
+        }
+
+        final long now = System.nanoTime();
+        sample(now);
+
+        final int selected = SelectorLoopLoad.leastLoaded(loads, size, nextIndex, busyWeight);
+        nextIndex = (nextIndex + 1) % size;
+        loads[selected].assigned(now);
+
+        return loads[selected].getSelectorLoop();
+    }
+
+    /**
+     * Stop the periodic sampling and all the loops of the pool. The sessions must have been closed before.
+     */
+    public synchronized void shutdown() {
+        if (sampleTask != null) {
+            sampleTask.cancel();
+            sampleTask = null;
+        }
+
+        for (int i = 0; i < size; i++) {
+            loads[i].getSelectorLoop().shutdown();
+            loads[i] = null;
+        }
+
+        size = 0;
+    }
+
+    private void scheduleSampling() {
+        sampleTask = loads[0].getSelectorLoop().schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ElasticSelectorLoopPool.this) {
+                    if (sampleTask != null) {
+                        sample(System.nanoTime());
+                        scheduleSampling();
+                    }
+                }
+            }
+        }, samplePeriodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Compute the busy ratio of each loop if the sampling period is over, and add or retire a loop if needed.
+     */
+    private void sample(final long now) {
+        final long elapsed = now - sampleTime;
+
+        if ((elapsed < samplePeriodNanos) || (size == 0)) {
+            return;
+        }
+
+        double minBusyRatio = 1.0;
+
+        for (int i = 0; i < size; i++) {
+            loads[i].sample(now, elapsed);
+            minBusyRatio = Math.min(minBusyRatio, loads[i].getBusyRatio());
+        }
+
+        sampleTime = now;
+
+        if (minBusyRatio >= growThreshold) {
+            if (size < loads.length) {
+                final SelectorLoopLoad added = addSelectorLoop(now);
+                LOG.debug("all the loops are busy, adding {}", added.getSelectorLoop());
+            }
+        } else if (size > minSize) {
+            retireIdleSelectorLoop(now);
+        }
+    }
+
+    private SelectorLoopLoad addSelectorLoop(final long now) {
+        final SelectorLoopLoad load = new SelectorLoopLoad(new NioSelectorLoop(prefix + "-I/O", nextLoopIndex++), now);
+        loads[size++] = load;
+
+        return load;
+    }
+
+    /**
+     * Retire the most recent loop without channel, if no session has been given to it for the retire delay. The first
+     * loop, running the sampling task, is never retired.
+     */
+    private void retireIdleSelectorLoop(final long now) {
+        for (int i = size - 1; i > 0; i--) {
+            final SelectorLoopLoad load = loads[i];
+
+            if ((load.getChannelCount() == 0) && (now - load.getLastAssignmentTime() >= retireDelayNanos)) {
+                System.arraycopy(loads, i + 1, loads, i, size - i - 1);
+                loads[--size] = null;
+                nextIndex = nextIndex % size;
+
+                LOG.debug("retiring the idle loop {}", load.getSelectorLoop());
+                load.getSelectorLoop().shutdown();
+
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.nio;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed size pool of {@link NioSelectorLoop}, giving each new session to the least loaded loop rather than in turn.
+ * <p>
+ * The load of a loop mixes its share of the registered channels, and the part of the last sampling period it has
+ * spent processing events rather than selecting (see {@link NioSelectorLoop#getBusyTimeNanos()}), so a few long-lived
+ * heavy sessions keep the new ones away from their loop. The weight of the busy time is set with
+ * {@link #setBusyWeight(double)} : with a weight of 0, only the channel counts are compared.
+ * <p>
+ * The loops are created once and their threads never change, so they can be pinned to some CPUs by external tools
+ * : their worker threads are named "SelectorWorker &lt;prefix&gt;-I/O-&lt;index&gt;", and they are returned by
+ * {@link #getSelectorLoops()}.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class LeastLoadedSelectorLoopPool implements SelectorLoopPool {
+    /** The default minimal delay between two samplings of the loops load */
+    public static final long DEFAULT_SAMPLE_PERIOD_MILLIS = 100;
+
+    /** The default weight of the busy time in the load of a loop */
+    public static final double DEFAULT_BUSY_WEIGHT = 0.5;
+
+    /** the pool of selector loop */
+    private final NioSelectorLoop[] pool;
+
+    /** the load of each loop */
+    private final SelectorLoopLoad[] loads;
+
+    /** the time of the last sampling */
+    private long sampleTime;
+
+    /** the index of the first loop compared, so that equally loaded loops are served in turn */
+    private int nextIndex;
+
+    private volatile long samplePeriodNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SAMPLE_PERIOD_MILLIS);
+
+    private volatile double busyWeight = DEFAULT_BUSY_WEIGHT;
+
+    /**
+     * Create a pool of "size" {@link NioSelectorLoop}
+     * 
+     * @param prefix the prefix of the loop names
+     * @param size the number of loops
+     */
+    public LeastLoadedSelectorLoopPool(final String prefix, final int size) {
+        this(createLoops(prefix, size));
+    }
+
+    /**
+     * Create a pool of existing {@link NioSelectorLoop}
+     * 
+     * @param selectorLoops the loops of the pool
+     */
+    public LeastLoadedSelectorLoopPool(final NioSelectorLoop... selectorLoops) {
+        if ((selectorLoops == null) || (selectorLoops.length == 0)) {
+            throw new IllegalArgumentException("We can't create a pool with no Selectorloop in it");
+        }
+
+        pool = selectorLoops.clone();
+        loads = new SelectorLoopLoad[pool.length];
+        sampleTime = System.nanoTime();
+
+        for (int i = 0; i < pool.length; i++) {
+            loads[i] = new SelectorLoopLoad(pool[i], sampleTime);
+        }
+    }
+
+    private static NioSelectorLoop[] createLoops(final String prefix, final int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("We can't create a pool with no Selectorloop in it");
+        }
+
+        final NioSelectorLoop[] loops = new NioSelectorLoop[size];
+
+        for (int i = 0; i < size; i++) {
+            loops[i] = new NioSelectorLoop(prefix + "-I/O", i);
+        }
+
+        return loops;
+    }
+
+    /**
+     * @return the loops of this pool
+     */
+    public NioSelectorLoop[] getSelectorLoops() {
+        return pool.clone();
+    }
+
+    /**
+     * @return the minimal delay between two samplings of the loops busy time, in milliseconds
+     */
+    public long getSamplePeriodMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(samplePeriodNanos);
+    }
+
+    /**
+     * Set the minimal delay between two samplings of the loops busy time. The busy time of a loop is the one measured
+     * over the last period : a short period follows quickly the load changes, but is less accurate.
+     * 
+     * @param samplePeriodMillis the delay in milliseconds, at least 1
+     */
+    public void setSamplePeriodMillis(final long samplePeriodMillis) {
+        if (samplePeriodMillis < 1) {
+            throw new IllegalArgumentException("The sample period must be at least 1 ms : " + samplePeriodMillis);
+        }
+
+        this.samplePeriodNanos = TimeUnit.MILLISECONDS.toNanos(samplePeriodMillis);
+    }
+
+    /**
+     * @return the weight of the busy time in the load of a loop
+     */
+    public double getBusyWeight() {
+        return busyWeight;
+    }
+
+    /**
+     * Set the weight of the busy time in the load of a loop, the rest of the load being its share of the registered
+     * channels.
+     * 
+     * @param busyWeight the weight, between 0 and 1
+     */
+    public void setBusyWeight(final double busyWeight) {
+        if (!(busyWeight >= 0 && busyWeight <= 1)) {
+            throw new IllegalArgumentException("The busy weight must be between 0 and 1 : " + busyWeight);
+        }
+
+        this.busyWeight = busyWeight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized SelectorLoop getSelectorLoop() {
+        final long now = System.nanoTime();
+        final long elapsed = now - sampleTime;
+
+        if (elapsed >= samplePeriodNanos) {
+            for (SelectorLoopLoad load : loads) {
+                load.sample(now, elapsed);
+            }
+
+            sampleTime = now;
+        }
+
+        final int selected = SelectorLoopLoad.leastLoaded(loads, loads.length, nextIndex, busyWeight);
+        nextIndex = (nextIndex + 1) % loads.length;
+        loads[selected].assigned(now);
+
+        return pool[selected];
+    }
+}
@@ -20,15 +20,21 @@
 package org.apache.mina.transport.nio;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.util.Iterator;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.mina.service.idlechecker.HashedWheelIdleChecker;
+import org.apache.mina.service.idlechecker.IdleChecker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,21 +46,59 @@ import org.slf4j.LoggerFactory;
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  */
 public class NioSelectorLoop implements SelectorLoop {
+    /**
+     * The system property disabling the replacement of the selector selected key set, when set to <code>false</code>
+     */
+    public static final String OPTIMIZE_SELECTED_KEYS_PROPERTY = "org.apache.mina.transport.nio.optimizeSelectedKeys";
+
     /** The logger for this class */
     private final Logger logger;
 
     /** the selector managed by this class */
     private Selector selector;
 
+    /** the array based selected key set, or null if we can't replace the selector one */
+    private SelectedKeySet selectedKeys;
+
     /** the worker thread in charge of processing the events */
     private final SelectorWorker worker;
 
-    /** Read buffer for all the incoming bytes (default to 64Kb) */
-    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    /**
+     * Read buffer for all the incoming bytes (64Kb). It's a direct buffer so the channels read straight into it,
+     * instead of reading into a temporary direct buffer copied afterward
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
 
     /** The queue containing the channels to register on the selector */
     private final Queue<Registration> registrationQueue = new ConcurrentLinkedQueue<Registration>();
 
+    /** The tasks to run in the worker thread */
+    private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<Runnable>();
+
+    /** The delayed tasks, ordered by deadline. Only used by the worker thread. */
+    private final PriorityQueue<ScheduledTask> scheduledTasks = new PriorityQueue<ScheduledTask>();
+
+    /** Tells if a wakeup has been requested since the last time the selector returned */
+    private final AtomicBoolean wakeupPending = new AtomicBoolean(false);
+
+    /** The idle checker of the sessions handled by this loop, created on demand */
+    private volatile IdleChecker idleChecker;
+
+    /** The number of channels registered on the selector, updated by the worker thread before each selection */
+    private volatile int registeredChannelCount;
+
+    /** The number of registrations processed since the loop creation. Only written by the worker thread. */
+    private volatile long processedRegistrationCount;
+
+    /** The number of events selected since the loop creation. Only written by the worker thread. */
+    private volatile long selectedEventCount;
+
+    /** The time spent out of the selection since the loop creation. Only written by the worker thread. */
+    private volatile long busyTimeNanos;
+
+    /** Tells if the loop has been asked to stop */
+    private volatile boolean shutdown = false;
+
     /**
      * Creates an instance of the SelectorLoop.
      * 
@@ -86,6 +130,7 @@ public class NioSelectorLoop implements SelectorLoop {
         try {
             logger.debug("open a selector");
             selector = Selector.open();
+            selectedKeys = installSelectedKeySet(selector);
         } catch (final IOException ioe) {
             logger.error("Impossible to open a new NIO selector, O/S is out of file descriptor ?");
             throw new IllegalStateException("Impossible to open a new NIO selector, O/S is out of file descriptor ?",
@@ -96,14 +141,119 @@ public class NioSelectorLoop implements SelectorLoop {
 
     }
 
+    /**
+     * Replace the {@link java.util.HashSet} used by the JDK selector to store the selected keys by a
+     * {@link SelectedKeySet}. This is done with reflection on the JDK internal classes, so if it fails we just keep the
+     * original set.
+     * 
+     * @param selector the selector to modify
+     * @return the installed key set, or <code>null</code> if the original set is kept
+     */
+    private SelectedKeySet installSelectedKeySet(final Selector selector) {
+        if ("false".equalsIgnoreCase(System.getProperty(OPTIMIZE_SELECTED_KEYS_PROPERTY))) {
+            return null;
+        }
+
+        try {
+            final Class<?> selectorImplClass = Class.forName("sun.nio.ch.SelectorImpl", false,
+                    ClassLoader.getSystemClassLoader());
+
+            if (!selectorImplClass.isAssignableFrom(selector.getClass())) {
+                return null;
+            }
+
+            final Field selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+            final Field publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+
+            final SelectedKeySet keySet = new SelectedKeySet();
+            selectedKeysField.set(selector, keySet);
+            publicSelectedKeysField.set(selector, keySet);
+
+            return keySet;
+        } catch (final Exception e) {
+            // not a JDK we know, or access denied
+            logger.debug("cannot replace the selected key set of {} : {}", selector, e.toString());
+
+            return null;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the selector selected keys are stored in an array
+     */
+    boolean isSelectedKeySetOptimized() {
+        return selectedKeys != null;
+    }
+
+    /**
+     * @return the number of channels registered on this loop, as known before the last selection
+     */
+    public int getRegisteredChannelCount() {
+        return registeredChannelCount;
+    }
+
+    /**
+     * @return the number of registrations processed by this loop since its creation, including the ones of the
+     *         channels closed before being registered
+     */
+    public long getProcessedRegistrationCount() {
+        return processedRegistrationCount;
+    }
+
+    /**
+     * @return the number of ready channels selected by this loop since its creation
+     */
+    public long getSelectedEventCount() {
+        return selectedEventCount;
+    }
+
+    /**
+     * Get the time spent by this loop processing the events, the registrations and the tasks, that is the time it has
+     * not been waiting in a selection. Comparing two values gives the load of the loop over a period.
+     * 
+     * @return the time spent out of the selection since the loop creation, in nanoseconds
+     */
+    public long getBusyTimeNanos() {
+        return busyTimeNanos;
+    }
+
+    /**
+     * Stop the loop : the worker thread exits once the events being processed are done, and the selector is closed.
+     * The channels still registered are not closed, and the tasks not run yet are dropped, so a loop must be shut down
+     * once no session uses it anymore.
+     */
+    public void shutdown() {
+        shutdown = true;
+
+        final IdleChecker checker = idleChecker;
+
+        if (checker != null) {
+            checker.destroy();
+        }
+
+        selector.wakeup();
+    }
+
+    /**
+     * @return <code>true</code> if {@link #shutdown()} has been called
+     */
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void register(boolean accept, boolean connect, boolean read, boolean write, SelectorListener listener,
             SelectableChannel channel, RegistrationCallback callback) {
-        logger.debug("registering : {} for accept : {}, connect: {}, read : {}, write : {}, channel : {}",
-                new Object[] { listener, accept, connect, read, write, channel });
+        if (logger.isDebugEnabled()) {
+            logger.debug("registering : {} for accept : {}, connect: {}, read : {}, write : {}, channel : {}",
+                    new Object[] { listener, accept, connect, read, write, channel });
+        }
+
         int ops = 0;
 
         if (accept) {
@@ -122,11 +272,15 @@ public class NioSelectorLoop implements SelectorLoop {
             ops |= SelectionKey.OP_WRITE;
         }
 
-        // TODO : if it's the same selector/worker, we don't need to do that we could directly enqueue
-        registrationQueue.add(new Registration(ops, channel, listener, callback));
+        if (isInLoopThread()) {
+            // we are not selecting : we can register the channel right now
+            register(new Registration(ops, channel, listener, callback));
+        } else {
+            registrationQueue.add(new Registration(ops, channel, listener, callback));
 
-        // Now, wakeup the selector in order to let it update the selectionKey status
-        wakeup();
+            // Now, wakeup the selector in order to let it update the selectionKey status
+            wakeup();
+        }
     }
 
     /**
@@ -135,8 +289,10 @@ public class NioSelectorLoop implements SelectorLoop {
     @Override
     public void modifyRegistration(final boolean accept, final boolean read, final boolean write,
             final SelectorListener listener, final SelectableChannel channel, boolean wakeup) {
-        logger.debug("modifying registration : {} for accept : {}, read : {}, write : {}, channel : {}", new Object[] {
-                listener, accept, read, write, channel });
+        if (logger.isDebugEnabled()) {
+            logger.debug("modifying registration : {} for accept : {}, read : {}, write : {}, channel : {}",
+                    new Object[] { listener, accept, read, write, channel });
+        }
 
         final SelectionKey key = channel.keyFor(selector);
         if (key == null) {
@@ -160,7 +316,8 @@ public class NioSelectorLoop implements SelectorLoop {
 
         key.interestOps(ops);
 
-        // we need to wakeup for the registration to be modified (TODO : not needed if we are in the worker thread)
+        // we need to wakeup for the registration to be modified (not needed if we are in the worker thread,
+        // the new interests will be used by the next select)
         if (wakeup) {
             wakeup();
         }
@@ -196,59 +353,292 @@ public class NioSelectorLoop implements SelectorLoop {
 
         @Override
         public void run() {
+            long busyStart = System.nanoTime();
 
-            for (;;) {
+            while (!shutdown) {
                 try {
-                    logger.debug("selecting...");
-                    final int readyCount = selector.select();
-                    logger.debug("... done selecting : {} events", readyCount);
+                    // registrations and tasks queued while we were processing the previous events
+                    processRegistrations();
+                    runTasks();
 
-                    if (readyCount > 0) {
-                        final Iterator<SelectionKey> it = selector.selectedKeys().iterator();
-
-                        while (it.hasNext()) {
-                            final SelectionKey key = it.next();
-                            final SelectorListener listener = (SelectorListener) key.attachment();
-                            logger.debug("key : {}", key);
-                            int ops = key.readyOps();
-                            boolean isAcceptable = (ops & SelectionKey.OP_ACCEPT) == SelectionKey.OP_ACCEPT;
-                            boolean isConnectable = (ops & SelectionKey.OP_CONNECT) == SelectionKey.OP_CONNECT;
-                            boolean isReadable = (ops & SelectionKey.OP_READ) == SelectionKey.OP_READ;
-                            boolean isWritable = (ops & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE;
-                            listener.ready(isAcceptable, isConnectable, isReadable, isReadable ? readBuffer : null,
-                                    isWritable);
-                            // if you don't remove the event of the set, the selector will present you this event again and
-                            // again
-                            logger.debug("remove");
-                            it.remove();
-                        }
-                    }
+                    registeredChannelCount = selector.keys().size();
 
-                    // new registration
-                    while (!registrationQueue.isEmpty()) {
-                        final Registration reg = registrationQueue.poll();
+                    final long selectStart = System.nanoTime();
+                    busyTimeNanos += selectStart - busyStart;
 
-                        try {
-                            SelectionKey selectionKey = reg.channel.register(selector, reg.ops, reg.listener);
+                    final int readyCount = select();
 
-                            if (reg.getCallback() != null) {
-                                reg.getCallback().done(selectionKey);
-                            }
-                        } catch (final ClosedChannelException ex) {
-                            // dead session..
-                            logger.error("socket is already dead", ex);
+                    busyStart = System.nanoTime();
+                    selectedEventCount += readyCount;
+
+                    // the registrations queued from now on need a new wakeup. The queue is processed
+                    // after this reset, so we can't miss a registration.
+                    wakeupPending.set(false);
+
+                    if (readyCount > 0) {
+                        if (selectedKeys != null) {
+                            processSelectedKeysArray();
+                        } else {
+                            processSelectedKeysSet();
                         }
                     }
+
+                    // registrations and tasks we have probably been woken up for
+                    processRegistrations();
+                    runTasks();
+                    runScheduledTasks();
                 } catch (final Exception e) {
                     logger.error("Unexpected exception : ", e);
                 }
             }
+
+            try {
+                selector.close();
+            } catch (final IOException e) {
+                logger.error("Error while closing the selector : ", e);
+            }
+
+            logger.debug("worker thread stopped");
+        }
+
+        /**
+         * Select the ready keys. We don't block if some tasks are waiting, and we don't block after the deadline of
+         * the next scheduled task.
+         */
+        private int select() throws IOException {
+            if (!taskQueue.isEmpty()) {
+                return selector.selectNow();
+            }
+
+            final ScheduledTask next = nextScheduledTask();
+
+            if (next == null) {
+                return selector.select();
+            }
+
+            final long delay = next.getDeadline() - System.nanoTime();
+
+            if (delay <= 0) {
+                return selector.selectNow();
+            }
+
+            // round up to the next millisecond, select(0) would block forever
+            return selector.select(TimeUnit.NANOSECONDS.toMillis(delay + 999999L));
+        }
+
+        /**
+         * Run the tasks submitted by {@link NioSelectorLoop#execute(Runnable)}.
+         */
+        private void runTasks() {
+            Runnable task;
+
+            while ((task = taskQueue.poll()) != null) {
+                runTask(task);
+            }
+        }
+
+        /**
+         * Run the scheduled tasks which are due.
+         */
+        private void runScheduledTasks() {
+            final long now = System.nanoTime();
+            ScheduledTask next;
+
+            while (((next = nextScheduledTask()) != null) && (next.getDeadline() - now <= 0)) {
+                scheduledTasks.poll();
+                runTask(next.getTask());
+            }
+        }
+
+        /**
+         * @return the next scheduled task which has not been cancelled, or <code>null</code>
+         */
+        private ScheduledTask nextScheduledTask() {
+            ScheduledTask next;
+
+            while (((next = scheduledTasks.peek()) != null) && next.isCancelled()) {
+                scheduledTasks.poll();
+            }
+
+            return next;
+        }
+
+        private void runTask(final Runnable task) {
+            try {
+                task.run();
+            } catch (final RuntimeException e) {
+                logger.error("Exception while running a task : ", e);
+            }
+        }
+
+        /**
+         * Process the selected keys stored in our {@link SelectedKeySet} : no iterator, no hash computation.
+         */
+        private void processSelectedKeysArray() {
+            try {
+                final SelectionKey[] keys = selectedKeys.keys();
+                final int size = selectedKeys.size();
+
+                for (int i = 0; i < size; i++) {
+                    final SelectionKey key = keys[i];
+
+                    // don't retain the key, the session may be closed
+                    keys[i] = null;
+                    processKey(key);
+                }
+            } finally {
+                // we must not present the same events again, even if a listener failed
+                selectedKeys.reset();
+            }
+        }
+
+        /**
+         * Process the selected keys stored in the default selector key set.
+         */
+        private void processSelectedKeysSet() {
+            final Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+
+            while (it.hasNext()) {
+                final SelectionKey key = it.next();
+
+                // if you don't remove the event of the set, the selector will present you this event again and
+                // again
+                it.remove();
+                processKey(key);
+            }
+        }
+
+        /**
+         * Dispatch the ready operations of a key to its listener.
+         */
+        private void processKey(final SelectionKey key) {
+            if (!key.isValid()) {
+                // cancelled while processing a previous event
+                return;
+            }
+
+            final SelectorListener listener = (SelectorListener) key.attachment();
+            final int ops = key.readyOps();
+            final boolean isAcceptable = (ops & SelectionKey.OP_ACCEPT) != 0;
+            final boolean isConnectable = (ops & SelectionKey.OP_CONNECT) != 0;
+            final boolean isReadable = (ops & SelectionKey.OP_READ) != 0;
+            final boolean isWritable = (ops & SelectionKey.OP_WRITE) != 0;
+            listener.ready(isAcceptable, isConnectable, isReadable, isReadable ? readBuffer : null, isWritable);
+        }
+
+        /**
+         * Register the queued channels on the selector.
+         */
+        private void processRegistrations() {
+            Registration reg;
+
+            while ((reg = registrationQueue.poll()) != null) {
+                register(reg);
+            }
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
     public void wakeup() {
-        selector.wakeup();
+        // Many threads may want to wake up the selector at the same time : only the first one
+        // does the system call, the flag is reset by the worker when the selector returns.
+        if (!isInLoopThread() && wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isInLoopThread() {
+        return Thread.currentThread() == worker;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(final Runnable task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Cannot execute a null task");
+        }
+
+        taskQueue.add(task);
+
+        // the worker may be blocked in select()
+        wakeup();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScheduledTask schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        if (task == null) {
+            throw new IllegalArgumentException("Cannot schedule a null task");
+        }
+
+        final ScheduledTask scheduledTask = new ScheduledTask(task, System.nanoTime() + unit.toNanos(delay));
+
+        if (isInLoopThread()) {
+            scheduledTasks.add(scheduledTask);
+        } else {
+            // the scheduled task queue is only used by the worker thread
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    scheduledTasks.add(scheduledTask);
+                }
+            });
+        }
+
+        return scheduledTask;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IdleChecker getIdleChecker() {
+        IdleChecker checker = idleChecker;
+
+        if (checker == null) {
+            synchronized (this) {
+                checker = idleChecker;
+
+                if (checker == null) {
+                    checker = new HashedWheelIdleChecker(this);
+                    checker.start();
+                    idleChecker = checker;
+                }
+            }
+        }
+
+        return checker;
+    }
+
+    /**
+     * Register a channel on the selector. Must be called from the worker thread.
+     */
+    private void register(final Registration reg) {
+        try {
+            final SelectionKey selectionKey = reg.channel.register(selector, reg.ops, reg.listener);
+
+            if (reg.getCallback() != null) {
+                reg.getCallback().done(selectionKey);
+            }
+        } catch (final ClosedChannelException ex) {
+            // dead session..
+            logger.error("socket is already dead", ex);
+        } finally {
+            // the new channel is counted before the registration is seen as processed
+            registeredChannelCount = selector.keys().size();
+            processedRegistrationCount++;
+        }
     }
 
     private static class Registration {
@@ -29,8 +29,6 @@ import org.apache.mina.api.IoFuture;
 import org.apache.mina.api.IoSession;
 import org.apache.mina.service.executor.OrderedHandlerExecutor;
 import org.apache.mina.service.executor.IoHandlerExecutor;
-import org.apache.mina.service.idlechecker.IdleChecker;
-import org.apache.mina.service.idlechecker.IndexedIdleChecker;
 import org.apache.mina.transport.tcp.AbstractTcpClient;
 import org.apache.mina.transport.tcp.TcpSessionConfig;
 import org.apache.mina.util.Assert;
@@ -58,9 +56,6 @@ public class NioTcpClient extends AbstractTcpClient {
     // This is final, so that we know if it's not initialized
     private final SelectorLoopPool readWriteSelectorPool;
 
-    /** for detecting idle session */
-    private IdleChecker idleChecker;
-
     /**
      * Create a TCP client with new selector pool of default size and a {@link IoHandlerExecutor} of default type (
      * {@link OrderedHandlerExecutor})
@@ -100,7 +95,6 @@ public class NioTcpClient extends AbstractTcpClient {
         super(handlerExecutor);
         this.connectSelectorLoop = connectSelectorLoop;
         this.readWriteSelectorPool = readWriteSelectorLoop;
-        idleChecker = new IndexedIdleChecker();
     }
 
     /**
@@ -120,13 +114,27 @@ public class NioTcpClient extends AbstractTcpClient {
 
         // apply idle configuration
         // Has to be final, as it's used in a inner class...
-        final NioTcpSession session = new NioTcpSession(this, clientSocket, readWriteSelectorPool.getSelectorLoop(),
-                idleChecker);
+        final SelectorLoop readWriteSelectorLoop = readWriteSelectorPool.getSelectorLoop();
+        final NioTcpSession session = new NioTcpSession(this, clientSocket, readWriteSelectorLoop,
+                readWriteSelectorLoop.getIdleChecker(), getBufferAllocator());
         TcpSessionConfig config = getSessionConfig();
 
         session.getConfig().setIdleTimeInMillis(IdleStatus.READ_IDLE, config.getIdleTimeInMillis(IdleStatus.READ_IDLE));
         session.getConfig().setIdleTimeInMillis(IdleStatus.WRITE_IDLE,
                 config.getIdleTimeInMillis(IdleStatus.WRITE_IDLE));
+        session.getConfig().setIdleTimeInMillis(IdleStatus.BOTH_IDLE, config.getIdleTimeInMillis(IdleStatus.BOTH_IDLE));
+
+        session.setReceiveBufferPool(getReceiveBufferPool());
+
+        // apply the gathering write configuration
+        session.getConfig().setGatheringWriteMaxMessages(config.getGatheringWriteMaxMessages());
+        session.getConfig().setGatheringWriteMaxBytes(config.getGatheringWriteMaxBytes());
+        session.getConfig().setMaxReadsPerEvent(config.getMaxReadsPerEvent());
+
+        // apply the write queue bounds
+        session.getConfig().setWriteQueueHighWatermark(config.getWriteQueueHighWatermark());
+        session.getConfig().setWriteQueueLowWatermark(config.getWriteQueueLowWatermark());
+        session.getConfig().setSuspendReadWhenNotWritable(config.isSuspendReadWhenNotWritable());
 
         // apply the default service socket configuration
         Boolean keepAlive = config.isKeepAlive();
@@ -233,8 +241,5 @@ public class NioTcpClient extends AbstractTcpClient {
 
         address = null;
         fireServiceInactivated();
-
-        // will stop the idle processor if we are the last service
-        idleChecker.destroy();
     }
 }
\ No newline at end of file
@@ -26,20 +26,30 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.mina.api.IdleStatus;
+import org.apache.mina.api.ConfigurationException;
 import org.apache.mina.service.executor.OrderedHandlerExecutor;
 import org.apache.mina.service.executor.IoHandlerExecutor;
 import org.apache.mina.service.idlechecker.IdleChecker;
-import org.apache.mina.service.idlechecker.IndexedIdleChecker;
 import org.apache.mina.transport.tcp.AbstractTcpServer;
 import org.apache.mina.transport.tcp.TcpSessionConfig;
+import org.apache.mina.transport.tcp.TcpSessionConfigSnapshot;
 import org.apache.mina.util.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * This class implements a TCP NIO based server.
+ * <p>
+ * The listening socket can be registered on several accept {@link SelectorLoop}s, which then compete for the pending
+ * connections, and each OP_ACCEPT event can accept a batch of connections (see {@link #setAcceptBatchSize(int)}), so
+ * that a single accept thread is not a bottleneck under connection storms.
+ * <p>
+ * The sessions can be created by their read/write {@link SelectorLoop} rather than by the accept loop (see
+ * {@link #setCreateSessionInSelectorLoop(boolean)}). In that case the session configuration is read once at bind time
+ * (see {@link #refreshSessionConfig()}), otherwise it's read for each new session.
  * 
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  */
@@ -47,10 +57,17 @@ public class NioTcpServer extends AbstractTcpServer implements SelectorListener
     /** A logger for this class */
     static final Logger LOG = LoggerFactory.getLogger(NioTcpServer.class);
 
+    /** The default number of connections accepted for each OP_ACCEPT event */
+    public static final int DEFAULT_ACCEPT_BATCH_SIZE = 1;
+
+    /** The minimal delay between two accept rate computations */
+    private static final long ACCEPT_RATE_PERIOD = TimeUnit.SECONDS.toNanos(1);
+
     /** the bound local address */
     private SocketAddress address = null;
 
-    private final SelectorLoop acceptSelectorLoop;
+    /** The selector loops handling the OP_ACCEPT events of the listening socket */
+    private final SelectorLoop[] acceptSelectorLoops;
 
     private final SelectorLoopPool readWriteSelectorPool;
 
@@ -60,7 +77,26 @@ public class NioTcpServer extends AbstractTcpServer implements SelectorListener
     // the server socket for accepting clients
     private ServerSocketChannel serverChannel = null;
 
-    private IdleChecker idleChecker;
+    /** The maximum number of connections accepted for each OP_ACCEPT event */
+    private volatile int acceptBatchSize = DEFAULT_ACCEPT_BATCH_SIZE;
+
+    /** The number of accepted connections */
+    private final AtomicLong acceptedSessionCount = new AtomicLong();
+
+    /** The copy of the session configuration applied to the sessions created by the read/write selector loops */
+    private volatile TcpSessionConfigSnapshot sessionConfigSnapshot;
+
+    /** Tells if the sessions are created by their read/write selector loop rather than by the accept loop */
+    private volatile boolean createSessionInSelectorLoop = false;
+
+    /** The accept rate, computed by getAcceptRate() */
+    private double acceptRate;
+
+    /** The time of the last accept rate computation */
+    private long acceptRateTime = System.nanoTime();
+
+    /** The number of accepted connections at the last accept rate computation */
+    private long acceptRateCount;
 
     /**
      * Create a TCP server with new selector pool of default size and a {@link IoHandlerExecutor} of default type (
@@ -83,7 +119,7 @@ public class NioTcpServer extends AbstractTcpServer implements SelectorListener
      */
     public NioTcpServer(SelectorLoopPool selectorLoopPool, IoHandlerExecutor handlerExecutor) {
         super(handlerExecutor);
-        this.acceptSelectorLoop = selectorLoopPool.getSelectorLoop();
+        this.acceptSelectorLoops = new SelectorLoop[] { selectorLoopPool.getSelectorLoop() };
         this.readWriteSelectorPool = selectorLoopPool;
     }
 
@@ -99,7 +135,30 @@ public class NioTcpServer extends AbstractTcpServer implements SelectorListener
     public NioTcpServer(SelectorLoop acceptSelectorLoop, SelectorLoopPool readWriteSelectorLoop,
             IoHandlerExecutor handlerExecutor) {
         super(handlerExecutor);
-        this.acceptSelectorLoop = acceptSelectorLoop;
+        this.acceptSelectorLoops = new SelectorLoop[] { acceptSelectorLoop };
+        this.readWriteSelectorPool = readWriteSelectorLoop;
+    }
+
+    /**
+     * Create a TCP server with many selector loops accepting the connections : the listening socket is registered on
+     * each of them, and they accept the pending connections concurrently.
+     * 
+     * @param acceptSelectorLoops the selector loops for handling accept events (connection of new session)
+     * @param readWriteSelectorLoop the pool of selector loop for handling read/write events of connected sessions
+     * @param ioHandlerExecutor used for executing IoHandler event in another pool of thread (not in the low level I/O
+     *        one). Use <code>null</code> if you don't want one. Be careful, the IoHandler processing will block the I/O
+     *        operations.
+     */
+    public NioTcpServer(SelectorLoop[] acceptSelectorLoops, SelectorLoopPool readWriteSelectorLoop,
+            IoHandlerExecutor handlerExecutor) {
+        super(handlerExecutor);
+        Assert.assertNotNull(acceptSelectorLoops, "acceptSelectorLoops");
+
+        if (acceptSelectorLoops.length == 0) {
+            throw new IllegalArgumentException("At least one accept selector loop is needed");
+        }
+
+        this.acceptSelectorLoops = acceptSelectorLoops.clone();
         this.readWriteSelectorPool = readWriteSelectorLoop;
     }
 
@@ -116,6 +175,99 @@ public class NioTcpServer extends AbstractTcpServer implements SelectorListener
         this.serverChannel = serverChannel;
     }
 
+    /**
+     * @return the maximum number of connections accepted for each OP_ACCEPT event
+     */
+    public int getAcceptBatchSize() {
+        return acceptBatchSize;
+    }
+
+    /**
+     * Set the maximum number of connections accepted for each OP_ACCEPT event. Accepting many connections at once
+     * saves the selections done between them when many clients connect at the same time, but delays the processing
+     * of the other events of the accept loop.
+     * 
+     * @param acceptBatchSize the maximum number of connections accepted for each event, at least 1
+     */
+    public void setAcceptBatchSize(final int acceptBatchSize) {
+        if (acceptBatchSize < 1) {
+            throw new IllegalArgumentException("The accept batch size must be at least 1 : " + acceptBatchSize);
+        }
+
+        this.acceptBatchSize = acceptBatchSize;
+    }
+
+    /**
+     * @return the number of connections accepted since the server creation
+     */
+    public long getAcceptedSessionCount() {
+        return acceptedSessionCount.get();
+    }
+
+    /**
+     * Get the number of connections accepted per second. The rate is computed over the period elapsed since the
+     * previous computation, when it's longer than a second : it's the last computed rate otherwise.
+     * 
+     * @return the number of connections accepted per second
+     */
+    public synchronized double getAcceptRate() {
+        final long now = System.nanoTime();
+        final long elapsed = now - acceptRateTime;
+
+        if (elapsed >= ACCEPT_RATE_PERIOD) {
+            final long count = acceptedSessionCount.get();
+            acceptRate = (count - acceptRateCount) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            acceptRateCount = count;
+            acceptRateTime = now;
+        }
+
+        return acceptRate;
+    }
+
+    /**
+     * @return <code>true</code> if the accepted connections are handed to their read/write selector loop, which
+     *         creates and configures the session
+     */
+    public boolean isCreateSessionInSelectorLoop() {
+        return createSessionInSelectorLoop;
+    }
+
+    /**
+     * Tell if the accept loop only accepts the connections and hands them to their read/write selector loop, which
+     * creates and configures the session (socket options, SSL, idle checking) in its own thread. Otherwise the sessions
+     * are created by the accept loop, which then spends most of its time configuring them under connection storms.
+     * <p>
+     * The selector loops apply the session configuration read at bind time, the changes done afterward on the
+     * {@link #getSessionConfig()} instance are only applied once {@link #refreshSessionConfig()} is called.
+     * 
+     * @param createSessionInSelectorLoop <code>true</code> for creating the sessions in the read/write selector loops
+     */
+    public void setCreateSessionInSelectorLoop(final boolean createSessionInSelectorLoop) {
+        this.createSessionInSelectorLoop = createSessionInSelectorLoop;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSessionConfig(final TcpSessionConfig config) {
+        super.setSessionConfig(config);
+
+        if (sessionConfigSnapshot != null) {
+            refreshSessionConfig();
+        }
+    }
+
+    /**
+     * Read again the session configuration applied by the read/write selector loops. It is read when the server is
+     * bound, and the changes done afterward on the {@link #getSessionConfig()} instance are only applied to the
+     * sessions they create once this method is called. The sessions created by the accept loop always get the current
+     * configuration.
+     */
+    public void refreshSessionConfig() {
+        sessionConfigSnapshot = new TcpSessionConfigSnapshot(getSessionConfig());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -144,10 +296,11 @@ public class NioTcpServer extends AbstractTcpServer implements SelectorListener
         serverChannel.socket().bind(address);
         serverChannel.configureBlocking(false);
 
-        acceptSelectorLoop.register(true, false, false, false, this, serverChannel, null);
+        refreshSessionConfig();
 
-        idleChecker = new IndexedIdleChecker();
-        idleChecker.start();
+        for (SelectorLoop acceptSelectorLoop : acceptSelectorLoops) {
+            acceptSelectorLoop.register(true, false, false, false, this, serverChannel, null);
+        }
 
         // it's the first address bound, let's fire the event
         this.fireServiceActivated();
@@ -172,13 +325,13 @@ public class NioTcpServer extends AbstractTcpServer implements SelectorListener
         }
         serverChannel.socket().close();
         serverChannel.close();
-        acceptSelectorLoop.unregister(this, serverChannel);
+
+        for (SelectorLoop acceptSelectorLoop : acceptSelectorLoops) {
+            acceptSelectorLoop.unregister(this, serverChannel);
+        }
 
         this.address = null;
         this.fireServiceInactivated();
-
-        // will stop the acceptor processor if we are the last service
-        idleChecker.destroy();
     }
 
     /**
@@ -203,14 +356,40 @@ public class NioTcpServer extends AbstractTcpServer implements SelectorListener
             final boolean write) {
         if (accept) {
             LOG.debug("acceptable new client");
+            final ServerSocketChannel channel = getServerSocketChannel();
 
-            // accepted connection
-            try {
-                LOG.debug("new client accepted");
-                createSession(getServerSocketChannel().accept());
+            for (int i = 0; i < acceptBatchSize; i++) {
+                SocketChannel clientSocket;
+
+                try {
+                    clientSocket = channel.accept();
+                } catch (final IOException e) {
+                    LOG.error("error while accepting new client", e);
+                    break;
+                }
+
+                if (clientSocket == null) {
+                    // no more pending connection, or they have been accepted by another accept loop
+                    break;
+                }
 
-            } catch (final IOException e) {
-                LOG.error("error while accepting new client", e);
+                LOG.debug("new client accepted");
+                acceptedSessionCount.incrementAndGet();
+
+                final SelectorLoop readWriteSelectorLoop = readWriteSelectorPool.getSelectorLoop();
+
+                if (createSessionInSelectorLoop) {
+                    final SocketChannel acceptedSocket = clientSocket;
+
+                    readWriteSelectorLoop.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            createSessionOrClose(acceptedSocket, readWriteSelectorLoop);
+                        }
+                    });
+                } else {
+                    createSessionOrClose(clientSocket, readWriteSelectorLoop);
+                }
             }
         }
 
@@ -219,83 +398,75 @@ public class NioTcpServer extends AbstractTcpServer implements SelectorListener
         }
     }
 
-    private void createSession(final SocketChannel clientSocket) throws IOException {
-        LOG.debug("create session");
-        final SocketChannel socketChannel = clientSocket;
-        final TcpSessionConfig config = getSessionConfig();
-        final SelectorLoop readWriteSelectorLoop = readWriteSelectorPool.getSelectorLoop();
-        final NioTcpSession session = new NioTcpSession(this, socketChannel, readWriteSelectorLoop, idleChecker);
-
-        socketChannel.configureBlocking(false);
-
-        // apply idle configuration
-        session.getConfig().setIdleTimeInMillis(IdleStatus.READ_IDLE, config.getIdleTimeInMillis(IdleStatus.READ_IDLE));
-        session.getConfig().setIdleTimeInMillis(IdleStatus.WRITE_IDLE,
-                config.getIdleTimeInMillis(IdleStatus.WRITE_IDLE));
-
-        // apply the default service socket configuration
-        final Boolean keepAlive = config.isKeepAlive();
-
-        if (keepAlive != null) {
-            session.getConfig().setKeepAlive(keepAlive);
-        }
-
-        final Boolean oobInline = config.isOobInline();
-
-        if (oobInline != null) {
-            session.getConfig().setOobInline(oobInline);
-        }
-
-        final Boolean reuseAddress = config.isReuseAddress();
-
-        if (reuseAddress != null) {
-            session.getConfig().setReuseAddress(reuseAddress);
-        }
-
-        final Boolean tcpNoDelay = config.isTcpNoDelay();
-
-        if (tcpNoDelay != null) {
-            session.getConfig().setTcpNoDelay(tcpNoDelay);
+    private void createSessionOrClose(final SocketChannel clientSocket, final SelectorLoop readWriteSelectorLoop) {
+        try {
+            createSession(clientSocket, readWriteSelectorLoop);
+        } catch (final IOException e) {
+            LOG.error("error while creating the session of a new client", e);
+            close(clientSocket);
+        } catch (final ConfigurationException e) {
+            LOG.error("error while configuring the session of a new client", e);
+            close(clientSocket);
+        } catch (final RuntimeException e) {
+            // not thrown to the selector loop, which would leave the socket open
+            LOG.error("unexpected error while creating the session of a new client", e);
+            close(clientSocket);
         }
+    }
 
-        final Integer receiveBufferSize = config.getReceiveBufferSize();
-
-        if (receiveBufferSize != null) {
-            session.getConfig().setReceiveBufferSize(receiveBufferSize);
+    private void close(final SocketChannel clientSocket) {
+        try {
+            clientSocket.close();
+        } catch (final IOException ioe) {
+            // nothing to do
         }
+    }
 
-        final Integer sendBufferSize = config.getSendBufferSize();
-
-        if (sendBufferSize != null) {
-            session.getConfig().setSendBufferSize(sendBufferSize);
-        }
+    private void createSession(final SocketChannel socketChannel, final SelectorLoop readWriteSelectorLoop)
+            throws IOException {
+        LOG.debug("create session");
+        final TcpSessionConfigSnapshot config = createSessionInSelectorLoop ? sessionConfigSnapshot
+                : new TcpSessionConfigSnapshot(getSessionConfig());
+        final IdleChecker idleChecker = readWriteSelectorLoop.getIdleChecker();
 
-        final Integer trafficClass = config.getTrafficClass();
+        // configure the channel first : a new session is managed by the service as soon as it's created
+        socketChannel.configureBlocking(false);
 
-        if (trafficClass != null) {
-            session.getConfig().setTrafficClass(trafficClass);
-        }
+        // apply the default service socket configuration in one pass, directly on the socket
+        config.applySocketOptions(socketChannel.socket());
 
-        final Integer soLinger = config.getSoLinger();
+        final NioTcpSession session = new NioTcpSession(this, socketChannel, readWriteSelectorLoop, idleChecker,
+                getBufferAllocator());
+        boolean registered = false;
 
-        if (soLinger != null) {
-            session.getConfig().setSoLinger(soLinger);
-        }
+        try {
+            // apply the idle, gathering write, read and write queue configuration
+            config.apply(session.getConfig());
 
-        // Set the secured flag if the service is to be used over SSL/TLS
-        if (config.isSecured()) {
-            session.initSecure(config.getSslContext());
-        }
+            session.setReceiveBufferPool(getReceiveBufferPool());
 
-        // add the session to the queue for being added to the selector
-        readWriteSelectorLoop.register(false, false, true, false, session, socketChannel, new RegistrationCallback() {
+            // Set the secured flag if the service is to be used over SSL/TLS
+            if (config.isSecured()) {
+                session.initSecure(config.getSslContext());
+            }
 
-            @Override
-            public void done(SelectionKey selectionKey) {
-                session.setSelectionKey(selectionKey);
-                session.setConnected();
+            // add the session to the queue for being added to the selector
+            readWriteSelectorLoop.register(false, false, true, false, session, socketChannel,
+                    new RegistrationCallback() {
+
+                        @Override
+                        public void done(SelectionKey selectionKey) {
+                            session.setSelectionKey(selectionKey);
+                            session.setConnected();
+                        }
+                    });
+            registered = true;
+        } finally {
+            if (!registered) {
+                // the session will never be opened nor closed
+                getManagedSessions().remove(session.getId());
             }
-        });
+        }
 
         idleChecker.sessionRead(session, System.currentTimeMillis());
         idleChecker.sessionWritten(session, System.currentTimeMillis());
@@ -38,6 +38,9 @@ import org.apache.mina.session.WriteRequest;
 import org.apache.mina.transport.tcp.ProxyTcpSessionConfig;
 import org.apache.mina.transport.tcp.TcpSessionConfig;
 import org.apache.mina.util.AbstractIoFuture;
+import org.apache.mina.util.BufferAllocator;
+import org.apache.mina.util.RefCountedBuffer;
+import org.apache.mina.util.RefCountedBufferPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,26 +70,61 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
     /** The associated selectionKey */
     private SelectionKey selectionKey;
 
-    /** The Direct Buffer used to send data */
-    private ByteBuffer sendBuffer;
+    /** The allocator providing the Direct Buffers used to send data */
+    private final BufferAllocator bufferAllocator;
 
-    /** The size of the buffer configured in the socket to send data */
-    private int sendBufferSize;
+    /** The pool of the buffers to read into, null for reading into the selector loop buffer */
+    private RefCountedBufferPool receiveBufferPool;
+
+    /** The predictor of the next read size, created on the first read */
+    private ReadBufferSizePredictor readSizePredictor;
+
+    /** The array used to gather the queued messages for a single write, lazily created */
+    private ByteBuffer[] gatheringBuffers;
+
+    /** Tells if the selector loop must stop reading from the channel */
+    private volatile boolean readSuspended = false;
+
+    /** Tells if the selector loop must stop writing into the channel */
+    private volatile boolean writeSuspended = false;
+
+    /** updates the interests from the selector loop thread */
+    private final Runnable updateInterestsTask = new Runnable() {
+        @Override
+        public void run() {
+            updateInterests();
+        }
+    };
+
+    /** registers for write from the selector loop thread */
+    private final Runnable flushWriteQueueTask = new Runnable() {
+        @Override
+        public void run() {
+            flushWriteQueue();
+        }
+    };
 
     NioTcpSession(final IoService service, final SocketChannel channel, final SelectorLoop selectorLoop,
-            final IdleChecker idleChecker) {
+            final IdleChecker idleChecker, final BufferAllocator bufferAllocator) {
         super(service, idleChecker);
         this.channel = channel;
         this.selectorLoop = selectorLoop;
         this.configuration = new ProxyTcpSessionConfig(channel.socket());
-        sendBufferSize = configuration.getSendBufferSize();
-        sendBuffer = ByteBuffer.allocateDirect(sendBufferSize);
+        this.bufferAllocator = bufferAllocator;
     }
 
     void setConnectFuture(ConnectFuture connectFuture) {
         this.connectFuture = connectFuture;
     }
 
+    /**
+     * Read into the buffers of the given pool, so the received buffers can be handed to the executor of the service
+     * without copy. To be called before the session registration.
+     */
+    void setReceiveBufferPool(RefCountedBufferPool receiveBufferPool) {
+        this.receiveBufferPool = receiveBufferPool;
+    }
+
     /**
      * Get the underlying {@link SocketChannel} of this session
      * 
@@ -136,8 +174,8 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
      */
     @Override
     public void suspendRead() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        readSuspended = true;
+        updateInterests();
     }
 
     /**
@@ -145,8 +183,8 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
      */
     @Override
     public void suspendWrite() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        writeSuspended = true;
+        updateInterests();
     }
 
     /**
@@ -156,7 +194,7 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
     protected int writeDirect(Object message) {
         try {
             // Check that we can write into the channel
-            if (!isRegisteredForWrite()) {
+            if (!isRegisteredForWrite() && !writeSuspended) {
                 // We don't have pending writes
                 return channel.write((ByteBuffer) message);
             } else {
@@ -177,27 +215,39 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
     protected ByteBuffer convertToDirectBuffer(WriteRequest writeRequest, boolean createNew) {
         ByteBuffer message = (ByteBuffer) writeRequest.getMessage();
 
-        if (!message.isDirect()) {
-            int remaining = message.remaining();
-
-            if ((remaining > sendBufferSize) || createNew) {
-                ByteBuffer directBuffer = ByteBuffer.allocateDirect(remaining);
-                directBuffer.put(message);
-                directBuffer.flip();
-                writeRequest.setMessage(directBuffer);
+        // only a DefaultWriteRequest can remember its buffer must be given back to the allocator : the other requests
+        // are written from their heap buffer
+        if (!message.isDirect() && (writeRequest instanceof DefaultWriteRequest)) {
+            // Copy the message into a DirectBuffer taken from the allocator. As this buffer is dedicated to
+            // the request, we can keep it in the write queue if the message can't be written at once : we
+            // don't need to create a new one.
+            ByteBuffer directBuffer = bufferAllocator.allocate(message.remaining());
+            directBuffer.put(message);
+            directBuffer.flip();
+            writeRequest.setMessage(directBuffer);
+            ((DefaultWriteRequest) writeRequest).setPooled(true);
+
+            return directBuffer;
+        }
 
-                return directBuffer;
-            } else {
-                sendBuffer.clear();
-                sendBuffer.put(message);
-                sendBuffer.flip();
-                writeRequest.setMessage(sendBuffer);
+        return message;
+    }
 
-                return sendBuffer;
-            }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void releaseDirectBuffer(WriteRequest writeRequest) {
+        if (!(writeRequest instanceof DefaultWriteRequest)) {
+            return;
         }
 
-        return message;
+        DefaultWriteRequest request = (DefaultWriteRequest) writeRequest;
+
+        if (request.isPooled()) {
+            request.setPooled(false);
+            bufferAllocator.release((ByteBuffer) request.getMessage());
+        }
     }
 
     /**
@@ -205,8 +255,8 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
      */
     @Override
     public void resumeRead() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        readSuspended = false;
+        updateInterests();
     }
 
     /**
@@ -214,8 +264,8 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
      */
     @Override
     public void resumeWrite() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        writeSuspended = false;
+        updateInterests();
     }
 
     /**
@@ -223,8 +273,7 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
      */
     @Override
     public boolean isReadSuspended() {
-        // TODO
-        return false;
+        return readSuspended;
     }
 
     /**
@@ -232,8 +281,35 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
      */
     @Override
     public boolean isWriteSuspended() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        return writeSuspended;
+    }
+
+    /**
+     * Tells if the selector loop can write into the channel. A closing session flushes its write queue even if the
+     * writes are suspended, otherwise it would never be closed.
+     */
+    private boolean canWrite() {
+        return !writeSuspended || isClosing();
+    }
+
+    /**
+     * Update the selector loop interests for this session channel, after a change of the suspension flags. We only
+     * listen for OP_WRITE events if some writes are pending.
+     */
+    private void updateInterests() {
+        if (isCreated() || isClosed()) {
+            // The channel is not (or not anymore) registered for read and write events. The
+            // flags will be used when registering the channel.
+            return;
+        }
+
+        // IMPORTANT : the OP_WRITE flag is only modified by the selector loop thread
+        if (selectorLoop.isInLoopThread()) {
+            selectorLoop.modifyRegistration(false, !readSuspended, isRegisteredForWrite() && canWrite(), this,
+                    channel, false);
+        } else {
+            selectorLoop.execute(updateInterestsTask);
+        }
     }
 
     /**
@@ -248,12 +324,10 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
      * Set this session status as connected. To be called by the processor selecting/polling this session.
      */
     void setConnected() {
-        if (!isCreated()) {
+        if (!compareAndSetState(SessionState.CREATED, SessionState.CONNECTED)) {
             throw new RuntimeException("Trying to open a non created session");
         }
 
-        state = SessionState.CONNECTED;
-
         if (connectFuture != null) {
             connectFuture.complete(this);
             connectFuture = null; // free some memory
@@ -274,6 +348,32 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
             LOG.error("Exception while closing the channel : ", e);
             processException(e);
         }
+
+        // the session must not be checked anymore, even when closed by flushing its write queue
+        idleChecker.sessionClosed(this);
+
+        // the write queue is only used by the selector loop thread
+        if (selectorLoop.isInLoopThread()) {
+            releaseWriteQueue();
+        } else {
+            selectorLoop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    releaseWriteQueue();
+                }
+            });
+        }
+    }
+
+    /**
+     * Give back to the allocator the buffers of the requests which will never be written
+     */
+    private void releaseWriteQueue() {
+        WriteRequest writeRequest;
+
+        while ((writeRequest = getWriteQueue().poll()) != null) {
+            releaseDirectBuffer(writeRequest);
+        }
     }
 
     /**
@@ -281,23 +381,89 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
      */
     @Override
     public void flushWriteQueue() {
-        // register for write
-        selectorLoop.modifyRegistration(false, !isReadSuspended(), true, this, channel, true);
+        // register for write. The OP_WRITE flag is only modified by the selector loop thread.
+        if (selectorLoop.isInLoopThread()) {
+            selectorLoop.modifyRegistration(false, !isReadSuspended(), canWrite(), this, channel, false);
+        } else {
+            selectorLoop.execute(flushWriteQueueTask);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The write queue is only used by the selector loop thread, so that it doesn't need any lock : when called from
+     * another thread, the request is handed over to the selector loop.
+     */
+    @Override
+    public WriteRequest enqueueWriteRequest(final WriteRequest writeRequest) {
+        if (selectorLoop.isInLoopThread()) {
+            return super.enqueueWriteRequest(writeRequest);
+        }
+
+        // The request bytes are accounted right now, so that the writers see
+        // the session as not writable even if the selector loop is late.
+        final int bytes = ((ByteBuffer) writeRequest.getMessage()).remaining();
+        updateWriteQueueBytes(bytes);
+
+        selectorLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    NioTcpSession.super.enqueueWriteRequest(writeRequest);
+                } finally {
+                    updateWriteQueueBytes(-bytes);
+                }
+            }
+        });
+
+        return writeRequest;
     }
 
     /**
      * Process a read operation : read the data from the channel and push them to the chain.
      * 
-     * @param readBuffer The buffer that will contain the read data
+     * @param loopBuffer The selector loop buffer, used if there is no pool of buffers to read into
+     */
+    private void processRead(final ByteBuffer loopBuffer) {
+        LOG.debug("readable session : {}", this);
+
+        final int maxReads = configuration.getMaxReadsPerEvent();
+
+        // keep on reading while the socket fills our buffer, but not forever : the other sessions of the loop are
+        // waiting too
+        for (int reads = 0; reads < maxReads; reads++) {
+            if (!readOnce(loopBuffer)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Read the socket once, with a buffer limited to the size predicted for the session, and push the received bytes
+     * to the chain.
+     * 
+     * @param loopBuffer the read buffer of the selector loop
+     * @return <code>true</code> if the read filled the buffer and the session can be read again
      */
-    private void processRead(final ByteBuffer readBuffer) {
+    private boolean readOnce(final ByteBuffer loopBuffer) {
+        // the SslHelper copies the decrypted data, no need for a pooled buffer
+        final RefCountedBuffer pooledBuffer = (receiveBufferPool != null) && !isSecured() ? receiveBufferPool
+                .acquire() : null;
+        final ByteBuffer readBuffer = pooledBuffer != null ? pooledBuffer.getBuffer() : loopBuffer;
+
         try {
-            LOG.debug("readable session : {}", this);
+            if (readSizePredictor == null) {
+                readSizePredictor = new ReadBufferSizePredictor(ReadBufferSizePredictor.DEFAULT_MINIMUM, Math.min(
+                        ReadBufferSizePredictor.DEFAULT_INITIAL, loopBuffer.capacity()), loopBuffer.capacity());
+            }
 
             // First reset the buffer from what it contained before
             readBuffer.clear();
+            final int readSize = Math.min(readSizePredictor.nextReadSize(), readBuffer.capacity());
+            readBuffer.limit(readSize);
 
-            // Read everything we can up to the buffer size
+            // Read everything we can up to the predicted size
             final int readCount = channel.read(readBuffer);
 
             LOG.debug("read {} bytes", readCount);
@@ -306,33 +472,49 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
                 // session closed by the remote peer
                 LOG.debug("session closed by the remote peer");
                 close(true);
-            } else if (readCount > 0) {
-                // we have read some data
-                // limit at the current position & rewind buffer back to start &
-                // push to the chain
-                readBuffer.flip();
-
-                if (isSecured()) {
-                    // We are reading data over a SSL/TLS encrypted connection.
-                    // Redirect the processing to the SslHelper class.
-                    final SslHelper sslHelper = getAttribute(SSL_HELPER, null);
-
-                    if (sslHelper == null) {
-                        throw new IllegalStateException();
-                    }
+                return false;
+            }
 
-                    sslHelper.processRead(this, readBuffer);
-                } else {
-                    // Plain message, not encrypted : go directly to the chain
-                    processMessageReceived(readBuffer);
+            if (readCount == 0) {
+                return false;
+            }
+
+            readSizePredictor.record(readCount);
+
+            // we have read some data
+            // limit at the current position & rewind buffer back to start &
+            // push to the chain
+            readBuffer.flip();
+
+            if (isSecured()) {
+                // We are reading data over a SSL/TLS encrypted connection.
+                // Redirect the processing to the SslHelper class.
+                final SslHelper sslHelper = getAttribute(SSL_HELPER, null);
+
+                if (sslHelper == null) {
+                    throw new IllegalStateException();
                 }
 
-                // Update the session idle status
-                idleChecker.sessionRead(this, System.currentTimeMillis());
+                sslHelper.processRead(this, readBuffer);
+            } else {
+                // Plain message, not encrypted : go directly to the chain
+                processMessageReceived(readBuffer, pooledBuffer);
             }
+
+            // Update the session idle status
+            idleChecker.sessionRead(this, System.currentTimeMillis());
+
+            // the handler may have suspended or closed the session
+            return (readCount == readSize) && !readSuspended && !isClosing() && !isClosed();
         } catch (final IOException e) {
             LOG.error("Exception while reading : ", e);
             processException(e);
+            return false;
+        } finally {
+            if (pooledBuffer != null) {
+                // the events handed to the executor hold their own reference
+                pooledBuffer.release();
+            }
         }
     }
 
@@ -346,92 +528,185 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
             LOG.debug("writable session : {}", this);
 
             Queue<WriteRequest> writeQueue = getWriteQueue();
+            int maxMessages = configuration.getGatheringWriteMaxMessages();
 
-            do {
-                // get a write request from the queue. We left it in the queue,
-                // just in case we can't write all of the message content into
-                // the channel : we will have to retrieve the message later
-                final WriteRequest writeRequest = writeQueue.peek();
+            if (maxMessages > 1) {
+                writeGathered(writeQueue, maxMessages, configuration.getGatheringWriteMaxBytes());
+            } else {
+                writeOneByOne(writeQueue);
+            }
 
-                if (writeRequest == null) {
-                    // Nothing to write : we are done
-                    break;
+            // We may have exited from the loop for some other reason
+            // that an empty queue
+            // if the session is no more interested in writing, we need
+            // to stop listening for OP_WRITE events
+            //
+            // IMPORTANT : no lock here, the write queue and the OP_WRITE flag are only
+            // modified by the selector loop thread.
+            if (writeQueue.isEmpty()) {
+                if (isClosing()) {
+                    LOG.debug("closing session {} have empty write queue, so we close it", this);
+                    // we was flushing writes, now we to the close
+                    channelClose();
+                } else {
+                    // no more write event needed
+                    selectorLoop.modifyRegistration(false, !isReadSuspended(), false, this, channel, false);
+
+                    // Reset the flag in IoSession too
+                    setNotRegisteredForWrite();
                 }
+            } else {
+                // We have some more data to write : the channel OP_WRITE interest remains
+                // as it was.
+            }
+        } catch (final IOException e) {
+            LOG.error("Exception while writing : ", e);
+            processException(e);
+        }
+    }
 
-                // The message is necessarily a ByteBuffer at this point
-                final ByteBuffer buf = (ByteBuffer) writeRequest.getMessage();
+    /**
+     * Write the queued messages one at a time, until the queue is empty or the socket buffer is full.
+     */
+    private void writeOneByOne(Queue<WriteRequest> writeQueue) throws IOException {
+        do {
+            // get a write request from the queue. We left it in the queue,
+            // just in case we can't write all of the message content into
+            // the channel : we will have to retrieve the message later
+            final WriteRequest writeRequest = writeQueue.peek();
+
+            if (writeRequest == null) {
+                // Nothing to write : we are done
+                break;
+            }
 
-                // Note that if the connection is secured, the buffer
-                // already contains encrypted data.
+            // The message is necessarily a ByteBuffer at this point
+            final ByteBuffer buf = (ByteBuffer) writeRequest.getMessage();
 
-                // Try to write the data, and get back the number of bytes
-                // actually written
-                final int written = channel.write(buf);
-                LOG.debug("wrote {} bytes to {}", written, this);
+            // Note that if the connection is secured, the buffer
+            // already contains encrypted data.
 
-                if (written > 0) {
-                    incrementWrittenBytes(written);
-                }
+            // Try to write the data, and get back the number of bytes
+            // actually written
+            final int written = channel.write(buf);
+            LOG.debug("wrote {} bytes to {}", written, this);
 
-                // Update the idle status for this session
-                idleChecker.sessionWritten(this, System.currentTimeMillis());
+            if (written > 0) {
+                incrementWrittenBytes(written);
+                updateWriteQueueBytes(-written);
+            }
 
-                // Ok, we may not have written everything. Check that.
-                if (buf.remaining() == 0) {
-                    // completed write request, let's remove it (we use poll() instead
-                    // of remove(), because remove() may throw an exception if the
-                    // queue is empty.
-                    writeQueue.poll();
+            // Update the idle status for this session
+            idleChecker.sessionWritten(this, System.currentTimeMillis());
 
-                    // complete the future if we have one (we should...)
-                    final DefaultWriteFuture future = (DefaultWriteFuture) writeRequest.getFuture();
+            // Ok, we may not have written everything. Check that.
+            if (buf.remaining() == 0) {
+                // completed write request, let's remove it (we use poll() instead
+                // of remove(), because remove() may throw an exception if the
+                // queue is empty.
+                writeQueue.poll();
+                completeWriteRequest(writeRequest);
+            } else {
+                // output socket buffer is full, we need
+                // to give up until next selection for
+                // writing.
+                break;
+            }
+        } while (!writeQueue.isEmpty());
+    }
 
-                    if (future != null) {
-                        future.complete();
-                    }
+    /**
+     * Write the queued messages using gathering writes : up to <code>maxMessages</code> messages, or
+     * <code>maxBytes</code> bytes, are pushed into the channel with a single system call. We loop until the queue is
+     * empty or the socket buffer is full.
+     */
+    private void writeGathered(Queue<WriteRequest> writeQueue, int maxMessages, int maxBytes) throws IOException {
+        if ((gatheringBuffers == null) || (gatheringBuffers.length < maxMessages)) {
+            gatheringBuffers = new ByteBuffer[maxMessages];
+        }
 
-                    // generate the message sent event
-                    final Object highLevel = ((DefaultWriteRequest) writeRequest).getOriginalMessage();
+        final ByteBuffer[] buffers = gatheringBuffers;
 
-                    if (highLevel != null) {
-                        processMessageSent(highLevel);
-                    }
-                } else {
-                    // output socket buffer is full, we need
-                    // to give up until next selection for
-                    // writing.
+        for (;;) {
+            // Collect the messages at the head of the queue. They stay in the queue
+            // until they have been completely written. This is safe because only the
+            // selector loop removes requests from the queue.
+            int count = 0;
+            long gathered = 0;
+
+            for (WriteRequest writeRequest : writeQueue) {
+                // The message is necessarily a ByteBuffer at this point
+                final ByteBuffer buf = (ByteBuffer) writeRequest.getMessage();
+                buffers[count++] = buf;
+                gathered += buf.remaining();
+
+                if ((count == maxMessages) || (gathered >= maxBytes)) {
                     break;
                 }
-            } while (!writeQueue.isEmpty());
+            }
 
-            // We may have exited from the loop for some other reason
-            // that an empty queue
-            // if the session is no more interested in writing, we need
-            // to stop listening for OP_WRITE events
-            //
-            // IMPORTANT : this section is synchronized so that the OP_WRITE flag
-            // can be set safely by both the selector thread and the writer thread.
-            synchronized (writeQueue) {
-                if (writeQueue.isEmpty()) {
-                    if (isClosing()) {
-                        LOG.debug("closing session {} have empty write queue, so we close it", this);
-                        // we was flushing writes, now we to the close
-                        channelClose();
-                    } else {
-                        // no more write event needed
-                        selectorLoop.modifyRegistration(false, !isReadSuspended(), false, this, channel, false);
+            if (count == 0) {
+                // Nothing to write : we are done
+                break;
+            }
 
-                        // Reset the flag in IoSession too
-                        setNotRegisteredForWrite();
+            final long written = channel.write(buffers, 0, count);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("wrote {} bytes to {} using {} buffers", new Object[] { written, this, count });
+            }
+
+            if (written > 0) {
+                incrementWrittenBytes((int) written);
+                updateWriteQueueBytes(-written);
+            }
+
+            // Update the idle status for this session
+            idleChecker.sessionWritten(this, System.currentTimeMillis());
+
+            // Remove the completed requests, in the order they have been queued
+            boolean socketFull = false;
+
+            for (int i = 0; i < count; i++) {
+                if (!socketFull) {
+                    if (buffers[i].hasRemaining()) {
+                        // output socket buffer is full, we need to give up
+                        // until next selection for writing.
+                        socketFull = true;
+                    } else {
+                        completeWriteRequest(writeQueue.poll());
                     }
-                } else {
-                    // We have some more data to write : the channel OP_WRITE interest remains
-                    // as it was.
                 }
+
+                // don't retain the messages
+                buffers[i] = null;
+            }
+
+            if (socketFull) {
+                break;
             }
-        } catch (final IOException e) {
-            LOG.error("Exception while writing : ", e);
-            processException(e);
+        }
+    }
+
+    /**
+     * Called when a message has been completely written : release its buffer, complete its future and generate the
+     * message sent event.
+     */
+    private void completeWriteRequest(WriteRequest writeRequest) {
+        // give back the DirectBuffer to the allocator
+        releaseDirectBuffer(writeRequest);
+
+        // complete the future if we have one (we should...)
+        final DefaultWriteFuture future = (DefaultWriteFuture) writeRequest.getFuture();
+
+        if (future != null) {
+            future.complete();
+        }
+
+        // generate the message sent event
+        final Object highLevel = writeRequest.getOriginalMessage();
+
+        if (highLevel != null) {
+            processMessageSent(highLevel);
         }
     }
 
@@ -441,8 +716,11 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
     @Override
     public void ready(final boolean accept, boolean connect, final boolean read, final ByteBuffer readBuffer,
             final boolean write) {
-        LOG.debug("session {} ready for accept={}, connect={}, read={}, write={}", new Object[] { this, accept,
-                connect, read, write });
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("session {} ready for accept={}, connect={}, read={}, write={}", new Object[] { this, accept,
+                    connect, read, write });
+        }
+
         if (connect) {
             try {
 
@@ -456,7 +734,7 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
                     selectionKey = null;
 
                     // Register for reading
-                    selectorLoop.register(false, false, true, false, this, channel, new RegistrationCallback() {
+                    selectorLoop.register(false, false, !readSuspended, false, this, channel, new RegistrationCallback() {
 
                         @Override
                         public void done(SelectionKey selectionKey) {
@@ -472,11 +750,12 @@ public class NioTcpSession extends AbstractIoSession implements SelectorListener
             }
         }
 
-        if (read) {
+        // the event may have been selected before a suspension
+        if (read && !readSuspended) {
             processRead(readBuffer);
         }
 
-        if (write) {
+        if (write && canWrite()) {
             processWrite();
         }
         if (accept) {
@@ -45,6 +45,15 @@ public class NioUdpSession extends AbstractIoSession {
 
     private final SocketAddress remoteAddress;
 
+    /**
+     * Tells if the received datagrams must be dropped. The datagram channel is shared by all the sessions of the
+     * server, so we can't stop reading from it for a single session.
+     */
+    private volatile boolean readSuspended = false;
+
+    /** Tells if the writes are suspended */
+    private volatile boolean writeSuspended = false;
+
     /** we pre-allocate a close future for lock-less {@link #close(boolean)} */
     private final IoFuture<Void> closeFuture = new AbstractIoFuture<Void>() {
 
@@ -107,24 +116,25 @@ public class NioUdpSession extends AbstractIoSession {
      */
     @Override
     public IoFuture<Void> close(boolean immediately) {
-        switch (state) {
+        final SessionState current = getState();
+
+        switch (current) {
         case CREATED:
             LOG.error("Session {} not opened", this);
             throw new IllegalStateException("cannot close an not opened session");
         case CONNECTED:
         case CLOSING:
-            if (immediately) {
-                state = SessionState.CLOSED;
-            } else {
-                // we wait for the write queue to be depleted
-                state = SessionState.CLOSING;
+            // if immediately, we don't wait for the write queue to be depleted
+            if (!compareAndSetState(current, immediately ? SessionState.CLOSED : SessionState.CLOSING)) {
+                // the state was changed by another thread
+                return close(immediately);
             }
             break;
         case CLOSED:
             LOG.warn("Already closed session {}", this);
             break;
         default:
-            throw new IllegalStateException("not implemented session state : " + state);
+            throw new IllegalStateException("not implemented session state : " + current);
         }
         return closeFuture;
     }
@@ -134,8 +144,7 @@ public class NioUdpSession extends AbstractIoSession {
      */
     @Override
     public void suspendRead() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        readSuspended = true;
     }
 
     /**
@@ -143,8 +152,7 @@ public class NioUdpSession extends AbstractIoSession {
      */
     @Override
     public void suspendWrite() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        writeSuspended = true;
     }
 
     /**
@@ -152,8 +160,7 @@ public class NioUdpSession extends AbstractIoSession {
      */
     @Override
     public void resumeRead() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        readSuspended = false;
     }
 
     /**
@@ -161,8 +168,7 @@ public class NioUdpSession extends AbstractIoSession {
      */
     @Override
     public void resumeWrite() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        writeSuspended = false;
     }
 
     /**
@@ -170,8 +176,7 @@ public class NioUdpSession extends AbstractIoSession {
      */
     @Override
     public boolean isReadSuspended() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        return readSuspended;
     }
 
     /**
@@ -179,8 +184,7 @@ public class NioUdpSession extends AbstractIoSession {
      */
     @Override
     public boolean isWriteSuspended() {
-        // TODO
-        throw new RuntimeException("Not implemented");
+        return writeSuspended;
     }
 
     /**
@@ -197,6 +201,12 @@ public class NioUdpSession extends AbstractIoSession {
      * @param readBuffer the received datagram
      */
     void receivedDatagram(ByteBuffer readBuffer) {
+        if (readSuspended) {
+            // UDP is not reliable anyway : the datagram is lost
+            LOG.debug("read suspended for session {}, dropping a datagram of {} bytes", this, readBuffer.remaining());
+            return;
+        }
+
         processMessageReceived(readBuffer);
         idleChecker.sessionRead(this, System.currentTimeMillis());
     }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.nio;
+
+/**
+ * Guess the number of bytes the next read of a session will return, from the size of the last reads. The prediction
+ * grows fast when a read fills the buffer, and shrinks slowly when two reads in a row would have fit in a smaller
+ * buffer. The sizes are powers of two between a minimum and a maximum.
+ * 
+ * This class is not thread safe : it's used by the selector loop thread of the session.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+final class ReadBufferSizePredictor {
+    /** The smallest predicted read size */
+    static final int DEFAULT_MINIMUM = 64;
+
+    /** The predicted read size of a new session */
+    static final int DEFAULT_INITIAL = 2048;
+
+    /** The number of times the prediction is doubled when a read fills the buffer */
+    private static final int GROW_SHIFT = 2;
+
+    private final int minimum;
+
+    private final int maximum;
+
+    private int nextReadSize;
+
+    /** set when the previous read would have fit in half the buffer */
+    private boolean decreaseNow;
+
+    /**
+     * Create a predictor
+     * 
+     * @param minimum the smallest predicted size
+     * @param initial the size predicted for the first read
+     * @param maximum the largest predicted size, usually the capacity of the read buffer
+     */
+    ReadBufferSizePredictor(int minimum, int initial, int maximum) {
+        if (minimum <= 0 || initial < minimum || maximum < initial) {
+            throw new IllegalArgumentException("Invalid read sizes : " + minimum + ", " + initial + ", " + maximum);
+        }
+
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.nextReadSize = initial;
+    }
+
+    /**
+     * @return the number of bytes we should try to read from the socket
+     */
+    int nextReadSize() {
+        return nextReadSize;
+    }
+
+    /**
+     * Record the result of a read done with a {@link #nextReadSize()} bytes buffer.
+     * 
+     * @param readCount the number of bytes read
+     */
+    void record(int readCount) {
+        if (readCount >= nextReadSize) {
+            // the buffer was filled, more data is probably waiting : grow fast
+            nextReadSize = Math.min(maximum, nextReadSize << GROW_SHIFT);
+            decreaseNow = false;
+        } else if (readCount <= (nextReadSize >> 1)) {
+            if (decreaseNow) {
+                nextReadSize = Math.max(minimum, nextReadSize >> 1);
+                decreaseNow = false;
+            } else {
+                decreaseNow = true;
+            }
+        } else {
+            decreaseNow = false;
+        }
+    }
+}
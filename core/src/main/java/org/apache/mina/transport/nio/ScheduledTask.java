@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.mina.transport.nio;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A task to be run by a {@link SelectorLoop} thread once a delay has elapsed.
+ * 
+ * @see SelectorLoop#schedule(Runnable, long, TimeUnit)
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public final class ScheduledTask implements Comparable<ScheduledTask> {
+    /** used to run the tasks with the same deadline in their scheduling order */
+    private static final AtomicLong NEXT_SEQUENCE = new AtomicLong();
+
+    private final Runnable task;
+
+    /** the deadline, in {@link System#nanoTime()} units */
+    private final long deadline;
+
+    private final long sequence = NEXT_SEQUENCE.getAndIncrement();
+
+    private volatile boolean cancelled = false;
+
+    ScheduledTask(final Runnable task, final long deadline) {
+        this.task = task;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Cancel the task. It won't be run if it has not been run yet.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return <code>true</code> if the task has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Get the remaining delay before the task is run.
+     * 
+     * @param unit the unit of the returned delay
+     * @return the remaining delay, negative or zero if the task is due
+     */
+    public long getDelay(final TimeUnit unit) {
+        return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+
+    Runnable getTask() {
+        return task;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareTo(final ScheduledTask other) {
+        // the deadlines can overflow : compare the difference
+        final long diff = deadline - other.deadline;
+
+        if (diff != 0) {
+            return diff < 0 ? -1 : 1;
+        }
+
+        return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.mina.transport.nio;
+
+import java.nio.channels.SelectionKey;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An array backed replacement for the selected key set of a {@link java.nio.channels.Selector}. The JDK implementation
+ * is a {@link java.util.HashSet} : each selected key costs an hash computation, and each iteration allocates an
+ * iterator. Here adding a key is a simple array store, and the {@link NioSelectorLoop} walks the array directly.
+ * <p>
+ * The selector only adds keys to this set, so {@link #contains(Object)} and {@link #remove(Object)} are not supported
+ * and always return <code>false</code>. This class is not thread safe : it must only be used by the thread selecting
+ * on the selector.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+final class SelectedKeySet extends AbstractSet<SelectionKey> {
+    /** The initial number of keys we can store */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private SelectionKey[] keys = new SelectionKey[DEFAULT_CAPACITY];
+
+    private int size;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean add(SelectionKey key) {
+        if (key == null) {
+            return false;
+        }
+
+        if (size == keys.length) {
+            SelectionKey[] newKeys = new SelectionKey[size << 1];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            keys = newKeys;
+        }
+
+        keys[size++] = key;
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains(Object o) {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean remove(Object o) {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<SelectionKey> iterator() {
+        return new Iterator<SelectionKey>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public SelectionKey next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                return keys[index++];
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @return the array containing the selected keys, from index 0 to {@link #size()} excluded
+     */
+    SelectionKey[] keys() {
+        return keys;
+    }
+
+    /**
+     * Forget all the selected keys, once they have been processed.
+     */
+    void reset() {
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+        }
+
+        size = 0;
+    }
+}
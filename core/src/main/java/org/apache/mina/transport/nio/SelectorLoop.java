@@ -19,6 +19,9 @@
 package org.apache.mina.transport.nio;
 
 import java.nio.channels.SelectableChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.service.idlechecker.IdleChecker;
 
 /**
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
@@ -44,7 +47,41 @@ public interface SelectorLoop {
     void unregister(SelectorListener listener, SelectableChannel channel);
 
     /**
-     * Wake up the selector
+     * Wake up the selector. Does nothing if called from the selector loop thread, or if a wakeup is already pending.
      */
     void wakeup();
-}
\ No newline at end of file
+
+    /**
+     * Tells if the current thread is the one processing the selector events. The operations done from this thread
+     * are applied directly, without waking up the selector.
+     * 
+     * @return <code>true</code> if called from the selector loop thread
+     */
+    boolean isInLoopThread();
+
+    /**
+     * Run a task in the selector loop thread. The tasks are run in their submission order, between two selections. A
+     * task must not block, as it would delay the processing of all the sessions handled by this loop.
+     * 
+     * @param task the task to run
+     */
+    void execute(Runnable task);
+
+    /**
+     * Run a task in the selector loop thread once a delay has elapsed.
+     * 
+     * @param task the task to run
+     * @param delay the delay before running the task
+     * @param unit the delay unit
+     * @return the scheduled task, which can be used to cancel it
+     */
+    ScheduledTask schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * Get the idle checker in charge of the sessions handled by this loop. It's ticked by the loop itself, so it must
+     * not be started or destroyed by the services using it.
+     * 
+     * @return the idle checker of this loop
+     */
+    IdleChecker getIdleChecker();
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.nio;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The load of a {@link NioSelectorLoop}, as seen by the pools choosing a loop for the new sessions : the part of the
+ * last sampling period the loop has been busy, and its number of channels. Not thread safe, the pools use it under
+ * their own lock.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+final class SelectorLoopLoad {
+    /** the delay after which a session given to the loop and still not registered is considered as failed */
+    private static final long PENDING_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /** the measured loop */
+    private final NioSelectorLoop selectorLoop;
+
+    /** the busy time of the loop at the last sampling */
+    private long sampledBusyTime;
+
+    /** the part of the last sampling period the loop has been busy, between 0 and 1 */
+    private double busyRatio;
+
+    /** the number of sessions given to the loop and not registered yet */
+    private int pendingCount;
+
+    /** the number of registrations processed by the loop at the last sampling */
+    private long sampledRegistrationCount;
+
+    /** the time a session was last given to the loop, or the time the loop was added to its pool */
+    private long lastAssignmentTime;
+
+    SelectorLoopLoad(final NioSelectorLoop selectorLoop, final long now) {
+        this.selectorLoop = selectorLoop;
+        this.sampledBusyTime = selectorLoop.getBusyTimeNanos();
+        this.sampledRegistrationCount = selectorLoop.getProcessedRegistrationCount();
+        this.lastAssignmentTime = now;
+    }
+
+    NioSelectorLoop getSelectorLoop() {
+        return selectorLoop;
+    }
+
+    double getBusyRatio() {
+        return busyRatio;
+    }
+
+    long getLastAssignmentTime() {
+        return lastAssignmentTime;
+    }
+
+    /**
+     * @return the number of channels registered on the loop, or about to be
+     */
+    int getChannelCount() {
+        return selectorLoop.getRegisteredChannelCount() + pendingCount;
+    }
+
+    /**
+     * Compute the busy ratio over the elapsed sampling period
+     * 
+     * @param now the current time, in nanoseconds
+     * @param elapsed the duration of the period, in nanoseconds
+     */
+    void sample(final long now, final long elapsed) {
+        final long busyTime = selectorLoop.getBusyTimeNanos();
+        busyRatio = Math.min(1.0, (double) (busyTime - sampledBusyTime) / elapsed);
+        sampledBusyTime = busyTime;
+
+        // the sessions registered since the previous sampling are now counted by the loop. A registration is counted
+        // by the loop before being seen as processed, so a session is never missing from both counts.
+        final long registrationCount = selectorLoop.getProcessedRegistrationCount();
+        pendingCount = (int) Math.max(0, pendingCount - (registrationCount - sampledRegistrationCount));
+        sampledRegistrationCount = registrationCount;
+
+        // forget the sessions which never registered, for example because their creation failed
+        if (now - lastAssignmentTime >= PENDING_TIMEOUT_NANOS) {
+            pendingCount = 0;
+        }
+    }
+
+    /**
+     * Record a session given to the loop
+     * 
+     * @param now the current time, in nanoseconds
+     */
+    void assigned(final long now) {
+        pendingCount++;
+        lastAssignmentTime = now;
+    }
+
+    /**
+     * @param busyWeight the weight of the busy ratio, the rest being the share of the channels
+     * @param totalChannels the number of channels of all the loops
+     * @return the load of the loop
+     */
+    double getLoad(final double busyWeight, final int totalChannels) {
+        final double channelShare = totalChannels == 0 ? 0 : (double) getChannelCount() / totalChannels;
+
+        return busyWeight * busyRatio + (1 - busyWeight) * channelShare;
+    }
+
+    /**
+     * Find the least loaded loop. The comparison starts at a given index, so that the equally loaded loops can be
+     * served in turn.
+     * 
+     * @param loads the loads of the pool loops
+     * @param count the number of loops
+     * @param start the index of the first compared loop
+     * @param busyWeight the weight of the busy ratio in the load
+     * @return the index of the least loaded loop
+     */
+    static int leastLoaded(final SelectorLoopLoad[] loads, final int count, final int start, final double busyWeight) {
+        int totalChannels = 0;
+
+        for (int i = 0; i < count; i++) {
+            totalChannels += loads[i].getChannelCount();
+        }
+
+        int selected = -1;
+        double selectedLoad = 0;
+
+        for (int n = 0; n < count; n++) {
+            final int i = (start + n) % count;
+            final double load = loads[i].getLoad(busyWeight, totalChannels);
+
+            if ((selected < 0) || (load < selectedLoad)) {
+                selected = i;
+                selectedLoad = load;
+            }
+        }
+
+        return selected;
+    }
+}
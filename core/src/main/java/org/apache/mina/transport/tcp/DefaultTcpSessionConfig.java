@@ -185,6 +185,76 @@ public class DefaultTcpSessionConfig extends AbstractIoSessionConfig implements
         this.soLinger = soLinger;
     }
 
+    //=====================
+    // gathering writes
+    //=====================
+
+    private int gatheringWriteMaxMessages = 1;
+
+    private int gatheringWriteMaxBytes = DEFAULT_GATHERING_WRITE_MAX_BYTES;
+
+    private int maxReadsPerEvent = DEFAULT_MAX_READS_PER_EVENT;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getGatheringWriteMaxMessages() {
+        return gatheringWriteMaxMessages;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setGatheringWriteMaxMessages(int maxMessages) {
+        if (maxMessages < 1) {
+            throw new IllegalArgumentException("We must write at least one message at a time : " + maxMessages);
+        }
+
+        this.gatheringWriteMaxMessages = maxMessages;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getGatheringWriteMaxBytes() {
+        return gatheringWriteMaxBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setGatheringWriteMaxBytes(int maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The gathering write size must be positive : " + maxBytes);
+        }
+
+        this.gatheringWriteMaxBytes = maxBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxReadsPerEvent() {
+        return maxReadsPerEvent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMaxReadsPerEvent(int maxReads) {
+        if (maxReads < 1) {
+            throw new IllegalArgumentException("We must read at least once per event : " + maxReads);
+        }
+
+        this.maxReadsPerEvent = maxReads;
+    }
+
     /**
      * Inject a {@link SSLContex} valid for the session. This {@link SSLContex} will be used
      * by the SSLEngine to handle secured connections.<br/>
@@ -47,6 +47,20 @@ public class ProxyTcpSessionConfig implements TcpSessionConfig {
 
     private long idleTimeWrite = -1;
 
+    private long idleTimeBoth = -1;
+
+    private int gatheringWriteMaxMessages = 1;
+
+    private int gatheringWriteMaxBytes = DEFAULT_GATHERING_WRITE_MAX_BYTES;
+
+    private int maxReadsPerEvent = DEFAULT_MAX_READS_PER_EVENT;
+
+    private int writeQueueHighWatermark = -1;
+
+    private int writeQueueLowWatermark = 0;
+
+    private boolean suspendReadWhenNotWritable = false;
+
     /**
      * {@inheritDoc}
      */
@@ -57,6 +71,8 @@ public class ProxyTcpSessionConfig implements TcpSessionConfig {
             return idleTimeRead;
         case WRITE_IDLE:
             return idleTimeWrite;
+        case BOTH_IDLE:
+            return idleTimeBoth;
         default:
             throw new RuntimeException("unexpected excetion, unknown idle status : " + status);
         }
@@ -74,6 +90,9 @@ public class ProxyTcpSessionConfig implements TcpSessionConfig {
         case WRITE_IDLE:
             this.idleTimeWrite = ildeTimeInMilli;
             break;
+        case BOTH_IDLE:
+            this.idleTimeBoth = ildeTimeInMilli;
+            break;
         default:
             throw new RuntimeException("unexpected excetion, unknown idle status : " + status);
         }
@@ -279,6 +298,122 @@ public class ProxyTcpSessionConfig implements TcpSessionConfig {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWriteQueueHighWatermark() {
+        return writeQueueHighWatermark;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setWriteQueueHighWatermark(int highWatermark) {
+        if (highWatermark < -1) {
+            throw new IllegalArgumentException("Invalid write queue high watermark : " + highWatermark);
+        }
+
+        this.writeQueueHighWatermark = highWatermark;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWriteQueueLowWatermark() {
+        return writeQueueLowWatermark;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setWriteQueueLowWatermark(int lowWatermark) {
+        if (lowWatermark < 0) {
+            throw new IllegalArgumentException("Invalid write queue low watermark : " + lowWatermark);
+        }
+
+        this.writeQueueLowWatermark = lowWatermark;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSuspendReadWhenNotWritable() {
+        return suspendReadWhenNotWritable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSuspendReadWhenNotWritable(boolean suspendRead) {
+        this.suspendReadWhenNotWritable = suspendRead;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getGatheringWriteMaxMessages() {
+        return gatheringWriteMaxMessages;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setGatheringWriteMaxMessages(int maxMessages) {
+        if (maxMessages < 1) {
+            throw new IllegalArgumentException("We must write at least one message at a time : " + maxMessages);
+        }
+
+        this.gatheringWriteMaxMessages = maxMessages;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getGatheringWriteMaxBytes() {
+        return gatheringWriteMaxBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setGatheringWriteMaxBytes(int maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("The gathering write size must be positive : " + maxBytes);
+        }
+
+        this.gatheringWriteMaxBytes = maxBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxReadsPerEvent() {
+        return maxReadsPerEvent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMaxReadsPerEvent(int maxReads) {
+        if (maxReads < 1) {
+            throw new IllegalArgumentException("We must read at least once per event : " + maxReads);
+        }
+
+        this.maxReadsPerEvent = maxReads;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -30,6 +30,12 @@ import org.apache.mina.api.IoSessionConfig;
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  */
 public interface TcpSessionConfig extends IoSessionConfig {
+    /** The default number of bytes gathered for a single write */
+    int DEFAULT_GATHERING_WRITE_MAX_BYTES = 64 * 1024;
+
+    /** The default number of reads done on a socket for a single readiness event */
+    int DEFAULT_MAX_READS_PER_EVENT = 16;
+
     /**
      * @see Socket#getTcpNoDelay()
      */
@@ -127,6 +133,51 @@ public interface TcpSessionConfig extends IoSessionConfig {
      */
     void setSoLinger(int soLinger);
 
+    /**
+     * Gets the maximum number of queued messages written to the socket with a single gathering write.
+     * 
+     * @return the maximum number of messages per write, <code>1</code> if the gathering writes are disabled
+     */
+    int getGatheringWriteMaxMessages();
+
+    /**
+     * Sets the maximum number of queued messages written to the socket with a single gathering write. Gathering
+     * writes save a system call per message when many small messages are waiting in the write queue.
+     * 
+     * @param maxMessages the maximum number of messages per write, <code>1</code> to disable the gathering writes
+     */
+    void setGatheringWriteMaxMessages(int maxMessages);
+
+    /**
+     * Gets the number of bytes after which we stop gathering more queued messages for a single write.
+     * 
+     * @return the maximum number of bytes gathered for a write
+     */
+    int getGatheringWriteMaxBytes();
+
+    /**
+     * Sets the number of bytes after which we stop gathering more queued messages for a single write.
+     * 
+     * @param maxBytes the maximum number of bytes gathered for a write
+     */
+    void setGatheringWriteMaxBytes(int maxBytes);
+
+    /**
+     * Gets the maximum number of reads done on the socket when the selector tells it's readable. We keep on reading
+     * while the last read filled the buffer, and stop at this limit to give a chance to the other sessions of the
+     * selector loop.
+     * 
+     * @return the maximum number of reads per readiness event
+     */
+    int getMaxReadsPerEvent();
+
+    /**
+     * Sets the maximum number of reads done on the socket when the selector tells it's readable.
+     * 
+     * @param maxReads the maximum number of reads per readiness event, <code>1</code> for a single read
+     */
+    void setMaxReadsPerEvent(int maxReads);
+
     /**
      * Tells if the session provides some encryption (SSL/TLS)
      * 
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import java.net.Socket;
+import java.net.SocketException;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.mina.api.ConfigurationException;
+import org.apache.mina.api.IdleStatus;
+
+/**
+ * An immutable copy of a {@link TcpSessionConfig}, read once to configure many sessions : the configuration of a new
+ * session is then done in one pass, without reading the service configuration again, and the socket options are set
+ * directly on the socket.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public final class TcpSessionConfigSnapshot {
+    private final long idleTimeRead;
+
+    private final long idleTimeWrite;
+
+    private final long idleTimeBoth;
+
+    private final int gatheringWriteMaxMessages;
+
+    private final int gatheringWriteMaxBytes;
+
+    private final int maxReadsPerEvent;
+
+    private final int writeQueueHighWatermark;
+
+    private final int writeQueueLowWatermark;
+
+    private final boolean suspendReadWhenNotWritable;
+
+    private final Boolean keepAlive;
+
+    private final Boolean oobInline;
+
+    private final Boolean reuseAddress;
+
+    private final Boolean tcpNoDelay;
+
+    private final Integer receiveBufferSize;
+
+    private final Integer sendBufferSize;
+
+    private final Integer trafficClass;
+
+    private final Integer soLinger;
+
+    private final boolean secured;
+
+    private final SSLContext sslContext;
+
+    /**
+     * Read a configuration
+     * 
+     * @param config the copied configuration
+     */
+    public TcpSessionConfigSnapshot(TcpSessionConfig config) {
+        idleTimeRead = config.getIdleTimeInMillis(IdleStatus.READ_IDLE);
+        idleTimeWrite = config.getIdleTimeInMillis(IdleStatus.WRITE_IDLE);
+        idleTimeBoth = config.getIdleTimeInMillis(IdleStatus.BOTH_IDLE);
+        gatheringWriteMaxMessages = config.getGatheringWriteMaxMessages();
+        gatheringWriteMaxBytes = config.getGatheringWriteMaxBytes();
+        maxReadsPerEvent = config.getMaxReadsPerEvent();
+        writeQueueHighWatermark = config.getWriteQueueHighWatermark();
+        writeQueueLowWatermark = config.getWriteQueueLowWatermark();
+        suspendReadWhenNotWritable = config.isSuspendReadWhenNotWritable();
+        keepAlive = config.isKeepAlive();
+        oobInline = config.isOobInline();
+        reuseAddress = config.isReuseAddress();
+        tcpNoDelay = config.isTcpNoDelay();
+        receiveBufferSize = config.getReceiveBufferSize();
+        sendBufferSize = config.getSendBufferSize();
+        trafficClass = config.getTrafficClass();
+        soLinger = config.getSoLinger();
+        secured = config.isSecured();
+        sslContext = config.getSslContext();
+    }
+
+    /**
+     * Copy the settings which are not socket options in a session configuration.
+     * 
+     * @param sessionConfig the configuration of the session
+     */
+    public void apply(TcpSessionConfig sessionConfig) {
+        sessionConfig.setIdleTimeInMillis(IdleStatus.READ_IDLE, idleTimeRead);
+        sessionConfig.setIdleTimeInMillis(IdleStatus.WRITE_IDLE, idleTimeWrite);
+        sessionConfig.setIdleTimeInMillis(IdleStatus.BOTH_IDLE, idleTimeBoth);
+        sessionConfig.setGatheringWriteMaxMessages(gatheringWriteMaxMessages);
+        sessionConfig.setGatheringWriteMaxBytes(gatheringWriteMaxBytes);
+        sessionConfig.setMaxReadsPerEvent(maxReadsPerEvent);
+        sessionConfig.setWriteQueueHighWatermark(writeQueueHighWatermark);
+        sessionConfig.setWriteQueueLowWatermark(writeQueueLowWatermark);
+        sessionConfig.setSuspendReadWhenNotWritable(suspendReadWhenNotWritable);
+    }
+
+    /**
+     * Set the socket options on a socket. The options which are not set in the configuration are left to their
+     * system default value.
+     * 
+     * @param socket the configured socket
+     * @throws ConfigurationException if an option can't be set
+     */
+    public void applySocketOptions(Socket socket) {
+        try {
+            if (keepAlive != null) {
+                socket.setKeepAlive(keepAlive);
+            }
+
+            if (oobInline != null) {
+                socket.setOOBInline(oobInline);
+            }
+
+            if (reuseAddress != null) {
+                socket.setReuseAddress(reuseAddress);
+            }
+
+            if (tcpNoDelay != null) {
+                socket.setTcpNoDelay(tcpNoDelay);
+            }
+
+            if (receiveBufferSize != null) {
+                socket.setReceiveBufferSize(receiveBufferSize);
+            }
+
+            if (sendBufferSize != null) {
+                socket.setSendBufferSize(sendBufferSize);
+            }
+
+            if (trafficClass != null) {
+                socket.setTrafficClass(trafficClass);
+            }
+
+            if (soLinger != null) {
+                socket.setSoLinger(soLinger > 0, soLinger);
+            }
+        } catch (SocketException e) {
+            throw new ConfigurationException(e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the sessions are secured with SSL/TLS
+     */
+    public boolean isSecured() {
+        return secured;
+    }
+
+    /**
+     * @return the SSL context of the secured sessions
+     */
+    public SSLContext getSslContext() {
+        return sslContext;
+    }
+}
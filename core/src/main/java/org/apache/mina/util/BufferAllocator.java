@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocates the {@link ByteBuffer}s used by the I/O layer, and takes them back when they are not used anymore. An
+ * implementation is free to recycle the released buffers.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public interface BufferAllocator {
+    /**
+     * Get a buffer able to store at least <code>capacity</code> bytes. The returned buffer position is 0 and its limit
+     * is <code>capacity</code>, but its real capacity may be bigger.
+     *
+     * @param capacity the number of bytes we want to store in the buffer
+     * @return a cleared buffer
+     */
+    ByteBuffer allocate(int capacity);
+
+    /**
+     * Give back a buffer obtained from {@link #allocate(int)}. The caller must not use the buffer after this call.
+     *
+     * @param buffer the buffer to release
+     */
+    void release(ByteBuffer buffer);
+}
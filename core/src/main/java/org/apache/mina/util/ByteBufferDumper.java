@@ -68,7 +68,18 @@ public class ByteBufferDumper {
      * @return A dump of this ByteBuffer
      */
     public static String dump(ByteBuffer buffer, int nbBytes, boolean toAscii) {
-        byte[] data = buffer.array();
+        byte[] data;
+
+        if (buffer.hasArray()) {
+            data = buffer.array();
+        } else {
+            // direct buffer : copy its content, so we can use the same indexes
+            data = new byte[buffer.limit()];
+            ByteBuffer content = buffer.duplicate();
+            content.position(0);
+            content.get(data);
+        }
+
         int start = buffer.position();
         int size = Math.min(buffer.remaining(), nbBytes >= 0 ? nbBytes : Integer.MAX_VALUE);
         int length = buffer.remaining();
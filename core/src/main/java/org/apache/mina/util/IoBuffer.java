@@ -1,4 +1,4 @@
-/**
+/*
  * Licensed to the Apache Software Foundation (ASF) under one
  * or more contributor license agreements.  See the NOTICE file
  * distributed with this work for additional information
@@ -30,13 +30,34 @@ import java.nio.ReadOnlyBufferException;
  * add as many buffers as needed, when accumulating data. From the user PoV, the methods
  * are the very same than what we can get from ByteBuffer.
  * <br/>
+ * The bytes of an added ByteBuffer are the ones between 0 and its limit : they are not
+ * copied, and the ByteBuffers can be heap or direct ones (but not a mix of both). The
+ * ByteBuffers are stored in an array, with the position of their first byte in the
+ * IoBuffer, so the ByteBuffer containing a given index is found with a binary search,
+ * and the reads done in sequence don't search at all.
+ * <br/>
  * IoBuffer instances are *not* thred safe.
  * 
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  */
 public class IoBuffer {
-    /** The list of ByteBuffers were we store the data */
-    private BufferList buffers = new BufferList();
+    /** The initial size of the arrays storing the ByteBuffers */
+    private static final int INITIAL_BUFFER_COUNT = 4;
+
+    /** The ByteBuffers were we store the data */
+    private ByteBuffer[] buffers;
+
+    /** The position in the IoBuffer of the first byte of each ByteBuffer */
+    private int[] offsets;
+
+    /** The number of ByteBuffers */
+    private int count;
+
+    /** The number of bytes in all the ByteBuffers */
+    private int length;
+
+    /** The index of the ByteBuffer containing the last read byte, where we start searching */
+    private int current;
 
     /** The maximal position in the IoBuffer */
     private int limit;
@@ -71,11 +92,7 @@ public class IoBuffer {
      * Construct a IoBuffer, with no buffer in it
      */
     public IoBuffer() {
-        position = 0;
-        mark = 0;
-        limit = 0;
-        type = null;
-        order = null;
+        this((BufferType) null);
     }
 
     /**
@@ -84,8 +101,10 @@ public class IoBuffer {
      * @param bufferType the type of buffer to use : BufferType.HEAP or BufferType.DIRECT
      */
     public IoBuffer(BufferType bufferType) {
+        buffers = new ByteBuffer[INITIAL_BUFFER_COUNT];
+        offsets = new int[INITIAL_BUFFER_COUNT];
         position = 0;
-        mark = 0;
+        mark = UNSET_MARK;
         limit = 0;
         type = bufferType;
     }
@@ -96,48 +115,38 @@ public class IoBuffer {
      * @param byteBuffers the ByteBuffers added to the IoBuffer list
      */
     public IoBuffer(ByteBuffer... byteBuffers) {
-        if ((byteBuffers == null) || (byteBuffers.length == 0)) {
-            position = 0;
-            mark = 0;
-            limit = 0;
-            type = null;
-            order = null;
-        } else {
+        this((BufferType) null);
+
+        if (byteBuffers != null) {
             for (ByteBuffer byteBuffer : byteBuffers) {
                 if (type == null) {
                     type = byteBuffer.isDirect() ? BufferType.DIRECT : BufferType.HEAP;
                 }
 
                 if (byteBuffer.limit() > 0) {
-                    buffers.add(byteBuffer);
+                    addBuffer(byteBuffer);
                 }
             }
         }
     }
 
     /**
-     * Construct a IoBuffer from an existing IoBuffer.
+     * Construct a IoBuffer from an existing IoBuffer. The two IoBuffers share the same
+     * ByteBuffers, but have their own position, limit and mark.
      * @param ioBuffer the IoBuffer we want to copy
      */
     public IoBuffer(IoBuffer ioBuffer) {
-        // Find the position to start with
-        BufferNode node = ioBuffer.buffers.getFirst();
-        int pos = 0;
-
-        while (node != null) {
-            if (node.offset + node.buffer.limit() < position) {
-                node = buffers.getNext();
-                pos = node.offset + node.buffer.limit();
-            } else {
-                buffers.add(node.buffer);
-            }
-        }
-
-        position = position - pos;
-        mark = 0;
-        limit = ioBuffer.limit() - pos;
+        buffers = ioBuffer.buffers.clone();
+        offsets = ioBuffer.offsets.clone();
+        count = ioBuffer.count;
+        length = ioBuffer.length;
+        current = ioBuffer.current;
+        position = ioBuffer.position;
+        mark = ioBuffer.mark;
+        limit = ioBuffer.limit;
         type = ioBuffer.type;
-        order = ioBuffer.order();
+        order = ioBuffer.order;
+        readOnly = ioBuffer.readOnly;
     }
 
     /**
@@ -149,13 +158,48 @@ public class IoBuffer {
     public IoBuffer add(ByteBuffer... byteBuffers) {
         for (ByteBuffer byteBuffer : byteBuffers) {
             if (byteBuffer.limit() > 0) {
-                buffers.add(byteBuffer);
+                addBuffer(byteBuffer);
             }
         }
 
         return this;
     }
 
+    /**
+     * Adds a non empty ByteBuffer at the end of the array, growing it if needed
+     */
+    private void addBuffer(ByteBuffer byteBuffer) {
+        // Check the buffer type
+        if (type == null) {
+            type = byteBuffer.isDirect() ? BufferType.DIRECT : BufferType.HEAP;
+        } else if (isDirect() != byteBuffer.isDirect()) {
+            throw new RuntimeException();
+        }
+
+        // Check the ByteOrder
+        if (count == 0) {
+            order = byteBuffer.order();
+        } else if (buffers[0].order() != byteBuffer.order()) {
+            throw new RuntimeException();
+        }
+
+        if (count == buffers.length) {
+            ByteBuffer[] newBuffers = new ByteBuffer[count * 2];
+            System.arraycopy(buffers, 0, newBuffers, 0, count);
+            buffers = newBuffers;
+
+            int[] newOffsets = new int[count * 2];
+            System.arraycopy(offsets, 0, newOffsets, 0, count);
+            offsets = newOffsets;
+        }
+
+        buffers[count] = byteBuffer;
+        offsets[count] = length;
+        count++;
+        length += byteBuffer.limit();
+        limit = length;
+    }
+
     /**
      * Allocate a Heap IoBuffer with a defined capacity
      * @param capacity The number of bytes to store
@@ -186,39 +230,55 @@ public class IoBuffer {
         }
     }
 
+    /**
+     * @see ByteBuffer#wrap(byte[])
+     * Creates a heap IoBuffer containing the given array, without copying it.
+     * 
+     * @param array the wrapped bytes
+     * @return the created IoBuffer
+     */
+    public static IoBuffer wrap(byte[] array) {
+        return new IoBuffer(ByteBuffer.wrap(array));
+    }
+
+    /**
+     * @see ByteBuffer#wrap(byte[], int, int)
+     * Creates a heap IoBuffer containing a part of the given array, without copying it.
+     * The position of the IoBuffer is 0, and its limit is <code>length</code>.
+     * 
+     * @param array the wrapped bytes
+     * @param offset the offset of the first wrapped byte in the array
+     * @param length the number of wrapped bytes
+     * @return the created IoBuffer
+     */
+    public static IoBuffer wrap(byte[] array, int offset, int length) {
+        return new IoBuffer(ByteBuffer.wrap(array, offset, length).slice());
+    }
+
     /**
      * @see ByteBuffer#array()
      * Returns the byte array which this IoBuffer is based on, up to the sum of each 
      * contained ByteBuffer's limit().<br/>
-     * This array can be modified, but this won't modify the content of the underlying
-     * ByteBuffer instances, contrary to the ByteBuffer.array() method.
+     * This array is a copy of the content of the ByteBuffers (heap or direct), so it
+     * can be modified without modifying the underlying ByteBuffer instances, contrary to
+     * the ByteBuffer.array() method.
      * 
      * @return the byte array which this IoBuffer is based on.
      * @exception ReadOnlyBufferException if this IoBuffer is based on a read-only array.
-     * @exception UnsupportedOperationException if this IoBuffer is not based on an array.
      */
     public byte[] array() {
         if (isReadOnly()) {
             throw new ReadOnlyBufferException();
         }
 
-        if (buffers.size == 0) {
+        if (count == 0) {
             return EMPTY_BYTES;
         }
 
-        byte[] array = new byte[buffers.length];
-        BufferNode node = buffers.getFirst();
-        int pos = 0;
-
-        while (node != null) {
-            ByteBuffer buffer = node.buffer;
-            byte[] src = buffer.array();
-            int length = buffer.limit();
+        byte[] array = new byte[length];
 
-            System.arraycopy(src, 0, array, pos, length);
-            pos += length;
-
-            node = buffers.getNext();
+        for (int i = 0; i < count; i++) {
+            copy(buffers[i], 0, array, offsets[i], buffers[i].limit());
         }
 
         return array;
@@ -234,7 +294,6 @@ public class IoBuffer {
      *
      * @return the offset of the byte array which this IoBuffer is based on.
      * @exception ReadOnlyBufferException if this IoBuffer is based on a read-only array.
-     * @exception UnsupportedOperationException if this IoBuffer is not based on an array.
      */
     public int arrayOffset() {
         if (isReadOnly()) {
@@ -247,17 +306,22 @@ public class IoBuffer {
 
     /**
      * @see ByteBuffer#asReadOnlyBuffer()
+     * Creates a read-only IoBuffer sharing the ByteBuffers of this IoBuffer.
+     *
+     * @return a read-only IoBuffer
      */
     public IoBuffer asReadOnlyBuffer() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        IoBuffer readOnlyBuffer = new IoBuffer(this);
+        readOnlyBuffer.readOnly = true;
+
+        return readOnlyBuffer;
     }
 
     /**
-     * @return the IoBuffer total capacity
+     * @return the IoBuffer total capacity, the sum of the ByteBuffers limits
      */
     public int capacity() {
-        return limit;
+        return length;
     }
 
     /**
@@ -276,56 +340,135 @@ public class IoBuffer {
      * @return this buffer.
      */
     public IoBuffer clear() {
-        position = 0;
-        mark = UNSET_MARK;
-
-        BufferNode node = buffers.head;
         int offset = 0;
 
-        while (node != null) {
-            node.buffer.clear();
-            node.offset = offset;
-            offset += node.buffer.limit();
-            node = node.next;
+        for (int i = 0; i < count; i++) {
+            buffers[i].clear();
+            offsets[i] = offset;
+            offset += buffers[i].limit();
         }
 
+        length = offset;
         limit = offset;
-        buffers.length = 0;
-        buffers.current = buffers.head;
+        position = 0;
+        mark = UNSET_MARK;
+        current = 0;
 
         return this;
     }
 
     /**
      * @see ByteBuffer#compact()
+     * Discards the bytes before the position : the ByteBuffers which have been fully read
+     * are removed from the list, and the position, the limit and the mark are moved back
+     * accordingly.
+     * <p>
+     * Contrary to ByteBuffer#compact(), no byte is copied, and the IoBuffer stays ready
+     * for reading the remaining bytes.
+     *
+     * @return this IoBuffer.
      */
     public IoBuffer compact() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        int first = 0;
+
+        while ((first < count) && (offsets[first] + buffers[first].limit() <= position)) {
+            first++;
+        }
+
+        if (first == 0) {
+            return this;
+        }
+
+        int dropped = (first < count) ? offsets[first] : length;
+        int remainingCount = count - first;
+
+        System.arraycopy(buffers, first, buffers, 0, remainingCount);
+        System.arraycopy(offsets, first, offsets, 0, remainingCount);
+
+        for (int i = 0; i < remainingCount; i++) {
+            offsets[i] -= dropped;
+        }
+
+        for (int i = remainingCount; i < count; i++) {
+            // release the dropped ByteBuffers
+            buffers[i] = null;
+        }
+
+        count = remainingCount;
+        current = 0;
+        position -= dropped;
+        limit -= dropped;
+        length -= dropped;
+        mark = (mark >= dropped) ? mark - dropped : UNSET_MARK;
+
+        return this;
     }
 
     /**
      * @see ByteBuffer#compareTo(ByteBuffer)
+     * Compares the remaining bytes of this IoBuffer to another IoBuffer's remaining bytes.
+     *
+     * @param buffer another IoBuffer.
+     * @return a negative value if this is less than {@code buffer}; 0 if this equals to
+     *         {@code buffer}; a positive value if this is greater than {@code buffer}.
      */
     public int compareTo(IoBuffer buffer) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        int compareRemaining = Math.min(remaining(), buffer.remaining());
+
+        for (int i = 0; i < compareRemaining; i++) {
+            byte thisByte = get(position + i);
+            byte otherByte = buffer.get(buffer.position + i);
+
+            if (thisByte != otherByte) {
+                return thisByte < otherByte ? -1 : 1;
+            }
+        }
+
+        return remaining() - buffer.remaining();
     }
 
     /**
      * @see ByteBuffer#duplicate()
+     * Creates an IoBuffer sharing the ByteBuffers of this IoBuffer. The position, limit
+     * and mark of the two IoBuffers are independent.
+     *
+     * @return a duplicated IoBuffer
      */
     public IoBuffer duplicate() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        return new IoBuffer(this);
     }
 
     /**
      * @see ByteBuffer#equals(Object)
+     * Checks whether this IoBuffer is equal to another object : it must be an IoBuffer
+     * with the same remaining bytes.
+     *
+     * @param object the object to compare with this IoBuffer.
+     * @return {@code true} if this IoBuffer is equal to {@code object}, {@code false} otherwise.
      */
+    @Override
     public boolean equals(Object object) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        if (this == object) {
+            return true;
+        }
+
+        if (!(object instanceof IoBuffer)) {
+            return false;
+        }
+
+        IoBuffer that = (IoBuffer) object;
+
+        if (remaining() != that.remaining()) {
+            return false;
+        }
+
+        for (int i = 0; i < remaining(); i++) {
+            if (get(position + i) != that.get(that.position + i)) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     /**
@@ -357,30 +500,11 @@ public class IoBuffer {
             throw new BufferUnderflowException();
         }
 
-        // find the byte from the current buffer now
-        BufferNode currentNode = buffers.getCurrent();
-
-        // If the position is within the current buffer, then get the data from it
-        int bufferPosition = position - currentNode.offset;
-
-        if (bufferPosition < currentNode.buffer.limit()) {
-            position++;
-
-            return currentNode.buffer.get();
-        } else {
-            // We have exhausted the current buffer, let's see if we have one more
-            currentNode = buffers.getNext();
-
-            if (currentNode == null) {
-                // No more buffers
-                throw new BufferUnderflowException();
-            } else {
-                position++;
-                currentNode.buffer.position(0);
+        int index = bufferIndex(position);
+        byte result = buffers[index].get(position - offsets[index]);
+        position++;
 
-                return currentNode.buffer.get();
-            }
-        }
+        return result;
     }
 
     /**
@@ -396,30 +520,57 @@ public class IoBuffer {
      * @exception BufferUnderflowException if {@code dest.length} is greater than {@code remaining()}.
      */
     public IoBuffer get(byte[] dst) {
-        if (dst.length > remaining()) {
+        return get(dst, 0, dst.length);
+    }
+
+    /**
+     * @see ByteBuffer#get(byte[],int,int)
+     * Reads bytes from the current position into the specified byte array,
+     * starting at the specified offset, and increases the position by the
+     * number of bytes read. The bytes are copied ByteBuffer by ByteBuffer.
+     *
+     * @param dst the target byte array.
+     * @param offset the offset of the byte array, must not be negative and not greater than {@code dst.length}.
+     * @param length the number of bytes to read, must not be negative and not greater than {@code dst.length - offset}
+     * @return this IoBuffer.
+     * @exception IndexOutOfBoundsException if either {@code offset} or {@code length} is invalid.
+     * @exception BufferUnderflowException if {@code length} is greater than {@code remaining()}.
+     */
+    public IoBuffer get(byte[] dst, int offset, int length) {
+        if ((offset < 0) || (length < 0) || (offset + length > dst.length)) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (length > remaining()) {
             throw new BufferUnderflowException();
         }
 
-        int size = dst.length;
-        int destPos = 0;
-        BufferNode node = buffers.current;
+        if (length == 0) {
+            return this;
+        }
+
+        int index = bufferIndex(position);
+
+        while (true) {
+            ByteBuffer buffer = buffers[index];
+            int start = position - offsets[index];
+            int size = Math.min(buffer.limit() - start, length);
+
+            copy(buffer, start, dst, offset, size);
+            offset += size;
+            length -= size;
+            position += size;
 
-        while (size > 0) {
-            int length = node.buffer.limit() - node.buffer.position();
-            System.arraycopy(node.buffer.array(), node.buffer.position(), dst, destPos, length);
-            destPos += length;
-            node = buffers.getNext();
+            if (length == 0) {
+                break;
+            }
+
+            index++;
         }
 
-        return this;
-    }
+        current = index;
 
-    /**
-     * @see ByteBuffer#get(byte[],int,int)
-     */
-    public IoBuffer get(byte[] dst, int offset, int length) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        return this;
     }
 
     /**
@@ -435,75 +586,78 @@ public class IoBuffer {
             throw new IndexOutOfBoundsException();
         }
 
-        BufferNode currentNode = buffers.current;
-        BufferNode node = buffers.getFirst();
-
-        while (node != null) {
-            if (node.offset + node.buffer.limit() > index) {
-                byte result = node.buffer.get(index - node.offset);
+        int bufferIndex = bufferIndex(index);
 
-                // Reset the initial position before returning
-                buffers.current = currentNode;
-
-                return result;
-            } else {
-                node = buffers.getNext();
-            }
-        }
-
-        // Reset the initial position before returning
-        buffers.current = currentNode;
-
-        // Unlikely to happen
-        throw new IndexOutOfBoundsException();
+        return buffers[bufferIndex].get(index - offsets[bufferIndex]);
     }
 
     /**
      * @see ByteBuffer#getChar()
+     * Returns the char at the current position and increases the position by 2.
+     *
+     * @return the char at the current position.
+     * @exception BufferUnderflowException if the position is greater than {@code limit - 2}.
      */
-    public IoBuffer getChar() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public char getChar() {
+        return (char) getShort();
     }
 
     /**
      * @see ByteBuffer#getChar(int)
+     * Returns the char at the specified index, without changing the position.
+     *
+     * @param index the index, must not be negative and not greater than {@code limit - 2}.
+     * @return the char at the specified index.
+     * @exception IndexOutOfBoundsException if {@code index} is invalid.
      */
-    public IoBuffer getChar(int index) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public char getChar(int index) {
+        return (char) getShort(index);
     }
 
     /**
      * @see ByteBuffer#getDouble()
+     * Returns the double at the current position and increases the position by 8.
+     *
+     * @return the double at the current position.
+     * @exception BufferUnderflowException if the position is greater than {@code limit - 8}.
      */
-    public IoBuffer getDouble() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public double getDouble() {
+        return Double.longBitsToDouble(getLong());
     }
 
     /**
      * @see ByteBuffer#getDouble(int)
+     * Returns the double at the specified index, without changing the position.
+     *
+     * @param index the index, must not be negative and not greater than {@code limit - 8}.
+     * @return the double at the specified index.
+     * @exception IndexOutOfBoundsException if {@code index} is invalid.
      */
-    public IoBuffer getDouble(int index) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public double getDouble(int index) {
+        return Double.longBitsToDouble(getLong(index));
     }
 
     /**
      * @see ByteBuffer#getFloat()
+     * Returns the float at the current position and increases the position by 4.
+     *
+     * @return the float at the current position.
+     * @exception BufferUnderflowException if the position is greater than {@code limit - 4}.
      */
-    public IoBuffer getFloat() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public float getFloat() {
+        return Float.intBitsToFloat(getInt());
     }
 
     /**
      * @see ByteBuffer#getFloat(int)
+     * Returns the float at the specified index, without changing the position.
+     *
+     * @param index the index, must not be negative and not greater than {@code limit - 4}.
+     * @return the float at the specified index.
+     * @exception IndexOutOfBoundsException if {@code index} is invalid.
      */
-    public IoBuffer getFloat(int index) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public float getFloat(int index) {
+        return Float.intBitsToFloat(getInt(index));
     }
 
     /**
@@ -529,73 +683,103 @@ public class IoBuffer {
         return result;
     }
 
-    /**
-     * Load an int from the underlying byteBuffers, taking the order into account.
-     */
-    private final int loadInt(int index) {
-        int bytes = 0;
-
-        if (order == ByteOrder.BIG_ENDIAN) {
-            for (int i = 0; i < 4; i++) {
-                bytes = bytes << 8;
-                bytes = bytes | (get() & 0xFF);
-            }
-        } else {
-            for (int i = 0; i < 4; i++) {
-                int val = get() & 0xFF;
-                bytes = bytes | (val << (i << 3));
-            }
-        }
-
-        return bytes;
-    }
-
     /**
      * @see ByteBuffer#getInt(int)
+     * Returns the int at the specified index, without changing the position.
+     *
+     * @param index the index, must not be negative and not greater than {@code limit - 4}.
+     * @return the int at the specified index.
+     * @exception IndexOutOfBoundsException if {@code index} is invalid.
      */
-    public IoBuffer getInt(int index) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public int getInt(int index) {
+        checkIndex(index, 4);
+
+        return loadInt(index);
     }
 
     /**
      * @see ByteBuffer#getLong()
+     * Returns the long at the current position and increases the position by 8.
+     *
+     * @return the long at the current position.
+     * @exception BufferUnderflowException if the position is greater than {@code limit - 8}.
      */
-    public IoBuffer getLong() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public long getLong() {
+        int newPosition = position + 8;
+
+        if (newPosition > limit) {
+            throw new BufferUnderflowException();
+        }
+
+        long result = loadLong(position);
+        position = newPosition;
+
+        return result;
     }
 
     /**
      * @see ByteBuffer#getLong(int)
+     * Returns the long at the specified index, without changing the position.
+     *
+     * @param index the index, must not be negative and not greater than {@code limit - 8}.
+     * @return the long at the specified index.
+     * @exception IndexOutOfBoundsException if {@code index} is invalid.
      */
-    public IoBuffer getLong(int index) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public long getLong(int index) {
+        checkIndex(index, 8);
+
+        return loadLong(index);
     }
 
     /**
      * @see ByteBuffer#getShort()
+     * Returns the short at the current position and increases the position by 2.
+     *
+     * @return the short at the current position.
+     * @exception BufferUnderflowException if the position is greater than {@code limit - 2}.
      */
-    public IoBuffer getShort() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public short getShort() {
+        int newPosition = position + 2;
+
+        if (newPosition > limit) {
+            throw new BufferUnderflowException();
+        }
+
+        short result = loadShort(position);
+        position = newPosition;
+
+        return result;
     }
 
     /**
      * @see ByteBuffer#getShort(int)
+     * Returns the short at the specified index, without changing the position.
+     *
+     * @param index the index, must not be negative and not greater than {@code limit - 2}.
+     * @return the short at the specified index.
+     * @exception IndexOutOfBoundsException if {@code index} is invalid.
      */
-    public IoBuffer getShort(int index) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+    public short getShort(int index) {
+        checkIndex(index, 2);
+
+        return loadShort(index);
     }
 
     /**
      * @see ByteBuffer#hashCode()
+     * Calculates this IoBuffer's hash code from the remaining bytes.
+     *
+     * @return the hash code
      */
+    @Override
     public int hashCode() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        int hash = 1;
+
+        for (int i = limit - 1; i >= position; i--) {
+            hash = 31 * hash + get(i);
+        }
+
+        return hash;
     }
 
     /**
@@ -715,37 +899,16 @@ public class IoBuffer {
                     + ") is larger than this buffer limit (" + limit());
         }
 
-        if (buffers.head == null) {
+        if (count == 0) {
             throw new IllegalArgumentException("Cannot set a position over an empty buffer");
         }
 
-        // Find the right current buffer
-        BufferNode currentNode = buffers.getCurrent();
-
-        // The new position might not be on the current buffer.
-        if ((newPosition < currentNode.offset) || (newPosition >= currentNode.offset + currentNode.buffer.limit())) {
-            // Ok, we aren't on the current buffer. Find the new current buffer
-            BufferNode node = buffers.head;
-            int counter = 0;
-
-            while (node != null) {
-                int limit = node.buffer.limit();
-                counter += limit;
+        position = newPosition;
 
-                if (counter >= newPosition) {
-                    // Found
-                    currentNode = node;
-                    break;
-                } else {
-                    node = node.next;
-                }
-            }
+        if (mark > position) {
+            mark = UNSET_MARK;
         }
 
-        position = newPosition;
-        currentNode.buffer.position(position - currentNode.offset);
-        buffers.current = currentNode;
-
         return this;
     }
 
@@ -757,8 +920,7 @@ public class IoBuffer {
      * @return the number of remaining elements in this IoBuffer.
      */
     public int remaining() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        return limit - position;
     }
 
     /**
@@ -769,8 +931,13 @@ public class IoBuffer {
      * @exception InvalidMarkException if the mark is not set.
      */
     public IoBuffer reset() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        if (mark == UNSET_MARK) {
+            throw new InvalidMarkException();
+        }
+
+        position = mark;
+
+        return this;
     }
 
     /**
@@ -783,32 +950,35 @@ public class IoBuffer {
      * @return this IoBuffer.
      */
     public IoBuffer rewind() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        position = 0;
+        mark = UNSET_MARK;
+
+        return this;
     }
 
     /**
      * @see ByteBuffer#slice()
+     * Creates an IoBuffer containing the remaining bytes of this IoBuffer. The bytes
+     * are not copied : the new IoBuffer contains views of the ByteBuffers.
+     *
+     * @return a sliced IoBuffer, with a position of 0 and a limit of {@code remaining()}.
      */
     public IoBuffer slice() {
-        // TODO code me !
-        throw new UnsupportedOperationException();
-    }
+        IoBuffer slice = new IoBuffer(type);
+
+        if (hasRemaining()) {
+            for (int i = bufferIndex(position); (i < count) && (offsets[i] < limit); i++) {
+                ByteBuffer view = buffers[i].duplicate();
+                view.limit(Math.min(limit - offsets[i], view.limit()));
+                view.position(Math.max(position - offsets[i], 0));
+                slice.addBuffer(view.slice().order(buffers[i].order()));
+            }
+        }
 
-    /**
-     * @see ByteBuffer#wrap(byte[])
-     */
-    public IoBuffer wrap(byte[] array) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
-    }
+        slice.order = order;
+        slice.readOnly = readOnly;
 
-    /**
-     * @see ByteBuffer#wrap(byte[], int, int)
-     */
-    public IoBuffer wrap(byte[] array, int offset, int length) {
-        // TODO code me !
-        throw new UnsupportedOperationException();
+        return slice;
     }
 
     /**
@@ -820,189 +990,146 @@ public class IoBuffer {
     }
 
     //------------------------------------------------------------------------------------------------
-    // private inner data structure
+    // private helpers
     //------------------------------------------------------------------------------------------------
     /**
-     * A container for ByterBuffers stored in the buffers list
+     * Find the ByteBuffer containing the byte at a given index, which must be lower than the
+     * length. The sequential reads stay in the current ByteBuffer or move to the next one,
+     * the other ones are found with a binary search on the ByteBuffers offsets.
      */
-    private class BufferNode {
-        /** The stored buffer */
-        private ByteBuffer buffer;
+    private int bufferIndex(int index) {
+        int i = current;
 
-        /** The next buffer in the list */
-        private BufferNode next;
-
-        /** The position of this buffer in the IoBuffer list of bytes */
-        private int offset;
+        if ((i < count) && (index >= offsets[i])) {
+            if (index < offsets[i] + buffers[i].limit()) {
+                return i;
+            }
 
-        /**
-         * Creates a new entry in the list
-         * @param entry The added ByteBuffer
-         */
-        private BufferNode(ByteBuffer byteBuffer) {
-            this.buffer = byteBuffer;
-        }
+            if ((i + 1 < count) && (index < offsets[i + 1] + buffers[i + 1].limit())) {
+                current = i + 1;
 
-        public String toString() {
-            return buffer.toString() + ", Offset:" + offset + (next != null ? " --> \n  " : "");
+                return i + 1;
+            }
         }
-    }
-
-    /**
-     * A LinkedList storing all the ByteBuffers. It can only be browsed forward.
-     */
-    private class BufferList {
-        /** The first ByteBuffer in the list */
-        private BufferNode head;
 
-        /** The last ByteBuffer in the list */
-        private BufferNode tail;
+        int low = 0;
+        int high = count - 1;
 
-        /** The current ByteBuffer in the list */
-        private BufferNode current;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
 
-        /** The number of nodes in the list */
-        private int size;
+            if (offsets[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
 
-        /** The number of bytes in the list */
-        private int length;
+        current = low;
 
-        /** A flag used to indicate that we already have navigated past the tail of the list. */
-        private boolean pastTail;
+        return low;
+    }
 
-        /**
-         * Creates an empty list
-         */
-        private BufferList() {
-            head = tail = current = null;
-            size = 0;
-            length = 0;
-            pastTail = false;
+    /**
+     * Check that the bytes from index to index + size are in the IoBuffer
+     */
+    private void checkIndex(int index, int size) {
+        if ((index < 0) || (index + size > limit)) {
+            throw new IndexOutOfBoundsException();
         }
+    }
 
-        /**
-         * Creates a list with one ByteBuffer
-         * @param byteBuffer The added ByteBuffer
-         */
-        private BufferList(ByteBuffer byteBuffer) {
-            BufferNode node = new BufferNode(byteBuffer);
-            head = tail = current = node;
-            size = 1;
-            length = byteBuffer.limit();
-            pastTail = false;
+    /**
+     * Copy some bytes of a ByteBuffer into an array. The ByteBuffer position is restored
+     * after the copy if it's not backed by an array.
+     */
+    private static void copy(ByteBuffer buffer, int start, byte[] dst, int offset, int size) {
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + start, dst, offset, size);
+        } else {
+            int savedPosition = buffer.position();
+            buffer.position(start);
+            buffer.get(dst, offset, size);
+            buffer.position(savedPosition);
         }
+    }
 
-        /**
-         * Adds a new ByteBuffer in the list
-         * @param byteBuffer The added ByteBuffer
-         */
-        private void add(ByteBuffer byteBuffer) {
-            assert (byteBuffer != null);
-
-            // Check the buffer type
-            if (type == null) {
-                if (byteBuffer.isDirect()) {
-                    type = BufferType.DIRECT;
-                } else {
-                    type = BufferType.HEAP;
-                }
-            } else {
-                if (isDirect() != byteBuffer.isDirect()) {
-                    throw new RuntimeException();
-                }
-            }
-
-            // Check the ByteOrder
-            if (size == 0) {
-                order = byteBuffer.order();
-            } else if (order != byteBuffer.order()) {
-                throw new RuntimeException();
-            }
-
-            BufferNode newNode = new BufferNode(byteBuffer);
-            newNode.offset = length;
+    /**
+     * Load a short from the underlying byteBuffers, taking the order into account.
+     */
+    private short loadShort(int index) {
+        int i = bufferIndex(index);
+        ByteBuffer buffer = buffers[i];
+        int start = index - offsets[i];
 
-            if (size == 0) {
-                head = tail = current = newNode;
-            } else {
-                tail.next = newNode;
-                tail = newNode;
-            }
+        if (start + 2 <= buffer.limit()) {
+            short value = buffer.getShort(start);
 
-            size++;
-            length += byteBuffer.limit();
-            limit = length;
-            pastTail = false;
+            return buffer.order() == order ? value : Short.reverseBytes(value);
         }
 
-        /**
-         * Get the first BufferNode in the list. The current pointer will move
-         * forward, after having be reset to the beginning of the list
-         * @return The first BufferNode in the list
-         */
-        private BufferNode getFirst() {
-            if (head == null) {
-                return null;
-            }
+        return (short) loadSpread(i, start, 2);
+    }
 
-            current = head.next;
-            pastTail = false;
+    /**
+     * Load an int from the underlying byteBuffers, taking the order into account.
+     */
+    private int loadInt(int index) {
+        int i = bufferIndex(index);
+        ByteBuffer buffer = buffers[i];
+        int start = index - offsets[i];
+
+        if (start + 4 <= buffer.limit()) {
+            int value = buffer.getInt(start);
 
-            return head;
+            return buffer.order() == order ? value : Integer.reverseBytes(value);
         }
 
-        /**
-         * Get the next BufferNode from the list. If this is the first time this method
-         * is called, it will return the same value than a getFirst().
-         * @return The next BufferNode in the list, moving forward in the list at the same time
-         */
-        private BufferNode getNext() {
-            if (current == null) {
-                return null;
-            }
+        return (int) loadSpread(i, start, 4);
+    }
 
-            if (current == tail) {
-                if (pastTail) {
-                    return null;
-                } else {
-                    pastTail = true;
+    /**
+     * Load a long from the underlying byteBuffers, taking the order into account.
+     */
+    private long loadLong(int index) {
+        int i = bufferIndex(index);
+        ByteBuffer buffer = buffers[i];
+        int start = index - offsets[i];
 
-                    return current;
-                }
-            } else {
-                current = current.next;
+        if (start + 8 <= buffer.limit()) {
+            long value = buffer.getLong(start);
 
-                return current;
-            }
+            return buffer.order() == order ? value : Long.reverseBytes(value);
         }
 
-        /**
-         * Gets the current BufferNode from the list, if we aren't already past the tail.
-         * @return The current BufferNode
-         */
-        private BufferNode getCurrent() {
-            if (pastTail) {
-                return null;
-            }
-
-            return current;
-        }
+        return loadSpread(i, start, 8);
+    }
 
-        public String toString() {
-            StringBuilder sb = new StringBuilder();
+    /**
+     * Load a value spread over many ByteBuffers, byte by byte, taking the order into account.
+     * 
+     * @param i the index of the ByteBuffer containing the first byte
+     * @param start the position of the first byte in this ByteBuffer
+     * @param size the number of bytes of the value
+     */
+    private long loadSpread(int i, int start, int size) {
+        long value = 0;
 
-            BufferNode node = head;
+        for (int n = 0; n < size; n++) {
+            while (start >= buffers[i].limit()) {
+                i++;
+                start = 0;
+            }
 
-            while (node != null) {
-                if (node == current) {
-                    sb.append("**");
-                }
+            long b = buffers[i].get(start++) & 0xFFL;
 
-                sb.append(node);
-                node = node.next;
+            if (order == ByteOrder.BIG_ENDIAN) {
+                value = (value << 8) | b;
+            } else {
+                value = value | (b << (n << 3));
             }
-
-            return sb.toString();
         }
+
+        return value;
     }
 }
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue for many producer threads and a single consumer thread, backed by arrays.<br>
+ * 
+ * The producers claim a slot by incrementing the producer index with a CAS, then publish the element in the slot. The
+ * consumer waits for the element of a claimed slot to be published before taking it, so the elements are consumed in
+ * the order of their claim.<br>
+ * 
+ * The slots are stored in linked chunks, allocated when the producers reach the end of the last one, so an empty
+ * queue only costs a small chunk whatever its capacity. A chunk is twice as large as the previous one while the queue
+ * fills up, up to the capacity, and goes back to the initial size once the queue has been drained.
+ * 
+ * @param <E> the type of the queued elements
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public final class MpscArrayQueue<E> {
+
+    /** The default number of slots of the first chunk */
+    public static final int DEFAULT_INITIAL_CHUNK_SIZE = 16;
+
+    /** the maximum number of elements */
+    private final int capacity;
+
+    /** the number of slots of the first chunk */
+    private final int initialChunkSize;
+
+    /** the index of the next slot to claim by the producers */
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    /** the index of the next slot to consume, only modified by the consumer */
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /** the chunk of the next slot to consume, only modified by the consumer */
+    private volatile Chunk<E> consumerChunk;
+
+    /** the last chunk found by a producer, where the next producers start looking for their slot */
+    private volatile Chunk<E> producerChunk;
+
+    /**
+     * Create a queue starting with a chunk of {@link #DEFAULT_INITIAL_CHUNK_SIZE} slots
+     * 
+     * @param capacity the maximum number of elements
+     */
+    public MpscArrayQueue(int capacity) {
+        this(capacity, DEFAULT_INITIAL_CHUNK_SIZE);
+    }
+
+    /**
+     * Create a queue
+     * 
+     * @param capacity the maximum number of elements
+     * @param initialChunkSize the number of slots of the first chunk, and of the chunks allocated after the queue has
+     *        been drained
+     */
+    public MpscArrayQueue(int capacity, int initialChunkSize) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity : " + capacity);
+        }
+
+        if (initialChunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid initial chunk size : " + initialChunkSize);
+        }
+
+        this.capacity = capacity;
+        this.initialChunkSize = Math.min(initialChunkSize, capacity);
+
+        Chunk<E> first = new Chunk<E>(0, this.initialChunkSize);
+        consumerChunk = first;
+        producerChunk = first;
+    }
+
+    /**
+     * Add an element at the tail of the queue. Can be called by any thread.
+     * 
+     * @param element the element to add
+     * @return <code>false</code> if the queue is full
+     */
+    public boolean offer(E element) {
+        Assert.assertNotNull(element, "element");
+
+        for (;;) {
+            long index = producerIndex.get();
+
+            if (index - consumerIndex.get() >= capacity) {
+                return false;
+            }
+
+            if (producerIndex.compareAndSet(index, index + 1)) {
+                Chunk<E> chunk = producerChunkOf(index);
+                chunk.slots.lazySet((int) (index - chunk.start), element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Find the chunk of a claimed slot, linking the missing chunks
+     */
+    private Chunk<E> producerChunkOf(long index) {
+        Chunk<E> chunk = producerChunk;
+
+        if (chunk.start > index) {
+            // another producer went further : our slot isn't consumed, so the consumer chunk is not after it
+            chunk = consumerChunk;
+        }
+
+        while (index >= chunk.end()) {
+            Chunk<E> next = chunk.next.get();
+
+            if (next == null) {
+                Chunk<E> created = new Chunk<E>(chunk.end(), nextChunkSize(chunk));
+                next = chunk.next.compareAndSet(null, created) ? created : chunk.next.get();
+            }
+
+            chunk = next;
+        }
+
+        if (chunk.start > producerChunk.start) {
+            producerChunk = chunk;
+        }
+
+        return chunk;
+    }
+
+    /**
+     * @return the size of the chunk following the given one : twice its size if the queue holds more elements than
+     *         it, the initial size otherwise
+     */
+    private int nextChunkSize(Chunk<E> chunk) {
+        if (size() > chunk.slots.length()) {
+            return (int) Math.min((long) chunk.slots.length() * 2, capacity);
+        }
+
+        return initialChunkSize;
+    }
+
+    /**
+     * Remove the element at the head of the queue. Must only be called by the consumer thread.
+     * 
+     * @return the head element, or <code>null</code> if the queue is empty
+     */
+    public E poll() {
+        long index = consumerIndex.get();
+        Chunk<E> chunk = consumerChunk;
+
+        if (index >= chunk.end()) {
+            if (index == producerIndex.get()) {
+                return null;
+            }
+
+            // the slot is claimed, but its producer may not have linked the next chunk yet
+            Chunk<E> next;
+
+            do {
+                next = chunk.next.get();
+            } while (next == null);
+
+            chunk = next;
+            consumerChunk = next;
+        }
+
+        int slot = (int) (index - chunk.start);
+        E element = chunk.slots.get(slot);
+
+        if (element == null) {
+            if (index == producerIndex.get()) {
+                return null;
+            }
+
+            // the slot is claimed, but the producer hasn't published the element yet
+            do {
+                element = chunk.slots.get(slot);
+            } while (element == null);
+        }
+
+        chunk.slots.lazySet(slot, null);
+        consumerIndex.lazySet(index + 1);
+
+        return element;
+    }
+
+    /**
+     * @return <code>true</code> if there is no element in the queue
+     */
+    public boolean isEmpty() {
+        return consumerIndex.get() == producerIndex.get();
+    }
+
+    /**
+     * @return the number of elements in the queue, including the ones being published
+     */
+    public int size() {
+        // read the consumer index first, so the size can't be negative
+        long consumed = consumerIndex.get();
+
+        return (int) (producerIndex.get() - consumed);
+    }
+
+    /**
+     * @return the maximum number of elements of the queue
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * A part of the queue slots, from the index "start"
+     */
+    private static final class Chunk<E> {
+        private final long start;
+
+        private final AtomicReferenceArray<E> slots;
+
+        private final AtomicReference<Chunk<E>> next = new AtomicReference<Chunk<E>>();
+
+        Chunk(long start, int size) {
+            this.start = start;
+            this.slots = new AtomicReferenceArray<E>(size);
+        }
+
+        /**
+         * @return the index following the last slot of this chunk
+         */
+        long end() {
+            return start + slots.length();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A {@link BufferAllocator} recycling the released buffers.
+ * <p>
+ * The requested capacities are rounded up to the next power of two, between a minimal and a maximal size. Each of
+ * those size classes has its own free list. The free lists are kept per thread, so that allocating or releasing a
+ * buffer never takes a lock : the selector loops, which are the main users of this allocator, get their own pool.
+ * Requests bigger than the maximal size are not pooled.
+ * <p>
+ * A thread keeps at most a given number of bytes per size class. When this limit is reached, the released buffers are
+ * left to the garbage collector.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class PooledBufferAllocator implements BufferAllocator {
+    /** The default smallest size class */
+    public static final int DEFAULT_MIN_SIZE = 256;
+
+    /** The default biggest size class */
+    public static final int DEFAULT_MAX_SIZE = 64 * 1024;
+
+    /** The default number of bytes a thread can keep for a size class */
+    public static final int DEFAULT_MAX_CACHED_BYTES = 256 * 1024;
+
+    /** Tells if we allocate direct or heap buffers */
+    private final boolean direct;
+
+    /** The smallest size class */
+    private final int minSize;
+
+    /** log2 of the smallest size class */
+    private final int minShift;
+
+    /** The biggest size class */
+    private final int maxSize;
+
+    /** The maximum number of buffers a thread can keep, for each size class */
+    private final int[] maxCachedBuffers;
+
+    /** The per thread free lists */
+    private final ThreadLocal<ThreadCache> caches = new ThreadLocal<ThreadCache>() {
+        @Override
+        protected ThreadCache initialValue() {
+            return new ThreadCache();
+        }
+    };
+
+    /**
+     * Creates a pool of direct buffers with the default sizes.
+     */
+    public PooledBufferAllocator() {
+        this(true, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_MAX_CACHED_BYTES);
+    }
+
+    /**
+     * Creates a pool of buffers with the default sizes.
+     *
+     * @param direct <code>true</code> for a pool of direct buffers, <code>false</code> for heap buffers
+     */
+    public PooledBufferAllocator(boolean direct) {
+        this(direct, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_MAX_CACHED_BYTES);
+    }
+
+    /**
+     * Creates a pool of buffers.
+     *
+     * @param direct <code>true</code> for a pool of direct buffers, <code>false</code> for heap buffers
+     * @param minSize the smallest size class, rounded up to a power of two
+     * @param maxSize the biggest size class, rounded up to a power of two
+     * @param maxCachedBytes the number of bytes a thread can keep for each size class
+     */
+    public PooledBufferAllocator(boolean direct, int minSize, int maxSize, int maxCachedBytes) {
+        if (minSize <= 0) {
+            throw new IllegalArgumentException("minSize must be positive : " + minSize);
+        }
+
+        if (maxSize < minSize) {
+            throw new IllegalArgumentException("maxSize (" + maxSize + ") is smaller than minSize (" + minSize + ")");
+        }
+
+        this.direct = direct;
+        this.minSize = roundUp(minSize);
+        this.maxSize = roundUp(maxSize);
+        this.minShift = Integer.numberOfTrailingZeros(this.minSize);
+
+        int sizeClasses = Integer.numberOfTrailingZeros(this.maxSize) - minShift + 1;
+        maxCachedBuffers = new int[sizeClasses];
+
+        for (int i = 0; i < sizeClasses; i++) {
+            maxCachedBuffers[i] = Math.max(1, maxCachedBytes / (this.minSize << i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer allocate(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cannot allocate a buffer with a negative capacity : " + capacity);
+        }
+
+        if (capacity > maxSize) {
+            // Too big to be pooled
+            return newBuffer(capacity);
+        }
+
+        int sizeClass = sizeClass(capacity);
+        ByteBuffer buffer = caches.get().poll(sizeClass);
+
+        if (buffer == null) {
+            buffer = newBuffer(minSize << sizeClass);
+        }
+
+        buffer.limit(capacity);
+
+        return buffer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release(ByteBuffer buffer) {
+        if ((buffer == null) || (buffer.isDirect() != direct) || buffer.isReadOnly()) {
+            return;
+        }
+
+        int capacity = buffer.capacity();
+
+        if ((capacity < minSize) || (capacity > maxSize) || ((capacity & (capacity - 1)) != 0)) {
+            // Not a buffer from one of our size classes
+            return;
+        }
+
+        buffer.clear();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        caches.get().offer(sizeClass(capacity), buffer);
+    }
+
+    /**
+     * @return the number of buffers kept by the current thread, for all the size classes
+     */
+    public int getCachedBufferCount() {
+        ThreadCache cache = caches.get();
+        int count = 0;
+
+        for (int size : cache.sizes) {
+            count += size;
+        }
+
+        return count;
+    }
+
+    private ByteBuffer newBuffer(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * @return the index of the smallest size class able to store <code>capacity</code> bytes
+     */
+    private int sizeClass(int capacity) {
+        if (capacity <= minSize) {
+            return 0;
+        }
+
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - minShift;
+    }
+
+    private static int roundUp(int value) {
+        int highest = Integer.highestOneBit(value);
+
+        return highest == value ? value : highest << 1;
+    }
+
+    /**
+     * The free lists of a thread : one stack of buffers per size class.
+     */
+    private class ThreadCache {
+        private final ByteBuffer[][] buffers = new ByteBuffer[maxCachedBuffers.length][];
+
+        private final int[] sizes = new int[maxCachedBuffers.length];
+
+        private ByteBuffer poll(int sizeClass) {
+            int size = sizes[sizeClass];
+
+            if (size == 0) {
+                return null;
+            }
+
+            size--;
+            ByteBuffer[] stack = buffers[sizeClass];
+            ByteBuffer buffer = stack[size];
+            stack[size] = null;
+            sizes[sizeClass] = size;
+
+            return buffer;
+        }
+
+        private void offer(int sizeClass, ByteBuffer buffer) {
+            int size = sizes[sizeClass];
+
+            if (size == maxCachedBuffers[sizeClass]) {
+                // The free list is full, forget this buffer
+                return;
+            }
+
+            ByteBuffer[] stack = buffers[sizeClass];
+
+            if (stack == null) {
+                stack = new ByteBuffer[maxCachedBuffers[sizeClass]];
+                buffers[sizeClass] = stack;
+            }
+
+            stack[size] = buffer;
+            sizes[sizeClass] = size + 1;
+        }
+    }
+}
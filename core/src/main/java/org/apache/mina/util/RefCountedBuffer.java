@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A buffer taken from a {@link RefCountedBufferPool}, shared by several owners. Each owner must call
+ * {@link #release()} once it doesn't use the buffer anymore, and the buffer goes back to its pool when the last owner
+ * releases it.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public final class RefCountedBuffer {
+
+    /** the pool this buffer belongs to */
+    private final RefCountedBufferPool pool;
+
+    private final ByteBuffer buffer;
+
+    /** the number of owners */
+    private final AtomicInteger refCount = new AtomicInteger();
+
+    RefCountedBuffer(RefCountedBufferPool pool, ByteBuffer buffer) {
+        this.pool = pool;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return the pooled buffer
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * @return the current number of owners
+     */
+    public int refCount() {
+        return refCount.get();
+    }
+
+    /**
+     * Add an owner to this buffer
+     * 
+     * @return this buffer
+     */
+    public RefCountedBuffer retain() {
+        for (;;) {
+            int count = refCount.get();
+
+            if (count <= 0) {
+                throw new IllegalStateException("the buffer has already been released");
+            }
+
+            if (refCount.compareAndSet(count, count + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Remove an owner from this buffer. The buffer is given back to its pool when there is no owner anymore, and must
+     * not be used after that.
+     * 
+     * @return <code>true</code> if the buffer went back to the pool
+     */
+    public boolean release() {
+        int count = refCount.decrementAndGet();
+
+        if (count == 0) {
+            pool.recycle(this);
+            return true;
+        }
+
+        if (count < 0) {
+            refCount.incrementAndGet();
+            throw new IllegalStateException("the buffer has already been released");
+        }
+
+        return false;
+    }
+
+    /**
+     * Reset the buffer for a new first owner. Called by the pool.
+     */
+    void reset() {
+        buffer.clear();
+        refCount.set(1);
+    }
+}
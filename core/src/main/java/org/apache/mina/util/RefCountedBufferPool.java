@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of fixed size {@link RefCountedBuffer}s. Unlike the {@link PooledBufferAllocator}, the free list is shared by
+ * all the threads, so a buffer filled by a selector loop can be released by the thread running its {@link
+ * org.apache.mina.api.IoHandler} and reused by the loop.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class RefCountedBufferPool {
+    /** The default size of the buffers */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** The default maximum number of free buffers kept by the pool */
+    public static final int DEFAULT_MAX_POOLED_BUFFERS = 256;
+
+    private final int bufferSize;
+
+    private final int maxPooledBuffers;
+
+    private final boolean direct;
+
+    /** the free buffers */
+    private final Queue<RefCountedBuffer> freeBuffers = new ConcurrentLinkedQueue<RefCountedBuffer>();
+
+    /** the number of free buffers, as the queue size() isn't a constant time operation */
+    private final AtomicInteger freeBufferCount = new AtomicInteger();
+
+    /**
+     * Create a pool of heap buffers of the default size
+     */
+    public RefCountedBufferPool() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS, false);
+    }
+
+    /**
+     * Create a pool
+     * 
+     * @param bufferSize the size of the buffers
+     * @param maxPooledBuffers the maximum number of free buffers kept by the pool, the other ones are left to the
+     *        garbage collector
+     * @param direct <code>true</code> for pooling direct buffers
+     */
+    public RefCountedBufferPool(int bufferSize, int maxPooledBuffers, boolean direct) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Invalid buffer size : " + bufferSize);
+        }
+
+        if (maxPooledBuffers < 0) {
+            throw new IllegalArgumentException("Invalid maximum number of pooled buffers : " + maxPooledBuffers);
+        }
+
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+        this.direct = direct;
+    }
+
+    /**
+     * Get a cleared buffer, owned by the caller only
+     * 
+     * @return a buffer with a reference count of 1
+     */
+    public RefCountedBuffer acquire() {
+        RefCountedBuffer buffer = freeBuffers.poll();
+
+        if (buffer != null) {
+            freeBufferCount.decrementAndGet();
+        } else {
+            buffer = new RefCountedBuffer(this, direct ? ByteBuffer.allocateDirect(bufferSize)
+                    : ByteBuffer.allocate(bufferSize));
+        }
+
+        buffer.reset();
+
+        return buffer;
+    }
+
+    /**
+     * Give back a buffer without owner
+     */
+    void recycle(RefCountedBuffer buffer) {
+        if (freeBufferCount.incrementAndGet() > maxPooledBuffers) {
+            freeBufferCount.decrementAndGet();
+            return;
+        }
+
+        freeBuffers.offer(buffer);
+    }
+
+    /**
+     * @return the size of the buffers
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return the number of free buffers kept by the pool
+     */
+    public int getPooledBufferCount() {
+        return freeBufferCount.get();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.filter.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.codec.ProtocolDecoderException;
+import org.apache.mina.codec.ProtocolDecoderOutput;
+import org.junit.Test;
+
+/**
+ * Tests class {@link LengthPrefixedProtocolDecoder}, and the cumulation done by {@link CumulativeProtocolDecoder}
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class LengthPrefixedProtocolDecoderTest {
+
+    private final List<String> messages = new ArrayList<String>();
+
+    private final ProtocolDecoderOutput<ByteBuffer> output = new ProtocolDecoderOutput<ByteBuffer>() {
+        @Override
+        public void write(ByteBuffer message) {
+            byte[] bytes = new byte[message.remaining()];
+            message.get(bytes);
+            messages.add(new String(bytes));
+        }
+    };
+
+    private static ByteBuffer frames(String... contents) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        for (String content : contents) {
+            buffer.putInt(content.length()).put(content.getBytes());
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+    @Test
+    public void severalMessagesInOneRead() throws ProtocolDecoderException {
+        LengthPrefixedProtocolDecoder decoder = new LengthPrefixedProtocolDecoder();
+        ByteBuffer input = frames("hello", "", "world");
+
+        decoder.decode(input, output);
+
+        assertEquals(3, messages.size());
+        assertEquals("hello", messages.get(0));
+        assertEquals("", messages.get(1));
+        assertEquals("world", messages.get(2));
+        assertEquals(0, input.remaining());
+        assertEquals(0, decoder.getCumulatedBytes());
+    }
+
+    @Test
+    public void messagesSplitByteByByte() throws ProtocolDecoderException {
+        LengthPrefixedProtocolDecoder decoder = new LengthPrefixedProtocolDecoder();
+        ByteBuffer input = frames("hello", "world");
+
+        // the received buffer is reused between the reads, like the selector loop one
+        ByteBuffer read = ByteBuffer.allocate(1);
+
+        while (input.hasRemaining()) {
+            read.clear();
+            read.put(input.get()).flip();
+            decoder.decode(read, output);
+        }
+
+        assertEquals(2, messages.size());
+        assertEquals("hello", messages.get(0));
+        assertEquals("world", messages.get(1));
+        assertEquals(0, decoder.getCumulatedBytes());
+    }
+
+    @Test
+    public void partialMessageIsKept() throws ProtocolDecoderException {
+        LengthPrefixedProtocolDecoder decoder = new LengthPrefixedProtocolDecoder();
+        ByteBuffer input = frames("hello", "world");
+
+        ByteBuffer first = ByteBuffer.allocate(11);
+        first.put(input.array(), 0, 11).flip();
+        decoder.decode(first, output);
+
+        assertEquals(1, messages.size());
+        assertEquals(2, decoder.getCumulatedBytes());
+
+        ByteBuffer second = ByteBuffer.allocate(7);
+        second.put(input.array(), 11, 7).flip();
+        decoder.decode(second, output);
+
+        assertEquals(2, messages.size());
+        assertEquals("world", messages.get(1));
+
+        // a decoder with a partial message is reset by finishDecode()
+        ByteBuffer third = ByteBuffer.allocate(3);
+        third.put(input.array(), 0, 3).flip();
+        decoder.decode(third, output);
+        assertEquals(3, decoder.getCumulatedBytes());
+
+        decoder.finishDecode();
+        assertEquals(0, decoder.getCumulatedBytes());
+    }
+
+    @Test
+    public void tooLongMessage() {
+        LengthPrefixedProtocolDecoder decoder = new LengthPrefixedProtocolDecoder(2, 4);
+
+        try {
+            decoder.decode((ByteBuffer) ByteBuffer.allocate(7).putShort((short) 5).put("hello".getBytes()).flip(),
+                    output);
+            fail();
+        } catch (ProtocolDecoderException e) {
+            // expected
+        }
+
+        assertEquals(0, messages.size());
+        assertEquals(0, decoder.getCumulatedBytes());
+    }
+}
@@ -22,9 +22,15 @@ import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
+import java.nio.ByteBuffer;
+
 import org.apache.mina.api.IoSession;
+import org.apache.mina.codec.ArrayProtocolDecoder;
 import org.apache.mina.codec.ProtocolDecoder;
+import org.apache.mina.codec.ProtocolDecoderOutput;
 import org.apache.mina.codec.ProtocolEncoder;
+import org.apache.mina.filterchain.ReadFilterChainController;
+import org.apache.mina.session.AttributeKey;
 import org.junit.Test;
 
 /**
@@ -75,8 +81,150 @@ public class ProtocolCodecFilterTest {
         when(factory.getDecoder(any(IoSession.class))).thenReturn(decoder);
 
         ProtocolCodecFilter codec = new ProtocolCodecFilter(factory);
-        assertEquals(encoder, codec.getEncoder(null));
-        assertEquals(decoder, codec.getDecoder(null));
+        IoSession session = mock(IoSession.class);
+        assertEquals(encoder, codec.getEncoder(session));
+        assertEquals(decoder, codec.getDecoder(session));
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void session_codec_is_attached() {
+        ProtocolEncoder encoder = mock(ProtocolEncoder.class);
+        ProtocolDecoder decoder = mock(ProtocolDecoder.class);
+        ProtocolCodecFactory factory = mock(ProtocolCodecFactory.class);
+
+        IoSession session = mock(IoSession.class);
+        when(session.getAttribute(any(AttributeKey.class), any())).thenReturn(decoder);
+
+        ProtocolCodecFilter codec = new ProtocolCodecFilter(factory);
+        assertEquals(decoder, codec.getDecoder(session));
+        verify(factory, never()).getDecoder(any(IoSession.class));
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Test
+    public void decoders_are_pooled() {
+        ProtocolDecoder decoder = mock(ProtocolDecoder.class);
+        ProtocolCodecFactory factory = mock(ProtocolCodecFactory.class);
+
+        ProtocolCodecFilter codec = new ProtocolCodecFilter(factory);
+        ProtocolDecoderPool pool = new ProtocolDecoderPool(10);
+        codec.setDecoderPool(pool);
+
+        // the closed session decoder is reset and pooled
+        IoSession closedSession = mock(IoSession.class);
+        when(closedSession.removeAttribute(any(AttributeKey.class))).thenReturn(decoder);
+        codec.sessionClosed(closedSession);
+        verify(decoder).finishDecode();
+        assertEquals(1, pool.getPooledDecoderCount());
+
+        // and given to the next session
+        IoSession newSession = mock(IoSession.class);
+        assertEquals(decoder, codec.getDecoder(newSession));
+        verify(newSession).setAttribute(any(AttributeKey.class), eq(decoder));
+        verify(factory, never()).getDecoder(any(IoSession.class));
+        assertEquals(0, pool.getPooledDecoderCount());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void decoded_messages_are_pushed_to_the_next_filter() {
+        // decode each byte as a message
+        ProtocolDecoder<ByteBuffer, Byte> decoder = new ProtocolDecoder<ByteBuffer, Byte>() {
+            @Override
+            public void decode(ByteBuffer input, ProtocolDecoderOutput<Byte> output) {
+                while (input.hasRemaining()) {
+                    output.write(input.get());
+                }
+            }
+
+            @Override
+            public void finishDecode() {
+            }
+        };
+
+        ReadFilterChainController controller = receive(decoder, new byte[] { 1, 2, 3 });
+
+        verify(controller).callReadNextFilter((byte) 1);
+        verify(controller).callReadNextFilter((byte) 2);
+        verify(controller).callReadNextFilter((byte) 3);
+    }
+
+    @Test
+    public void array_decoders_are_adapted() {
+        // decode each byte as a message, returned in an array
+        ProtocolDecoder<ByteBuffer, Byte> decoder = new ArrayProtocolDecoder<ByteBuffer, Byte>() {
+            @Override
+            public Byte[] decode(ByteBuffer input) {
+                if (!input.hasRemaining()) {
+                    return null;
+                }
+
+                Byte[] messages = new Byte[input.remaining()];
+
+                for (int i = 0; i < messages.length; i++) {
+                    messages[i] = input.get();
+                }
+
+                return messages;
+            }
+
+            @Override
+            public void finishDecode() {
+            }
+        };
+
+        ReadFilterChainController controller = receive(decoder, new byte[] { 1, 2 });
+
+        verify(controller).callReadNextFilter((byte) 1);
+        verify(controller).callReadNextFilter((byte) 2);
+    }
+
+    @Test
+    public void array_decoders_are_called_until_they_return_null() {
+        // decode one frame per call : a length byte followed by the frame bytes, the first one being the message
+        ProtocolDecoder<ByteBuffer, Byte> decoder = new ArrayProtocolDecoder<ByteBuffer, Byte>() {
+            @Override
+            public Byte[] decode(ByteBuffer input) {
+                if (!input.hasRemaining() || input.remaining() < input.get(input.position()) + 1) {
+                    return null;
+                }
+
+                int length = input.get();
+                Byte message = input.get();
+                input.position(input.position() + length - 1);
+
+                return new Byte[] { message };
+            }
+
+            @Override
+            public void finishDecode() {
+            }
+        };
+
+        // two frames in one read
+        ReadFilterChainController controller = receive(decoder, new byte[] { 2, 1, 0, 1, 2 });
+
+        verify(controller).callReadNextFilter((byte) 1);
+        verify(controller).callReadNextFilter((byte) 2);
+    }
+
+    /**
+     * Give the bytes to a codec filter using the decoder, and return the controller receiving the decoded messages.
+     */
+    @SuppressWarnings("unchecked")
+    private ReadFilterChainController receive(ProtocolDecoder<ByteBuffer, Byte> decoder, byte[] bytes) {
+        ProtocolEncoder<Byte, ByteBuffer> encoder = mock(ProtocolEncoder.class);
+
+        ProtocolCodecFactory<Byte, ByteBuffer> factory = mock(ProtocolCodecFactory.class);
+        when(factory.getEncoder(any(IoSession.class))).thenReturn(encoder);
+        when(factory.getDecoder(any(IoSession.class))).thenReturn(decoder);
+
+        IoSession session = mock(IoSession.class);
+        ReadFilterChainController controller = mock(ReadFilterChainController.class);
+
+        ProtocolCodecFilter<Byte, ByteBuffer> codec = new ProtocolCodecFilter<Byte, ByteBuffer>(factory);
+        codec.messageReceived(session, ByteBuffer.wrap(bytes), controller);
+
+        return controller;
+    }
+}
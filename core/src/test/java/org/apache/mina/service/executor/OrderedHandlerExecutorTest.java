@@ -19,6 +19,8 @@
  */
 package org.apache.mina.service.executor;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -57,4 +59,29 @@ public class OrderedHandlerExecutorTest {
         verify(evt).visit(any(EventVisitor.class));
         verifyNoMoreInteractions(evt, session);
     }
+
+    @Test
+    public void batch_metrics() throws InterruptedException {
+        // prepare
+        executor = new OrderedHandlerExecutor(1, 1024, 16);
+        IoSession session = mock(IoSession.class);
+        when(session.getId()).thenReturn(1L);
+
+        Event evt = mock(Event.class);
+        when(evt.getSession()).thenReturn(session);
+
+        // run
+        for (int i = 0; i < 100; i++) {
+            executor.execute(evt);
+        }
+
+        // verify
+        Thread.sleep(200);
+        assertEquals(1, executor.getWorkerCount());
+        assertEquals(0, executor.getQueueDepth(0));
+        assertEquals(100, executor.getDrainedEventCount(0));
+        assertTrue(executor.getMaxDrainSize(0) <= 16);
+        assertTrue(executor.getDrainCount(0) >= 100 / 16);
+        assertTrue(executor.getAverageDrainSize(0) >= 1);
+    }
 }
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.service.executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.session.AttributeKey;
+import org.apache.mina.transport.nio.FixedSelectorLoopPool;
+import org.apache.mina.transport.nio.NioSelectorLoop;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.apache.mina.util.RefCountedBuffer;
+import org.apache.mina.util.RefCountedBufferPool;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SerialHandlerExecutor} : the events of each session are run in order, by one thread at a time.
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class SerialHandlerExecutorTest {
+
+    private static final int CLIENT_COUNT = 4;
+
+    private static final int BYTE_COUNT = 100000;
+
+    private static final AttributeKey<AtomicInteger> NEXT_BYTE = AttributeKey.createKey(AtomicInteger.class,
+            "test.nextByte");
+
+    private static final AttributeKey<AtomicBoolean> RUNNING = AttributeKey.createKey(AtomicBoolean.class,
+            "test.running");
+
+    /** an executor never running the queues */
+    private static final Executor IDLE_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+        }
+    };
+
+    private final CountDownLatch doneLatch = new CountDownLatch(CLIENT_COUNT);
+
+    private final AtomicBoolean failed = new AtomicBoolean(false);
+
+    @Test
+    public void eventsOfEachSessionAreOrdered() throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        NioTcpServer server = new NioTcpServer(new NioSelectorLoop("accept", 0), new FixedSelectorLoopPool("Server",
+                2), new SerialHandlerExecutor(pool, 1 << 16, SerialHandlerExecutor.ABORT_POLICY));
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(IoSession session) {
+                session.setAttribute(NEXT_BYTE, new AtomicInteger());
+                session.setAttribute(RUNNING, new AtomicBoolean());
+            }
+
+            @Override
+            public void messageReceived(IoSession session, Object message) {
+                AtomicBoolean running = session.getAttribute(RUNNING);
+
+                if (!running.compareAndSet(false, true)) {
+                    // another thread is running an event of this session
+                    failed.set(true);
+                }
+
+                ByteBuffer buffer = (ByteBuffer) message;
+                AtomicInteger next = session.getAttribute(NEXT_BYTE);
+
+                while (buffer.hasRemaining()) {
+                    if (buffer.get() != (byte) next.getAndIncrement()) {
+                        failed.set(true);
+                    }
+                }
+
+                running.set(false);
+
+                if (next.get() == BYTE_COUNT) {
+                    doneLatch.countDown();
+                }
+            }
+        });
+        server.bind(0);
+
+        int port = server.getServerSocketChannel().socket().getLocalPort();
+        Socket[] clients = new Socket[CLIENT_COUNT];
+
+        try {
+            for (int i = 0; i < CLIENT_COUNT; i++) {
+                clients[i] = new Socket("127.0.0.1", port);
+            }
+
+            byte[] data = new byte[BYTE_COUNT];
+
+            for (int i = 0; i < BYTE_COUNT; i++) {
+                data[i] = (byte) i;
+            }
+
+            for (Socket client : clients) {
+                OutputStream out = client.getOutputStream();
+
+                // small writes, for getting many events
+                for (int offset = 0; offset < BYTE_COUNT; offset += 100) {
+                    out.write(data, offset, Math.min(100, BYTE_COUNT - offset));
+                }
+            }
+
+            assertTrue(doneLatch.await(5000, TimeUnit.MILLISECONDS));
+            assertFalse(failed.get());
+        } finally {
+            for (Socket client : clients) {
+                if (client != null) {
+                    client.close();
+                }
+            }
+
+            server.unbind();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectedEventsAreGivenToTheHandler() throws IOException, InterruptedException {
+        final CountDownLatch rejectedLatch = new CountDownLatch(1);
+
+        // an executor never running the queues : the open event and the first read fill the queue
+        SerialHandlerExecutor executor = new SerialHandlerExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+            }
+        }, 2, new RejectedEventHandler() {
+            @Override
+            public void rejectedEvent(Event event, IoHandlerExecutor executor) {
+                rejectedLatch.countDown();
+            }
+        });
+
+        NioTcpServer server = new NioTcpServer(new NioSelectorLoop("accept", 0), new FixedSelectorLoopPool("Server",
+                1), executor);
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+        });
+        server.bind(0);
+
+        Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            for (int i = 0; i < 10 && rejectedLatch.getCount() > 0; i++) {
+                client.getOutputStream().write(i);
+                Thread.sleep(50);
+            }
+
+            assertTrue(rejectedLatch.await(5000, TimeUnit.MILLISECONDS));
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void queueIsBoundedToItsSize() throws IOException, InterruptedException {
+        final AtomicInteger rejected = new AtomicInteger();
+
+        // an executor never running the queues
+        SerialHandlerExecutor executor = new SerialHandlerExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+            }
+        }, 3, new RejectedEventHandler() {
+            @Override
+            public void rejectedEvent(Event event, IoHandlerExecutor executor) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        IoSession[] session = new IoSession[1];
+        CountDownLatch openLatch = new CountDownLatch(1);
+        NioTcpServer server = bindSessionCapturingServer(session, openLatch);
+
+        Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            assertTrue(openLatch.await(5000, TimeUnit.MILLISECONDS));
+
+            for (int i = 0; i < 5; i++) {
+                executor.execute(new OpenEvent(session[0]));
+            }
+
+            assertEquals(2, rejected.get());
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void rejectedReceiveEventsAreReleasedOnce() throws IOException, InterruptedException {
+        IoSession[] sessions = new IoSession[2];
+        CountDownLatch openLatch = new CountDownLatch(2);
+        NioTcpServer server = bindSessionCapturingServer(sessions, openLatch);
+
+        int port = server.getServerSocketChannel().socket().getLocalPort();
+        Socket client1 = new Socket("127.0.0.1", port);
+        Socket client2 = new Socket("127.0.0.1", port);
+
+        try {
+            assertTrue(openLatch.await(5000, TimeUnit.MILLISECONDS));
+
+            // the throwing policy leaves the release to the caller, the discarding one to the executor
+            assertEquals(3, fillWithPooledReceiveEvents(sessions[0], IDLE_EXECUTOR, SerialHandlerExecutor.ABORT_POLICY)
+                    .refCount());
+            assertEquals(3,
+                    fillWithPooledReceiveEvents(sessions[1], IDLE_EXECUTOR, SerialHandlerExecutor.DISCARD_POLICY)
+                            .refCount());
+        } finally {
+            client1.close();
+            client2.close();
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void eventsOfRejectedQueuesAreGivenBack() throws IOException, InterruptedException {
+        IoSession[] session = new IoSession[1];
+        CountDownLatch openLatch = new CountDownLatch(1);
+        NioTcpServer server = bindSessionCapturingServer(session, openLatch);
+
+        Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        // an executor rejecting the queues : each event is given back to the caller, which releases it
+        Executor rejectingExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        };
+
+        try {
+            assertTrue(openLatch.await(5000, TimeUnit.MILLISECONDS));
+
+            assertEquals(1, fillWithPooledReceiveEvents(session[0], rejectingExecutor,
+                    SerialHandlerExecutor.ABORT_POLICY).refCount());
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+
+    /**
+     * Push 5 receive events sharing a pooled buffer into a queue of 2 events, retaining and releasing the buffer like
+     * the session does, and return the buffer still held by the queued events and by the reader.
+     */
+    private RefCountedBuffer fillWithPooledReceiveEvents(IoSession session, Executor queueExecutor,
+            RejectedEventHandler rejectedEventHandler) {
+        SerialHandlerExecutor executor = new SerialHandlerExecutor(queueExecutor, 2, rejectedEventHandler);
+
+        RefCountedBuffer buffer = new RefCountedBufferPool(64, 1, false).acquire();
+
+        for (int i = 0; i < 5; i++) {
+            buffer.retain();
+
+            try {
+                executor.execute(new ReceiveEvent(session, buffer.getBuffer(), buffer));
+            } catch (RuntimeException e) {
+                buffer.release();
+            }
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Bind a server storing its opened sessions in the given array.
+     */
+    private NioTcpServer bindSessionCapturingServer(final IoSession[] sessions, final CountDownLatch openLatch)
+            throws IOException {
+        final AtomicInteger openedCount = new AtomicInteger();
+        NioTcpServer server = new NioTcpServer();
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(IoSession opened) {
+                sessions[openedCount.getAndIncrement()] = opened;
+                openLatch.countDown();
+            }
+        });
+        server.bind(0);
+
+        return server;
+    }
+}
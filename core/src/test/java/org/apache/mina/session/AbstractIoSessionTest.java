@@ -38,6 +38,8 @@ import org.apache.mina.api.AbstractIoFilter;
 import org.apache.mina.api.IoFilter;
 import org.apache.mina.api.IoFuture;
 import org.apache.mina.api.IoService;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.api.IoSession.SessionState;
 import org.apache.mina.api.IoSessionConfig;
 import org.apache.mina.filterchain.ReadFilterChainController;
 import org.apache.mina.filterchain.WriteFilterChainController;
@@ -229,6 +231,38 @@ public class AbstractIoSessionTest {
         verify(filter3).messageWriting(eq(session), eq(buffer), any(WriteFilterChainController.class));
     }
 
+    @Test
+    public void chain_write_from_read() {
+        final IoFilter lastWriteFilter = spy(new AbstractIoFilter() {
+            @Override
+            public void messageWriting(IoSession session, WriteRequest message, WriteFilterChainController controller) {
+                // the end of the write chain
+            }
+        });
+
+        final IoFilter echoFilter = spy(new AbstractIoFilter() {
+            @Override
+            public void messageReceived(IoSession session, Object message, ReadFilterChainController controller) {
+                // write in the middle of the read chain, then resume the read chain
+                session.write(message);
+                controller.callReadNextFilter(message);
+            }
+        });
+
+        when(service.getFilters()).thenReturn(new IoFilter[] { lastWriteFilter, echoFilter, filter3 });
+
+        final DummySession session = new DummySession(service);
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        session.processMessageReceived(buffer);
+
+        verify(echoFilter).messageReceived(eq(session), eq(buffer), any(ReadFilterChainController.class));
+        verify(filter3).messageReceived(eq(session), eq(buffer), any(ReadFilterChainController.class));
+        verify(filter3).messageWriting(eq(session), any(WriteRequest.class), any(WriteFilterChainController.class));
+        verify(echoFilter).messageWriting(eq(session), any(WriteRequest.class), any(WriteFilterChainController.class));
+        verify(lastWriteFilter).messageWriting(eq(session), any(WriteRequest.class),
+                any(WriteFilterChainController.class));
+    }
+
     @Test
     public void chain_open() {
         final DummySession session = new DummySession(service);
@@ -255,6 +289,26 @@ public class AbstractIoSessionTest {
         assertEquals(1024, session.getWrittenBytes());
     }
 
+    @Test
+    public void state_transitions() {
+        final DummySession session = new DummySession(service);
+        assertEquals(SessionState.CREATED, session.getState());
+        session.changeState(SessionState.CONNECTED);
+        session.changeState(SessionState.SECURING);
+        assertTrue(session.isSecuring());
+        session.changeState(SessionState.SECURED);
+        assertTrue(session.isConnectedSecured());
+        session.changeState(SessionState.CLOSING);
+        assertTrue(session.isClosing());
+        session.changeState(SessionState.CLOSED);
+        assertEquals(SessionState.CLOSED, session.getState());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void invalid_state_transition() {
+        new DummySession(service).changeState(SessionState.CLOSED);
+    }
+
     private class PassthruFilter extends AbstractIoFilter {
 
     }
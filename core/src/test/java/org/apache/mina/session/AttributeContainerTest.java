@@ -50,7 +50,14 @@ public class AttributeContainerTest {
 
     @Before
     public void setUp() {
-        container = new DefaultAttributeContainer();
+        container = createContainer();
+    }
+
+    /**
+     * @return the container to test
+     */
+    protected AttributeContainer createContainer() {
+        return new DefaultAttributeContainer();
     }
 
     /**
@@ -135,4 +135,34 @@ public class AttributeKeyTest {
 
         assertThat(key1.hashCode(), is(key2.hashCode()));
     }
+
+    /**
+     * Test if two {@link AttributeKey}s with colliding hash codes are different, and get different indexes
+     * @throws Exception
+     */
+    @Test
+    public void equalsWithCollidingHashCode() throws Exception {
+        AttributeKey<Number> key1 = new AttributeKey<Number>(Number.class, "Aa");
+        AttributeKey<Number> key2 = new AttributeKey<Number>(Number.class, "BB");
+
+        assertThat(key1.hashCode(), is(key2.hashCode()));
+        assertThat(key1.equals(key2), is(false));
+        assertThat(key1.getIndex() == key2.getIndex(), is(false));
+    }
+
+    /**
+     * Test if creating again an equal {@link AttributeKey} reuses its index
+     * @throws Exception
+     */
+    @Test
+    public void equalKeysShareTheirIndex() throws Exception {
+        AttributeKey<Number> key = new AttributeKey<Number>(Number.class, "sharedKey");
+        int keyCount = AttributeKey.getKeyCount();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(new AttributeKey<Number>(Number.class, "sharedKey").getIndex(), is(key.getIndex()));
+        }
+
+        assertThat(AttributeKey.getKeyCount(), is(keyCount));
+    }
 }
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.session;
+
+import static org.apache.mina.session.AttributeKey.createKey;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the class {@link IndexedAttributeContainer}, on top of the {@link AttributeContainer} contract
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class IndexedAttributeContainerTest extends AttributeContainerTest {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected AttributeContainer createContainer() {
+        return new IndexedAttributeContainer();
+    }
+
+    @Test
+    public void equalKeysHaveTheSameIndex() {
+        AttributeKey<String> key = createKey(String.class, "indexed.same");
+
+        assertEquals(key.getIndex(), createKey(String.class, "indexed.same").getIndex());
+        assertTrue(key.getIndex() != createKey(String.class, "indexed.other").getIndex());
+    }
+
+    @Test
+    public void keysCreatedAfterTheContainerAreStored() {
+        AttributeContainer container = new IndexedAttributeContainer();
+        AttributeKey<Integer> firstKey = null;
+
+        // enough keys for growing the container many times
+        for (int i = 0; i < 5 * IndexedAttributeContainer.CHUNK_SIZE; i++) {
+            AttributeKey<Integer> key = createKey(Integer.class, "indexed.late." + i);
+
+            if (firstKey == null) {
+                firstKey = key;
+            }
+
+            assertNull(container.getAttribute(key));
+            assertNull(container.setAttribute(key, i));
+        }
+
+        assertEquals(0, container.getAttribute(firstKey).intValue());
+        assertEquals(5 * IndexedAttributeContainer.CHUNK_SIZE, container.getAttributeKeys().size());
+        assertEquals(0, container.removeAttribute(firstKey).intValue());
+        assertNull(container.getAttribute(firstKey));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.nio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests class {@link ElasticSelectorLoopPool}
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class ElasticSelectorLoopPoolTest {
+
+    private static final int WAIT_TIME = 5000;
+
+    private ElasticSelectorLoopPool pool;
+
+    @Before
+    public void setup() {
+        pool = new ElasticSelectorLoopPool("test", 1, 3);
+        pool.setSamplePeriodMillis(10);
+        pool.setGrowThreshold(0.5);
+    }
+
+    @After
+    public void teardown() {
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxSizeCantBeLowerThanMinSize() {
+        new ElasticSelectorLoopPool("test", 2, 1);
+    }
+
+    @Test
+    public void aLoopIsAddedWhenAllAreBusy() throws InterruptedException {
+        final NioSelectorLoop first = pool.getSelectorLoops()[0];
+        keepBusy(first, 300);
+
+        waitForSize(2);
+
+        // the new loop gets the new sessions, and the idle one is enough
+        assertNotSame(first, pool.getSelectorLoop());
+        Thread.sleep(50);
+        assertEquals(2, pool.getSize());
+    }
+
+    @Test
+    public void idleLoopsAreRetired() throws InterruptedException {
+        pool.setRetireDelayMillis(50);
+        keepBusy(pool.getSelectorLoops()[0], 100);
+
+        waitForSize(2);
+        NioSelectorLoop added = pool.getSelectorLoops()[1];
+
+        waitForSize(1);
+        assertTrue(added.isShutdown());
+    }
+
+    @Test
+    public void loopsAreNotRetiredBeforeTheirSessionsAreRegistered() throws IOException, InterruptedException {
+        keepBusy(pool.getSelectorLoops()[0], 100);
+
+        waitForSize(2);
+        NioSelectorLoop added = pool.getSelectorLoops()[1];
+        assertSame(added, pool.getSelectorLoop());
+        pool.setRetireDelayMillis(0);
+
+        // many samplings happen before the session is registered
+        Thread.sleep(200);
+        assertFalse(added.isShutdown());
+
+        Pipe pipe = Pipe.open();
+
+        try {
+            pipe.source().configureBlocking(false);
+            added.register(false, false, true, false, new SelectorListener() {
+                @Override
+                public void ready(boolean accept, boolean connect, boolean read, ByteBuffer readBuffer, boolean write) {
+                }
+            }, pipe.source(), null);
+
+            // the registered session keeps the loop
+            Thread.sleep(100);
+            assertFalse(added.isShutdown());
+            assertEquals(2, pool.getSize());
+        } finally {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    /**
+     * Keep a loop busy with short tasks, so that it goes back to its selector between them
+     */
+    private void keepBusy(final NioSelectorLoop loop, long millis) {
+        final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                long taskEnd = Math.min(end, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1));
+
+                while (System.nanoTime() < taskEnd) {
+                    // spin
+                }
+
+                if (taskEnd < end) {
+                    loop.schedule(this, 0, TimeUnit.MILLISECONDS);
+                }
+            }
+        });
+    }
+
+    private void waitForSize(int size) throws InterruptedException {
+        long start = System.nanoTime();
+
+        while (pool.getSize() != size) {
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(WAIT_TIME));
+            Thread.sleep(1);
+        }
+    }
+}
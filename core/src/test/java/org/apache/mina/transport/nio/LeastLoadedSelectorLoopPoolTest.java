@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.nio;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests class {@link LeastLoadedSelectorLoopPool}
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class LeastLoadedSelectorLoopPoolTest {
+
+    private static final int WAIT_TIME = 5000;
+
+    private NioSelectorLoop[] loops;
+
+    private LeastLoadedSelectorLoopPool pool;
+
+    private Pipe[] pipes;
+
+    @Before
+    public void setup() throws IOException {
+        loops = new NioSelectorLoop[] { new NioSelectorLoop("test", 0), new NioSelectorLoop("test", 1),
+                new NioSelectorLoop("test", 2) };
+        pool = new LeastLoadedSelectorLoopPool(loops);
+        pipes = new Pipe[3];
+
+        for (int i = 0; i < pipes.length; i++) {
+            pipes[i] = Pipe.open();
+            pipes[i].source().configureBlocking(false);
+        }
+    }
+
+    @After
+    public void teardown() throws IOException {
+        for (Pipe pipe : pipes) {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    @Test
+    public void equallyLoadedLoopsAreServedInTurn() {
+        pool.setBusyWeight(0);
+
+        assertSame(loops[0], pool.getSelectorLoop());
+        assertSame(loops[1], pool.getSelectorLoop());
+        assertSame(loops[2], pool.getSelectorLoop());
+        assertSame(loops[0], pool.getSelectorLoop());
+    }
+
+    @Test
+    public void theLoopWithFewerChannelsIsSelected() throws InterruptedException {
+        pool.setBusyWeight(0);
+        pool.setSamplePeriodMillis(1);
+
+        register(loops[0], pipes[0]);
+        register(loops[0], pipes[1]);
+        register(loops[1], pipes[2]);
+
+        waitFor(loops[0], 2);
+        waitFor(loops[1], 1);
+        Thread.sleep(2);
+
+        assertSame(loops[2], pool.getSelectorLoop());
+    }
+
+    @Test
+    public void busyLoopIsAvoided() throws InterruptedException {
+        pool.setBusyWeight(1);
+        pool.setSamplePeriodMillis(20);
+
+        loops[0].execute(new Runnable() {
+            @Override
+            public void run() {
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+
+                while (System.nanoTime() < end) {
+                    // spin
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+
+        while (loops[0].getBusyTimeNanos() < TimeUnit.MILLISECONDS.toNanos(50)) {
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(WAIT_TIME));
+            Thread.sleep(1);
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertNotSame(loops[0], pool.getSelectorLoop());
+        }
+    }
+
+    private void register(NioSelectorLoop loop, Pipe pipe) {
+        loop.register(false, false, true, false, new SelectorListener() {
+            @Override
+            public void ready(boolean accept, boolean connect, boolean read, ByteBuffer readBuffer,
+                    boolean write) {
+            }
+        }, pipe.source(), null);
+    }
+
+    private void waitFor(NioSelectorLoop loop, int channelCount) throws InterruptedException {
+        long start = System.nanoTime();
+
+        while (loop.getRegisteredChannelCount() < channelCount) {
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(WAIT_TIME));
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.nio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests class {@link NioSelectorLoop}
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioSelectorLoopTest {
+
+    private static final int WAIT_TIME = 5000;
+
+    private NioSelectorLoop selectorLoop;
+
+    private Pipe pipe;
+
+    @Before
+    public void setup() throws IOException {
+        selectorLoop = new NioSelectorLoop("test");
+        pipe = Pipe.open();
+        pipe.source().configureBlocking(false);
+        pipe.sink().configureBlocking(false);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        pipe.source().close();
+        pipe.sink().close();
+    }
+
+    @Test
+    public void registrationFromLoopThreadIsImmediate() throws InterruptedException {
+        final CountDownLatch registeredLatch = new CountDownLatch(1);
+        final boolean[] result = new boolean[2];
+
+        assertFalse(selectorLoop.isInLoopThread());
+
+        selectorLoop.register(false, false, true, false, new NullListener(), pipe.source(),
+                new RegistrationCallback() {
+                    @Override
+                    public void done(SelectionKey selectionKey) {
+                        result[0] = selectorLoop.isInLoopThread();
+
+                        final boolean[] done = new boolean[1];
+
+                        selectorLoop.register(false, false, false, true, new NullListener(), pipe.sink(),
+                                new RegistrationCallback() {
+                                    @Override
+                                    public void done(SelectionKey selectionKey) {
+                                        done[0] = true;
+                                    }
+                                });
+
+                        // the callback must have been called before register() returned
+                        result[1] = done[0];
+                        registeredLatch.countDown();
+                    }
+                });
+
+        assertTrue(registeredLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+        assertTrue(result[0]);
+        assertTrue(result[1]);
+    }
+
+    @Test
+    public void readEventsAreDispatched() throws IOException, InterruptedException {
+        final CountDownLatch readLatch = new CountDownLatch(1);
+
+        selectorLoop.register(false, false, true, false, new NullListener() {
+            @Override
+            public void ready(boolean accept, boolean connect, boolean read, ByteBuffer readBuffer, boolean write) {
+                if (read) {
+                    try {
+                        readBuffer.clear();
+                        pipe.source().read(readBuffer);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+
+                    readLatch.countDown();
+                }
+            }
+        }, pipe.source(), null);
+
+        pipe.sink().write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+
+        assertTrue(readLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void tasksAreRunInOrderInTheLoopThread() throws InterruptedException {
+        final List<Integer> order = new ArrayList<Integer>();
+        final CountDownLatch doneLatch = new CountDownLatch(1);
+        final boolean[] inLoop = new boolean[] { true };
+
+        for (int i = 0; i < 100; i++) {
+            final int index = i;
+            selectorLoop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    inLoop[0] &= selectorLoop.isInLoopThread();
+                    order.add(index);
+                }
+            });
+        }
+
+        selectorLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                doneLatch.countDown();
+            }
+        });
+
+        assertTrue(doneLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+        assertTrue(inLoop[0]);
+        assertEquals(100, order.size());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, order.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void scheduledTasksAreRunAfterTheirDelay() throws InterruptedException {
+        final List<String> order = new ArrayList<String>();
+        final CountDownLatch doneLatch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+
+        selectorLoop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                order.add("late");
+                doneLatch.countDown();
+            }
+        }, 200, TimeUnit.MILLISECONDS);
+
+        selectorLoop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                order.add("early");
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        ScheduledTask cancelled = selectorLoop.schedule(new Runnable() {
+            @Override
+            public void run() {
+                order.add("cancelled");
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+        cancelled.cancel();
+
+        assertTrue(doneLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        assertEquals(2, order.size());
+        assertEquals("early", order.get(0));
+        assertEquals("late", order.get(1));
+    }
+
+    private static class NullListener implements SelectorListener {
+        @Override
+        public void ready(boolean accept, boolean connect, boolean read, ByteBuffer readBuffer, boolean write) {
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.nio;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests class {@link ReadBufferSizePredictor}
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class ReadBufferSizePredictorTest {
+
+    @Test
+    public void growsWhenTheBufferIsFilled() {
+        ReadBufferSizePredictor predictor = new ReadBufferSizePredictor(64, 1024, 64 * 1024);
+        assertEquals(1024, predictor.nextReadSize());
+
+        predictor.record(1024);
+        assertEquals(4096, predictor.nextReadSize());
+
+        predictor.record(4096);
+        predictor.record(16384);
+        assertEquals(64 * 1024, predictor.nextReadSize());
+
+        // capped to the maximum
+        predictor.record(64 * 1024);
+        assertEquals(64 * 1024, predictor.nextReadSize());
+    }
+
+    @Test
+    public void shrinksAfterTwoSmallReads() {
+        ReadBufferSizePredictor predictor = new ReadBufferSizePredictor(64, 1024, 64 * 1024);
+
+        predictor.record(100);
+        assertEquals(1024, predictor.nextReadSize());
+
+        predictor.record(100);
+        assertEquals(512, predictor.nextReadSize());
+
+        // a read using more than half of the buffer resets the shrinking
+        predictor.record(100);
+        predictor.record(400);
+        predictor.record(100);
+        assertEquals(512, predictor.nextReadSize());
+
+        for (int i = 0; i < 100; i++) {
+            predictor.record(1);
+        }
+
+        assertEquals(64, predictor.nextReadSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSizes() {
+        new ReadBufferSizePredictor(64, 32, 1024);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.nio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests class {@link SelectedKeySet}
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class SelectedKeySetTest {
+
+    private Selector selector;
+
+    private Pipe pipe;
+
+    private SelectionKey key;
+
+    @Before
+    public void setup() throws IOException {
+        selector = Selector.open();
+        pipe = Pipe.open();
+        pipe.source().configureBlocking(false);
+        key = pipe.source().register(selector, SelectionKey.OP_READ);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        pipe.source().close();
+        pipe.sink().close();
+        selector.close();
+    }
+
+    @Test
+    public void addGrowsTheArray() {
+        SelectedKeySet keySet = new SelectedKeySet();
+
+        for (int i = 0; i < 5000; i++) {
+            keySet.add(key);
+        }
+
+        assertFalse(keySet.add(null));
+        assertEquals(5000, keySet.size());
+        assertSame(key, keySet.keys()[4999]);
+
+        int count = 0;
+
+        for (Iterator<SelectionKey> it = keySet.iterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+
+        assertEquals(5000, count);
+    }
+
+    @Test
+    public void resetForgetsTheKeys() {
+        SelectedKeySet keySet = new SelectedKeySet();
+        keySet.add(key);
+        keySet.add(key);
+
+        keySet.reset();
+
+        assertEquals(0, keySet.size());
+        assertNull(keySet.keys()[0]);
+        assertNull(keySet.keys()[1]);
+        assertFalse(keySet.contains(key));
+        assertFalse(keySet.remove(key));
+    }
+}
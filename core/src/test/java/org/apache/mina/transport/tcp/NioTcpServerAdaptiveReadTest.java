@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.junit.Test;
+
+/**
+ * Test the {@link NioTcpServer} sessions reading a large transfer : the read size must grow from its initial guess,
+ * and the bytes must be received in order whatever the number of reads per event.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpServerAdaptiveReadTest {
+
+    private static final int BYTE_COUNT = 4000000;
+
+    private final CountDownLatch doneLatch = new CountDownLatch(1);
+
+    private volatile boolean corrupted;
+
+    private volatile int largestMessage;
+
+    private int nextByte;
+
+    @Test
+    public void readSizeGrowsForLargeTransfers() throws IOException, InterruptedException {
+        NioTcpServer server = new NioTcpServer();
+        server.getSessionConfig().setMaxReadsPerEvent(2);
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void messageReceived(IoSession session, Object message) {
+                ByteBuffer buffer = (ByteBuffer) message;
+                largestMessage = Math.max(largestMessage, buffer.remaining());
+
+                while (buffer.hasRemaining()) {
+                    if (buffer.get() != (byte) nextByte++) {
+                        corrupted = true;
+                    }
+                }
+
+                if (nextByte == BYTE_COUNT) {
+                    doneLatch.countDown();
+                }
+            }
+        });
+        server.bind(0);
+
+        Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            byte[] data = new byte[BYTE_COUNT];
+
+            for (int i = 0; i < BYTE_COUNT; i++) {
+                data[i] = (byte) i;
+            }
+
+            OutputStream out = client.getOutputStream();
+            out.write(data);
+
+            assertTrue(doneLatch.await(5000, TimeUnit.MILLISECONDS));
+            assertFalse(corrupted);
+
+            // the initial guess is 2048 bytes
+            assertTrue(largestMessage > 2048);
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+}
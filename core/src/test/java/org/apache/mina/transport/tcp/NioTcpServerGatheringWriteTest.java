@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.junit.Test;
+
+/**
+ * Test the gathering writes of the {@link NioTcpServer} sessions : the messages must be received in order and each of
+ * them must generate a message sent event.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpServerGatheringWriteTest {
+
+    private static final int MESSAGE_COUNT = 10000;
+
+    private static final int WAIT_TIME = 5000;
+
+    private final CountDownLatch msgSentLatch = new CountDownLatch(MESSAGE_COUNT);
+
+    @Test
+    public void gatheredMessagesAreWrittenInOrder() throws IOException, InterruptedException {
+        final NioTcpServer server = new NioTcpServer();
+        server.setFilters();
+        server.getSessionConfig().setGatheringWriteMaxMessages(16);
+        server.getSessionConfig().setGatheringWriteMaxBytes(1024);
+        server.setIoHandler(new Handler());
+        server.bind(0);
+
+        final int port = server.getServerSocketChannel().socket().getLocalPort();
+        final Socket client = new Socket("127.0.0.1", port);
+
+        try {
+            // the server floods us with small messages as soon as we are connected
+            DataInputStream in = new DataInputStream(client.getInputStream());
+
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                assertEquals(i, in.readInt());
+            }
+
+            assertTrue(msgSentLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void atLeastOneMessagePerWrite() {
+        new DefaultTcpSessionConfig().setGatheringWriteMaxMessages(0);
+    }
+
+    private class Handler extends AbstractIoHandler {
+
+        @Override
+        public void sessionOpened(final IoSession session) {
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                ByteBuffer message = ByteBuffer.allocate(4);
+                message.putInt(i).flip();
+                session.write(message);
+            }
+        }
+
+        @Override
+        public void messageSent(final IoSession session, final Object message) {
+            msgSentLatch.countDown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.FixedSelectorLoopPool;
+import org.apache.mina.transport.nio.NioSelectorLoop;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.apache.mina.transport.nio.SelectorLoop;
+import org.junit.Test;
+
+/**
+ * Test a {@link NioTcpServer} accepting the connections in many selector loops, by batches.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpServerMultiAcceptTest {
+
+    private static final int CLIENT_COUNT = 50;
+
+    private static final int WAIT_TIME = 5000;
+
+    private final CountDownLatch openLatch = new CountDownLatch(CLIENT_COUNT);
+
+    @Test
+    public void connectionsAreAcceptedByAllTheLoops() throws IOException, InterruptedException {
+        NioTcpServer server = new NioTcpServer(new SelectorLoop[] { new NioSelectorLoop("accept", 0),
+                new NioSelectorLoop("accept", 1) }, new FixedSelectorLoopPool("Server", 2), null);
+        server.setAcceptBatchSize(8);
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(IoSession session) {
+                openLatch.countDown();
+            }
+        });
+        server.bind(0);
+
+        int port = server.getServerSocketChannel().socket().getLocalPort();
+        Socket[] clients = new Socket[CLIENT_COUNT];
+
+        try {
+            for (int i = 0; i < CLIENT_COUNT; i++) {
+                clients[i] = new Socket("127.0.0.1", port);
+            }
+
+            assertTrue(openLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            assertEquals(CLIENT_COUNT, server.getAcceptedSessionCount());
+            assertEquals(CLIENT_COUNT, server.getManagedSessions().size());
+        } finally {
+            for (Socket client : clients) {
+                if (client != null) {
+                    client.close();
+                }
+            }
+
+            server.unbind();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void acceptBatchSizeMustBePositive() {
+        new NioTcpServer().setAcceptBatchSize(0);
+    }
+}
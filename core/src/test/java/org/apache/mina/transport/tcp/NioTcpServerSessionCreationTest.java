@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IdleStatus;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.junit.Test;
+
+/**
+ * Test the creation of the sessions of a {@link NioTcpServer} from its session configuration snapshot, by the accept
+ * loop or by the read/write selector loops.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpServerSessionCreationTest {
+
+    private static final int WAIT_TIME = 5000;
+
+    @Test
+    public void sessionsAreCreatedInTheSelectorLoops() throws IOException, InterruptedException {
+        final NioTcpServer server = new NioTcpServer();
+        server.setCreateSessionInSelectorLoop(true);
+        server.getSessionConfig().setTcpNoDelay(true);
+        server.getSessionConfig().setIdleTimeInMillis(IdleStatus.READ_IDLE, 60000);
+        server.getSessionConfig().setMaxReadsPerEvent(3);
+
+        final IoSession[] sessions = new IoSession[3];
+        final String[] threads = new String[3];
+        final CountDownLatch openLatch = new CountDownLatch(3);
+
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public synchronized void sessionOpened(final IoSession session) {
+                int index = (int) (3 - openLatch.getCount());
+                sessions[index] = session;
+                threads[index] = Thread.currentThread().getName();
+                openLatch.countDown();
+            }
+        });
+        server.bind(0);
+
+        final int port = server.getServerSocketChannel().socket().getLocalPort();
+        final Socket[] clients = new Socket[3];
+
+        try {
+            for (int i = 0; i < clients.length; i++) {
+                clients[i] = new Socket("127.0.0.1", port);
+            }
+
+            assertTrue(openLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+
+            for (int i = 0; i < sessions.length; i++) {
+                TcpSessionConfig config = (TcpSessionConfig) sessions[i].getConfig();
+                assertTrue(config.isTcpNoDelay());
+                assertEquals(60000, config.getIdleTimeInMillis(IdleStatus.READ_IDLE));
+                assertEquals(3, config.getMaxReadsPerEvent());
+                assertFalse("SelectorWorker accept".equals(threads[i]));
+            }
+        } finally {
+            for (Socket client : clients) {
+                if (client != null) {
+                    client.close();
+                }
+            }
+
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void configChangesAreAppliedToTheNextSessions() throws IOException, InterruptedException {
+        final NioTcpServer server = new NioTcpServer();
+        server.getSessionConfig().setMaxReadsPerEvent(3);
+
+        final IoSession[] session = new IoSession[1];
+        final CountDownLatch[] openLatch = new CountDownLatch[] { new CountDownLatch(1) };
+
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(final IoSession opened) {
+                session[0] = opened;
+                openLatch[0].countDown();
+            }
+        });
+        server.bind(0);
+
+        final int port = server.getServerSocketChannel().socket().getLocalPort();
+
+        try {
+            // the accept loop reads the configuration for each session
+            server.getSessionConfig().setMaxReadsPerEvent(5);
+            final Socket client = new Socket("127.0.0.1", port);
+            assertTrue(openLatch[0].await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            assertEquals(5, ((TcpSessionConfig) session[0].getConfig()).getMaxReadsPerEvent());
+            client.close();
+        } finally {
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void configChangesAreAppliedOnRefresh() throws IOException, InterruptedException {
+        final NioTcpServer server = new NioTcpServer();
+        server.setCreateSessionInSelectorLoop(true);
+        server.getSessionConfig().setMaxReadsPerEvent(3);
+
+        final IoSession[] session = new IoSession[1];
+        final CountDownLatch[] openLatch = new CountDownLatch[] { new CountDownLatch(1) };
+
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(final IoSession opened) {
+                session[0] = opened;
+                openLatch[0].countDown();
+            }
+        });
+        server.bind(0);
+
+        final int port = server.getServerSocketChannel().socket().getLocalPort();
+
+        try {
+            // not applied until the configuration is read again
+            server.getSessionConfig().setMaxReadsPerEvent(5);
+            Socket client = new Socket("127.0.0.1", port);
+            assertTrue(openLatch[0].await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            assertEquals(3, ((TcpSessionConfig) session[0].getConfig()).getMaxReadsPerEvent());
+            client.close();
+
+            server.refreshSessionConfig();
+            openLatch[0] = new CountDownLatch(1);
+            client = new Socket("127.0.0.1", port);
+            assertTrue(openLatch[0].await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            assertEquals(5, ((TcpSessionConfig) session[0].getConfig()).getMaxReadsPerEvent());
+            client.close();
+        } finally {
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void socketIsClosedWhenTheSessionCreationFails() throws Exception {
+        final NioTcpServer server = new NioTcpServer();
+        server.setCreateSessionInSelectorLoop(true);
+
+        // an uninitialized context can't create the SSL engine of the sessions
+        server.getSessionConfig().setSslContext(SSLContext.getInstance("TLS"));
+
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+        });
+        server.bind(0);
+
+        final Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            client.setSoTimeout(WAIT_TIME);
+            assertEquals(-1, client.getInputStream().read());
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void failedSessionsAreNotManaged() throws Exception {
+        final NioTcpServer server = new NioTcpServer();
+
+        // the session is created before its SSL engine, which can't be created by an uninitialized context
+        server.getSessionConfig().setSslContext(SSLContext.getInstance("TLS"));
+
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+        });
+        server.bind(0);
+
+        final Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            // the socket is closed once the session creation failed
+            client.setSoTimeout(WAIT_TIME);
+            assertEquals(-1, client.getInputStream().read());
+
+            assertTrue(server.getManagedSessions().isEmpty());
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+}
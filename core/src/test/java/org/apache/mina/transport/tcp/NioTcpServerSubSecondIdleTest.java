@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IdleStatus;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.junit.Test;
+
+/**
+ * Test the sub-second idle detection of the {@link NioTcpServer} sessions, done by the selector loop idle checker.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpServerSubSecondIdleTest {
+
+    private static final int WAIT_TIME = 5000;
+
+    private final CountDownLatch bothIdleLatch = new CountDownLatch(1);
+
+    private final List<IdleStatus> events = new ArrayList<IdleStatus>();
+
+    private volatile long openTime;
+
+    private volatile long bothIdleTime;
+
+    @Test
+    public void subSecondIdleEvents() throws IOException, InterruptedException {
+        final NioTcpServer server = new NioTcpServer();
+        server.setFilters();
+        server.getSessionConfig().setIdleTimeInMillis(IdleStatus.READ_IDLE, 200);
+        server.getSessionConfig().setIdleTimeInMillis(IdleStatus.BOTH_IDLE, 400);
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(final IoSession session) {
+                openTime = System.currentTimeMillis();
+            }
+
+            @Override
+            public void sessionIdle(final IoSession session, final IdleStatus status) {
+                synchronized (events) {
+                    events.add(status);
+                }
+
+                if (status == IdleStatus.BOTH_IDLE) {
+                    bothIdleTime = System.currentTimeMillis();
+                    bothIdleLatch.countDown();
+                }
+            }
+        });
+        server.bind(0);
+
+        final Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            assertTrue(bothIdleLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            assertTrue(bothIdleTime - openTime < 1000);
+
+            synchronized (events) {
+                // each status fires once until the next I/O, no write idle as it's not configured
+                assertEquals(2, events.size());
+                assertEquals(IdleStatus.READ_IDLE, events.get(0));
+                assertEquals(IdleStatus.BOTH_IDLE, events.get(1));
+            }
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void noIdleEventWhileReceiving() throws IOException, InterruptedException {
+        final CountDownLatch readIdleLatch = new CountDownLatch(1);
+        final NioTcpServer server = new NioTcpServer();
+        server.setFilters();
+        server.getSessionConfig().setIdleTimeInMillis(IdleStatus.READ_IDLE, 200);
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionIdle(final IoSession session, final IdleStatus status) {
+                readIdleLatch.countDown();
+            }
+        });
+        server.bind(0);
+
+        final Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            // the deadline is moved lazily, the session must not be idle while the client is sending
+            for (int i = 0; i < 12; i++) {
+                client.getOutputStream().write(i);
+                Thread.sleep(50);
+                assertEquals(1, readIdleLatch.getCount());
+            }
+
+            assertTrue(readIdleLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+
+    @Test
+    public void noIdleEventAfterClose() throws IOException, InterruptedException {
+        final CountDownLatch closedLatch = new CountDownLatch(1);
+        final NioTcpServer server = new NioTcpServer();
+        server.setFilters();
+        server.getSessionConfig().setIdleTimeInMillis(IdleStatus.READ_IDLE, 100);
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(final IoSession session) {
+                // flushed then closed : the session stays in the closing state
+                session.close(false);
+                closedLatch.countDown();
+            }
+
+            @Override
+            public void sessionIdle(final IoSession session, final IdleStatus status) {
+                synchronized (events) {
+                    events.add(status);
+                }
+            }
+        });
+        server.bind(0);
+
+        final Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            assertTrue(closedLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            Thread.sleep(500);
+
+            synchronized (events) {
+                assertTrue(events.isEmpty());
+            }
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+}
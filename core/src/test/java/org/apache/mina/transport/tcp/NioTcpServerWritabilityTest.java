@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.junit.Test;
+
+/**
+ * Test the write queue watermarks of the {@link NioTcpServer} sessions.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpServerWritabilityTest {
+
+    private static final int WAIT_TIME = 5000;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final CountDownLatch notWritableLatch = new CountDownLatch(1);
+
+    private final CountDownLatch writableLatch = new CountDownLatch(1);
+
+    private volatile IoSession session;
+
+    private volatile boolean readSuspendedWhenNotWritable;
+
+    private volatile long written;
+
+    @Test
+    public void writeQueueWatermarks() throws IOException, InterruptedException {
+        final NioTcpServer server = new NioTcpServer();
+        server.setFilters();
+        server.getSessionConfig().setWriteQueueHighWatermark(4 * CHUNK_SIZE);
+        server.getSessionConfig().setWriteQueueLowWatermark(CHUNK_SIZE);
+        server.getSessionConfig().setSuspendReadWhenNotWritable(true);
+        server.setIoHandler(new Handler());
+        server.bind(0);
+
+        final Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            // we don't read : the server write queue must fill up
+            assertTrue(notWritableLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            assertFalse(session.isWritable());
+            assertTrue(readSuspendedWhenNotWritable);
+            assertTrue(session.getWriteQueueBytes() >= 4 * CHUNK_SIZE);
+
+            // now drain the socket
+            InputStream in = client.getInputStream();
+            byte[] buffer = new byte[CHUNK_SIZE];
+            long read = 0;
+
+            while (read < written) {
+                read += in.read(buffer);
+            }
+
+            assertTrue(writableLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            assertTrue(session.isWritable());
+            assertFalse(session.isReadSuspended());
+            assertEquals(0, session.getWriteQueueBytes());
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidHighWatermark() {
+        new DefaultTcpSessionConfig().setWriteQueueHighWatermark(-2);
+    }
+
+    private class Handler extends AbstractIoHandler {
+
+        @Override
+        public void sessionOpened(final IoSession session) {
+            NioTcpServerWritabilityTest.this.session = session;
+
+            // flood the client, until the write queue is full
+            while (session.isWritable()) {
+                session.write(ByteBuffer.allocate(CHUNK_SIZE));
+                written += CHUNK_SIZE;
+            }
+        }
+
+        @Override
+        public void sessionWritabilityChanged(final IoSession session, final boolean writable) {
+            if (writable) {
+                writableLatch.countDown();
+            } else {
+                readSuspendedWhenNotWritable = session.isReadSuspended();
+                notWritableLatch.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.junit.Test;
+
+/**
+ * Test the writes done on a {@link NioTcpServer} session by many threads : they are handed over to the selector loop,
+ * and the messages of each thread must be received in order.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpSessionConcurrentWriteTest {
+
+    private static final int THREAD_COUNT = 4;
+
+    private static final int MESSAGE_COUNT = 5000;
+
+    private static final int WAIT_TIME = 5000;
+
+    private final CountDownLatch openLatch = new CountDownLatch(1);
+
+    private volatile IoSession session;
+
+    @Test
+    public void messagesOfEachWriterAreOrdered() throws IOException, InterruptedException {
+        final NioTcpServer server = new NioTcpServer();
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(final IoSession session) {
+                NioTcpSessionConcurrentWriteTest.this.session = session;
+                openLatch.countDown();
+            }
+        });
+        server.bind(0);
+
+        final Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            assertTrue(openLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+
+            for (int t = 0; t < THREAD_COUNT; t++) {
+                final int writer = t;
+
+                new Thread() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < MESSAGE_COUNT; i++) {
+                            ByteBuffer message = ByteBuffer.allocate(8);
+                            message.putInt(writer).putInt(i).flip();
+                            session.write(message);
+                        }
+                    }
+                }.start();
+            }
+
+            DataInputStream in = new DataInputStream(client.getInputStream());
+            int[] expected = new int[THREAD_COUNT];
+
+            for (int i = 0; i < THREAD_COUNT * MESSAGE_COUNT; i++) {
+                int writer = in.readInt();
+                assertEquals(expected[writer]++, in.readInt());
+            }
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+}
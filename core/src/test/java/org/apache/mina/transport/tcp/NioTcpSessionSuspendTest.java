@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the read and write suspension of the {@link NioTcpServer} sessions.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpSessionSuspendTest {
+
+    private static final int WAIT_TIME = 5000;
+
+    private final CountDownLatch openLatch = new CountDownLatch(1);
+
+    private final CountDownLatch msgReadLatch = new CountDownLatch(1);
+
+    private volatile IoSession session;
+
+    private NioTcpServer server;
+
+    private Socket client;
+
+    @Before
+    public void setup() throws IOException, InterruptedException {
+        server = new NioTcpServer();
+        server.setFilters();
+        server.setIoHandler(new Handler());
+        server.bind(0);
+
+        client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+        assertTrue(openLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+    }
+
+    @After
+    public void teardown() throws IOException {
+        client.close();
+        server.unbind();
+    }
+
+    @Test
+    public void suspendedReadDelaysTheReception() throws IOException, InterruptedException {
+        session.suspendRead();
+        assertTrue(session.isReadSuspended());
+
+        client.getOutputStream().write("test".getBytes());
+        client.getOutputStream().flush();
+
+        assertFalse(msgReadLatch.await(500, TimeUnit.MILLISECONDS));
+
+        session.resumeRead();
+        assertFalse(session.isReadSuspended());
+        assertTrue(msgReadLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void suspendedWriteDelaysTheEmission() throws IOException {
+        session.suspendWrite();
+        assertTrue(session.isWriteSuspended());
+
+        session.write(ByteBuffer.wrap("test".getBytes()));
+
+        client.setSoTimeout(500);
+        InputStream in = client.getInputStream();
+
+        try {
+            in.read();
+            throw new AssertionError("the message should not have been sent");
+        } catch (SocketTimeoutException e) {
+            // expected
+        }
+
+        session.resumeWrite();
+        assertFalse(session.isWriteSuspended());
+
+        client.setSoTimeout(WAIT_TIME);
+        byte[] buffer = new byte[4];
+        int read = 0;
+
+        while (read < buffer.length) {
+            read += in.read(buffer, read, buffer.length - read);
+        }
+
+        assertEquals("test", new String(buffer));
+    }
+
+    private class Handler extends AbstractIoHandler {
+
+        @Override
+        public void sessionOpened(final IoSession session) {
+            NioTcpSessionSuspendTest.this.session = session;
+            openLatch.countDown();
+        }
+
+        @Override
+        public void messageReceived(final IoSession session, final Object message) {
+            msgReadLatch.countDown();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoFuture;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.junit.Test;
+
+/**
+ * Test the futures of the writes done on a {@link NioTcpServer} session out of its selector loop : they must all be
+ * completed, even when the loop writes the message before the writer thread returns.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpSessionWriteFutureTest {
+
+    private static final int WAIT_TIME = 5000;
+
+    private static final int MESSAGE_COUNT = 20000;
+
+    private final CountDownLatch openLatch = new CountDownLatch(1);
+
+    private volatile IoSession session;
+
+    @Test
+    public void futuresOfForeignWritesAreCompleted() throws IOException, InterruptedException {
+        final NioTcpServer server = new NioTcpServer();
+        server.setFilters();
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(final IoSession session) {
+                NioTcpSessionWriteFutureTest.this.session = session;
+                openLatch.countDown();
+            }
+        });
+        server.bind(0);
+
+        final Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            assertTrue(openLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+
+            final List<IoFuture<Void>> futures = new ArrayList<IoFuture<Void>>();
+
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        DataInputStream in = new DataInputStream(client.getInputStream());
+
+                        for (int i = 0; i < MESSAGE_COUNT; i++) {
+                            in.readInt();
+                        }
+                    } catch (IOException e) {
+                        // the test fails on the futures
+                    }
+                }
+            }.start();
+
+            for (int i = 0; i < MESSAGE_COUNT; i++) {
+                ByteBuffer message = ByteBuffer.allocate(4);
+                message.putInt(i).flip();
+                futures.add(session.writeWithFuture(message));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_TIME);
+
+            for (IoFuture<Void> future : futures) {
+                while (!future.isDone()) {
+                    assertTrue(System.nanoTime() < deadline);
+                    Thread.sleep(1);
+                }
+            }
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.transport.tcp;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.mina.api.AbstractIoHandler;
+import org.apache.mina.api.IoSession;
+import org.apache.mina.transport.nio.NioTcpServer;
+import org.apache.mina.util.BufferAllocator;
+import org.junit.Test;
+
+/**
+ * Test that the pooled buffers of the messages still in the write queue of a {@link NioTcpServer} session are given
+ * back to the allocator when the session is closed.
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class NioTcpSessionWriteQueueReleaseTest {
+
+    private static final int WAIT_TIME = 5000;
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int CHUNK_COUNT = 64;
+
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    private final AtomicInteger released = new AtomicInteger();
+
+    private final CountDownLatch writtenLatch = new CountDownLatch(1);
+
+    private volatile IoSession session;
+
+    @Test
+    public void queuedBuffersAreReleasedOnClose() throws IOException, InterruptedException {
+        final NioTcpServer server = new NioTcpServer();
+        server.setFilters();
+        server.setBufferAllocator(new BufferAllocator() {
+            @Override
+            public ByteBuffer allocate(int capacity) {
+                allocated.incrementAndGet();
+                return ByteBuffer.allocateDirect(capacity);
+            }
+
+            @Override
+            public void release(ByteBuffer buffer) {
+                released.incrementAndGet();
+            }
+        });
+        server.setIoHandler(new AbstractIoHandler() {
+            @Override
+            public void sessionOpened(final IoSession session) {
+                NioTcpSessionWriteQueueReleaseTest.this.session = session;
+
+                for (int i = 0; i < CHUNK_COUNT; i++) {
+                    session.write(ByteBuffer.allocate(CHUNK_SIZE));
+                }
+
+                writtenLatch.countDown();
+            }
+        });
+        server.bind(0);
+
+        // we never read : most of the messages stay in the write queue
+        final Socket client = new Socket("127.0.0.1", server.getServerSocketChannel().socket().getLocalPort());
+
+        try {
+            assertTrue(writtenLatch.await(WAIT_TIME, TimeUnit.MILLISECONDS));
+            assertTrue(session.getWriteQueueBytes() > 0);
+
+            session.close(true);
+
+            long start = System.nanoTime();
+
+            while (released.get() < allocated.get()) {
+                assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(WAIT_TIME));
+                Thread.sleep(1);
+            }
+        } finally {
+            client.close();
+            server.unbind();
+        }
+    }
+}
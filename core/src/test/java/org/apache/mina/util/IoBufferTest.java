@@ -322,6 +322,37 @@ public class IoBufferTest {
         }
     }
 
+    /**
+     * Test the bulk get() method on a IoBuffer containing two direct ByteBuffers : the position of the ByteBuffers
+     * must not be modified
+     */
+    @Test
+    public void testBulkGetTwoDirectBuffers() {
+        ByteBuffer bb1 = ByteBuffer.allocateDirect(5);
+        bb1.put("012".getBytes());
+        bb1.flip();
+
+        ByteBuffer bb2 = ByteBuffer.allocateDirect(5);
+        bb2.put("345".getBytes());
+        bb2.flip();
+
+        IoBuffer ioBuffer = new IoBuffer(bb1, bb2);
+
+        byte[] bytes = new byte[4];
+        ioBuffer.get(bytes);
+
+        assertTrue(Arrays.equals(new byte[] { '0', '1', '2', '3' }, bytes));
+        assertEquals(4, ioBuffer.position());
+        assertEquals(0, bb1.position());
+        assertEquals(0, bb2.position());
+
+        bytes = new byte[2];
+        ioBuffer.get(bytes);
+
+        assertTrue(Arrays.equals(new byte[] { '4', '5' }, bytes));
+        assertEquals(0, bb2.position());
+    }
+
     //-------------------------------------------------------------------------
     // Test the array() method. We will check those cases :
     // 1) array over an empty buffer: we should get an empty byte array
@@ -793,4 +824,192 @@ public class IoBufferTest {
             assertEquals('0' + i, ioBuffer.get());
         }
     }
+
+    /**
+     * Test the get(byte[]) method over many buffers
+     */
+    @Test
+    public void testGetBytesOverBuffers() {
+        ByteBuffer bb1 = ByteBuffer.wrap("012".getBytes());
+        ByteBuffer bb2 = ByteBuffer.wrap("3456".getBytes());
+        ByteBuffer bb3 = ByteBuffer.wrap("789".getBytes());
+
+        IoBuffer ioBuffer = new IoBuffer(bb1, bb2, bb3);
+        assertEquals(10, ioBuffer.remaining());
+        assertEquals('0', ioBuffer.get());
+
+        byte[] bytes = new byte[7];
+        ioBuffer.get(bytes);
+        assertEquals("1234567", new String(bytes));
+        assertEquals(8, ioBuffer.position());
+        assertEquals(2, ioBuffer.remaining());
+
+        try {
+            ioBuffer.get(bytes, 0, 3);
+            fail();
+        } catch (BufferUnderflowException bufe) {
+            assertTrue(true);
+        }
+
+        ioBuffer.get(bytes, 5, 2);
+        assertEquals("1234589", new String(bytes));
+        assertFalse(ioBuffer.hasRemaining());
+    }
+
+    /**
+     * Test the compact() method, dropping the buffers already read
+     */
+    @Test
+    public void testCompact() {
+        ByteBuffer bb1 = ByteBuffer.wrap("012".getBytes());
+        ByteBuffer bb2 = ByteBuffer.wrap("3456".getBytes());
+        ByteBuffer bb3 = ByteBuffer.wrap("789".getBytes());
+
+        IoBuffer ioBuffer = new IoBuffer(bb1, bb2, bb3);
+        ioBuffer.position(5);
+        ioBuffer.compact();
+
+        // the first buffer is dropped, we are now in the middle of "3456"
+        assertEquals(2, ioBuffer.position());
+        assertEquals(7, ioBuffer.limit());
+        assertEquals('5', ioBuffer.get());
+
+        // read up to the end of "3456", and compact at the buffer boundary
+        assertEquals('6', ioBuffer.get());
+        ioBuffer.compact();
+        assertEquals(0, ioBuffer.position());
+        assertEquals(3, ioBuffer.remaining());
+
+        ioBuffer.add(ByteBuffer.wrap("ab".getBytes()));
+        byte[] bytes = new byte[5];
+        ioBuffer.get(bytes);
+        assertEquals("789ab", new String(bytes));
+
+        // all the buffers are dropped
+        ioBuffer.compact();
+        assertEquals(0, ioBuffer.position());
+        assertEquals(0, ioBuffer.limit());
+
+        ioBuffer.add(ByteBuffer.wrap("c".getBytes()));
+        assertEquals('c', ioBuffer.get());
+    }
+
+    /**
+     * Test the multi-bytes getters, when the value is spread over many buffers
+     */
+    @Test
+    public void testGetPrimitivesOverBuffers() {
+        ByteBuffer bb1 = ByteBuffer.wrap(new byte[] { 0x01, 0x02, 0x03 });
+        ByteBuffer bb2 = ByteBuffer.wrap(new byte[] { 0x04 });
+        ByteBuffer bb3 = ByteBuffer.wrap(new byte[] { 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C });
+
+        IoBuffer ioBuffer = new IoBuffer(bb1, bb2, bb3);
+        ByteBuffer expected = ByteBuffer.wrap(new byte[] { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09,
+                0x0A, 0x0B, 0x0C });
+
+        assertEquals(expected.getShort(2), ioBuffer.getShort(2));
+        assertEquals(expected.getChar(3), ioBuffer.getChar(3));
+        assertEquals(expected.getInt(1), ioBuffer.getInt(1));
+        assertEquals(expected.getLong(2), ioBuffer.getLong(2));
+        assertEquals(expected.getFloat(0), ioBuffer.getFloat(0), 0f);
+        assertEquals(expected.getDouble(4), ioBuffer.getDouble(4), 0d);
+
+        // relative reads
+        ioBuffer.position(1);
+        assertEquals(expected.getShort(1), ioBuffer.getShort());
+        assertEquals(expected.getLong(3), ioBuffer.getLong());
+        assertEquals(11, ioBuffer.position());
+
+        try {
+            ioBuffer.getShort();
+            fail();
+        } catch (BufferUnderflowException bufe) {
+            assertTrue(true);
+        }
+
+        // the same, in little endian
+        expected.order(ByteOrder.LITTLE_ENDIAN);
+        ioBuffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(expected.getShort(2), ioBuffer.getShort(2));
+        assertEquals(expected.getInt(1), ioBuffer.getInt(1));
+        assertEquals(expected.getInt(4), ioBuffer.getInt(4));
+        assertEquals(expected.getLong(2), ioBuffer.getLong(2));
+        assertEquals(expected.getLong(4), ioBuffer.getLong(4));
+    }
+
+    /**
+     * Test the reads on Direct buffers
+     */
+    @Test
+    public void testDirectBuffers() {
+        ByteBuffer bb1 = ByteBuffer.allocateDirect(3);
+        bb1.put("012".getBytes()).flip();
+        ByteBuffer bb2 = ByteBuffer.allocateDirect(5);
+        bb2.put("34567".getBytes()).flip();
+
+        IoBuffer ioBuffer = new IoBuffer(bb1, bb2);
+        assertTrue(ioBuffer.isDirect());
+        assertEquals('4', ioBuffer.get(4));
+
+        byte[] bytes = new byte[6];
+        ioBuffer.position(1);
+        ioBuffer.get(bytes);
+        assertEquals("123456", new String(bytes));
+        assertEquals("01234567", new String(ioBuffer.array()));
+        assertEquals(ByteBuffer.wrap("2345".getBytes()).getInt(), ioBuffer.getInt(2));
+    }
+
+    /**
+     * Test a lookup by index in a buffer made of many buffers
+     */
+    @Test
+    public void testGetWithManyBuffers() {
+        IoBuffer ioBuffer = new IoBuffer();
+
+        for (int i = 0; i < 100; i++) {
+            ioBuffer.add(ByteBuffer.wrap(new byte[] { (byte) (2 * i), (byte) (2 * i + 1) }));
+        }
+
+        assertEquals(200, ioBuffer.limit());
+
+        for (int i = 199; i >= 0; i--) {
+            assertEquals((byte) i, ioBuffer.get(i));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals((byte) i, ioBuffer.get());
+        }
+    }
+
+    /**
+     * Test the slice(), duplicate() and wrap() methods
+     */
+    @Test
+    public void testSliceDuplicateWrap() {
+        IoBuffer ioBuffer = new IoBuffer(ByteBuffer.wrap("012".getBytes()), ByteBuffer.wrap("3456".getBytes()),
+                ByteBuffer.wrap("789".getBytes()));
+        ioBuffer.position(2);
+        ioBuffer.get();
+        ioBuffer.get();
+
+        IoBuffer duplicate = ioBuffer.duplicate();
+        assertEquals(4, duplicate.position());
+        assertEquals('4', duplicate.get());
+        assertEquals(4, ioBuffer.position());
+
+        IoBuffer slice = ioBuffer.slice();
+        assertEquals(0, slice.position());
+        assertEquals(6, slice.limit());
+        assertEquals('4', slice.get());
+        assertEquals('9', slice.get(5));
+
+        assertEquals(IoBuffer.wrap("456789".getBytes()), slice.rewind());
+        assertEquals(0, IoBuffer.wrap("xx456789".getBytes(), 2, 6).compareTo(slice));
+        assertTrue(IoBuffer.wrap("5".getBytes()).compareTo(slice) > 0);
+        assertEquals(IoBuffer.wrap("456789".getBytes()).hashCode(), slice.hashCode());
+
+        assertTrue(ioBuffer.asReadOnlyBuffer().isReadOnly());
+        assertFalse(ioBuffer.isReadOnly());
+    }
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests class {@link MpscArrayQueue}
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class MpscArrayQueueTest {
+
+    private static final int PRODUCER_COUNT = 4;
+
+    private static final int ELEMENT_COUNT = 100000;
+
+    @Test
+    public void offerAndPollInOrder() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<Integer>(3);
+        assertEquals(3, queue.capacity());
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        // full
+        assertFalse(queue.offer(3));
+        assertEquals(3, queue.size());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, queue.poll().intValue());
+        }
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        // in the next chunk
+        assertTrue(queue.offer(5));
+        assertEquals(5, queue.poll().intValue());
+    }
+
+    @Test
+    public void chunksGrowAndShrink() {
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<Integer>(100, 2);
+
+        for (int round = 0; round < 10; round++) {
+            // fill the queue over chunks of 2, 4, 8... slots
+            for (int i = 0; i < 100; i++) {
+                assertTrue(queue.offer(i));
+            }
+
+            assertFalse(queue.offer(100));
+
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, queue.poll().intValue());
+            }
+
+            assertNull(queue.poll());
+
+            // one element at a time, in chunks of 2 slots
+            for (int i = 0; i < 10; i++) {
+                assertTrue(queue.offer(i));
+                assertEquals(i, queue.poll().intValue());
+            }
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void elementsOfEachProducerAreOrdered() throws InterruptedException {
+        final MpscArrayQueue<int[]> queue = new MpscArrayQueue<int[]>(1024);
+        Thread[] producers = new Thread[PRODUCER_COUNT];
+
+        for (int p = 0; p < PRODUCER_COUNT; p++) {
+            final int producer = p;
+
+            producers[p] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < ELEMENT_COUNT; i++) {
+                        int[] element = new int[] { producer, i };
+
+                        while (!queue.offer(element)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+            producers[p].start();
+        }
+
+        int[] expected = new int[PRODUCER_COUNT];
+
+        for (int count = 0; count < PRODUCER_COUNT * ELEMENT_COUNT;) {
+            int[] element = queue.poll();
+
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+
+            assertEquals(expected[element[0]]++, element[1]);
+            count++;
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertTrue(queue.isEmpty());
+    }
+}
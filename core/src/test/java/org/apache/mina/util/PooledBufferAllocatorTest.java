@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Tests class {@link PooledBufferAllocator}
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class PooledBufferAllocatorTest {
+
+    @Test
+    public void allocateRoundsUpToSizeClass() {
+        PooledBufferAllocator allocator = new PooledBufferAllocator(true, 256, 4096, 64 * 1024);
+
+        ByteBuffer buffer = allocator.allocate(300);
+
+        assertTrue(buffer.isDirect());
+        assertEquals(512, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertEquals(300, buffer.limit());
+
+        assertEquals(256, allocator.allocate(1).capacity());
+        assertEquals(256, allocator.allocate(256).capacity());
+        assertEquals(4096, allocator.allocate(4096).capacity());
+    }
+
+    @Test
+    public void releasedBufferIsReused() {
+        PooledBufferAllocator allocator = new PooledBufferAllocator(true, 256, 4096, 64 * 1024);
+
+        ByteBuffer buffer = allocator.allocate(1000);
+        buffer.put((byte) 1);
+        allocator.release(buffer);
+        assertEquals(1, allocator.getCachedBufferCount());
+
+        ByteBuffer reused = allocator.allocate(600);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(600, reused.limit());
+        assertEquals(0, allocator.getCachedBufferCount());
+
+        // not the same size class
+        allocator.release(reused);
+        assertNotSame(reused, allocator.allocate(100));
+    }
+
+    @Test
+    public void bigBuffersAreNotPooled() {
+        PooledBufferAllocator allocator = new PooledBufferAllocator(true, 256, 4096, 64 * 1024);
+
+        ByteBuffer buffer = allocator.allocate(5000);
+        assertEquals(5000, buffer.capacity());
+
+        allocator.release(buffer);
+        assertEquals(0, allocator.getCachedBufferCount());
+    }
+
+    @Test
+    public void foreignBuffersAreNotPooled() {
+        PooledBufferAllocator allocator = new PooledBufferAllocator(true, 256, 4096, 64 * 1024);
+
+        allocator.release(ByteBuffer.allocate(512));
+        allocator.release(ByteBuffer.allocateDirect(300));
+        allocator.release(ByteBuffer.allocateDirect(512).asReadOnlyBuffer());
+        allocator.release(null);
+
+        assertEquals(0, allocator.getCachedBufferCount());
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        // 1024 bytes per size class : 4 buffers of 256 bytes
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 256, 4096, 1024);
+
+        for (int i = 0; i < 10; i++) {
+            allocator.release(ByteBuffer.allocate(256));
+        }
+
+        assertEquals(4, allocator.getCachedBufferCount());
+        assertFalse(allocator.allocate(10).isDirect());
+    }
+
+    @Test
+    public void cacheIsPerThread() throws InterruptedException {
+        final PooledBufferAllocator allocator = new PooledBufferAllocator();
+        allocator.release(allocator.allocate(100));
+        assertEquals(1, allocator.getCachedBufferCount());
+
+        final int[] otherThreadCount = new int[1];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                otherThreadCount[0] = allocator.getCachedBufferCount();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertEquals(0, otherThreadCount[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCapacity() {
+        new PooledBufferAllocator().allocate(-1);
+    }
+}
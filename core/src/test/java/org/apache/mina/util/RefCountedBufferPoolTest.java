@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests class {@link RefCountedBufferPool}
+ *
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class RefCountedBufferPoolTest {
+
+    @Test
+    public void lastReleaseRecyclesTheBuffer() {
+        RefCountedBufferPool pool = new RefCountedBufferPool(1024, 4, false);
+        RefCountedBuffer buffer = pool.acquire();
+        assertEquals(1, buffer.refCount());
+        assertEquals(1024, buffer.getBuffer().capacity());
+
+        buffer.getBuffer().put((byte) 1);
+        buffer.retain();
+        assertEquals(2, buffer.refCount());
+
+        assertFalse(buffer.release());
+        assertEquals(0, pool.getPooledBufferCount());
+        assertTrue(buffer.release());
+        assertEquals(1, pool.getPooledBufferCount());
+
+        // reused, and cleared
+        RefCountedBuffer reused = pool.acquire();
+        assertSame(buffer, reused);
+        assertEquals(0, reused.getBuffer().position());
+        assertEquals(1, reused.refCount());
+        assertEquals(0, pool.getPooledBufferCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releasedBufferCantBeRetained() {
+        RefCountedBuffer buffer = new RefCountedBufferPool().acquire();
+        buffer.release();
+        buffer.retain();
+    }
+
+    @Test
+    public void poolIsBounded() {
+        RefCountedBufferPool pool = new RefCountedBufferPool(16, 2, true);
+        RefCountedBuffer[] buffers = new RefCountedBuffer[3];
+
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = pool.acquire();
+            assertTrue(buffers[i].getBuffer().isDirect());
+        }
+
+        for (RefCountedBuffer buffer : buffers) {
+            buffer.release();
+        }
+
+        assertEquals(2, pool.getPooledBufferCount());
+    }
+}
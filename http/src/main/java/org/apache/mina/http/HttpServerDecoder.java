@@ -27,6 +27,7 @@ import java.util.regex.Pattern;
 
 import org.apache.mina.codec.ProtocolDecoder;
 import org.apache.mina.codec.ProtocolDecoderException;
+import org.apache.mina.codec.ProtocolDecoderOutput;
 import org.apache.mina.http.api.HttpContentChunk;
 import org.apache.mina.http.api.HttpEndOfContent;
 import org.apache.mina.http.api.HttpMethod;
@@ -77,10 +78,10 @@ public class HttpServerDecoder implements ProtocolDecoder<ByteBuffer, HttpPdu> {
     private int remainingBytes;
 
     @Override
-    public HttpPdu[] decode(ByteBuffer msg) throws ProtocolDecoderException {
+    public void decode(ByteBuffer msg, ProtocolDecoderOutput<HttpPdu> output) throws ProtocolDecoderException {
         LOG.debug("decode : {}", msg);
         if (msg.remaining() <= 0) {
-            return null;
+            return;
         }
         switch (state) {
         case HEAD:
@@ -100,9 +101,12 @@ public class HttpServerDecoder implements ProtocolDecoder<ByteBuffer, HttpPdu> {
                 partial.put(msg);
                 partial.flip();
             } else {
-                return new HttpPdu[] { rq };
+                output.write(rq);
+
+                // the buffer may contain the next pipelined request
+                decode(msg, output);
             }
-            return null;
+            break;
         case BODY:
             LOG.debug("decoding BODY");
             int chunkSize = msg.remaining();
@@ -115,19 +119,23 @@ public class HttpServerDecoder implements ProtocolDecoder<ByteBuffer, HttpPdu> {
                 LOG.debug("end of HTTP body");
                 state = DecoderState.NEW;
                 remainingBytes = 0;
-                return new HttpPdu[] { chunk, new HttpEndOfContent() };
+                output.write(chunk);
+                output.write(new HttpEndOfContent());
+            } else {
+                output.write(chunk);
             }
             break;
 
         default:
             throw new RuntimeException("Unknonwn decoder state : " + state);
         }
-
-        return null;
     }
 
     private HttpRequestImpl parseHttpRequestHead(ByteBuffer buffer) {
-        String raw = new String(buffer.array(), 0, buffer.limit(), Charset.forName("ISO-8859-1"));
+        // the buffer may be a direct one, without a backing array
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        String raw = new String(bytes, Charset.forName("ISO-8859-1"));
         String[] headersAndBody = RAW_VALUE_PATTERN.split(raw, -1);
 
         if (headersAndBody.length <= 1) {
@@ -153,7 +161,7 @@ public class HttpServerDecoder implements ProtocolDecoder<ByteBuffer, HttpPdu> {
         String requestedPath = pathFrags[0];
 
         // we put the buffer position where we found the beginning of the HTTP body
-        buffer.position(headersAndBody[0].length() + 4);
+        buffer.position(buffer.position() + headersAndBody[0].length() + 4);
 
         return new HttpRequestImpl(version, method, requestedPath, generalHeaders);
     }
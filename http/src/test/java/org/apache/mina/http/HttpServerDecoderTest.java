@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.mina.http;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.mina.codec.ProtocolDecoderException;
+import org.apache.mina.codec.ProtocolDecoderOutput;
+import org.apache.mina.http.api.HttpMethod;
+import org.apache.mina.http.api.HttpPdu;
+import org.apache.mina.http.api.HttpRequest;
+import org.junit.Test;
+
+/**
+ * Tests class {@link HttpServerDecoder}
+ * 
+ * @author <a href="http://mina.apache.org">Apache MINA Project</a>
+ */
+public class HttpServerDecoderTest {
+
+    private final List<HttpPdu> decoded = new ArrayList<HttpPdu>();
+
+    private final ProtocolDecoderOutput<HttpPdu> output = new ProtocolDecoderOutput<HttpPdu>() {
+        @Override
+        public void write(HttpPdu message) {
+            decoded.add(message);
+        }
+    };
+
+    @Test
+    public void pipelinedRequestsAreDecoded() throws ProtocolDecoderException {
+        String requests = "GET /first HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "POST /second HTTP/1.1\r\nHost: localhost\r\n\r\n";
+        ByteBuffer buffer = ByteBuffer.allocateDirect(requests.length());
+        buffer.put(requests.getBytes()).flip();
+
+        new HttpServerDecoder().decode(buffer, output);
+
+        assertEquals(2, decoded.size());
+        assertEquals(HttpMethod.GET, ((HttpRequest) decoded.get(0)).getMethod());
+        assertEquals("localhost", ((HttpRequest) decoded.get(0)).getHeader("host"));
+        assertEquals(HttpMethod.POST, ((HttpRequest) decoded.get(1)).getMethod());
+        assertEquals(0, buffer.remaining());
+    }
+}
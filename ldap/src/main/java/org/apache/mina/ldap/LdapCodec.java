@@ -19,107 +19,40 @@
  */
 package org.apache.mina.ldap;
 
-import static org.apache.mina.session.AttributeKey.createKey;
-
 import java.nio.ByteBuffer;
 
 import org.apache.directory.shared.ldap.codec.api.LdapApiService;
 import org.apache.directory.shared.ldap.codec.api.LdapApiServiceFactory;
-import org.apache.directory.shared.ldap.codec.api.LdapMessageContainer;
-import org.apache.directory.shared.ldap.codec.api.MessageDecorator;
-import org.apache.directory.shared.ldap.model.message.AddResponse;
-import org.apache.directory.shared.ldap.model.message.BindResponse;
-import org.apache.directory.shared.ldap.model.message.CompareResponse;
-import org.apache.directory.shared.ldap.model.message.DeleteResponse;
-import org.apache.directory.shared.ldap.model.message.ExtendedResponse;
-import org.apache.directory.shared.ldap.model.message.IntermediateResponse;
 import org.apache.directory.shared.ldap.model.message.Message;
-import org.apache.directory.shared.ldap.model.message.ModifyDnResponse;
-import org.apache.directory.shared.ldap.model.message.ModifyResponse;
-import org.apache.directory.shared.ldap.model.message.SearchResultDone;
-import org.apache.directory.shared.ldap.model.message.SearchResultEntry;
-import org.apache.directory.shared.ldap.model.message.SearchResultReference;
-import org.apache.mina.api.IdleStatus;
 import org.apache.mina.api.IoSession;
-import org.apache.mina.codec.ProtocolDecoder;
-import org.apache.mina.codec.ProtocolEncoder;
 import org.apache.mina.filter.codec.ProtocolCodecFilter;
 import org.apache.mina.filterchain.WriteFilterChainController;
-import org.apache.mina.session.AttributeKey;
 import org.apache.mina.session.WriteRequest;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
- * A LDAP message codec.
+ * A LDAP message codec. Each session gets its own {@link LdapProtocolDecoder}, keeping the message being decoded, while
+ * the {@link LdapProtocolEncoder} is shared.
  * 
  * @author <a href="http://mina.apache.org">Apache MINA Project</a>
  */
-public class LdapCodec extends ProtocolCodecFilter {
-    private static final Logger LOG = LoggerFactory.getLogger(LdapCodec.class);
-
-    /** The LDAP decoder instance */
-    private static ProtocolDecoder ldapDecoder = new LdapProtocolDecoder();
-
-    /** The LDAP encoder instance */
-    private static ProtocolEncoder ldapEncoder = new LdapProtocolEncoder();
-
+public class LdapCodec extends ProtocolCodecFilter<Message, ByteBuffer> {
     /** The codec */
-    private static LdapApiService codec = LdapApiServiceFactory.getSingleton();
-
-    /** The Message Container attribute */
-    public static final AttributeKey<LdapMessageContainer> MESSAGE_CONTAINER_AT = createKey(LdapMessageContainer.class,
-            "internal_messageContainer");
+    static final LdapApiService CODEC = LdapApiServiceFactory.getSingleton();
 
     public LdapCodec() {
-        super(ldapEncoder, ldapDecoder);
-    }
-
-    @Override
-    public void sessionOpened(final IoSession session) {
-        final LdapMessageContainer<MessageDecorator<? extends Message>> container = new LdapMessageContainer<MessageDecorator<? extends Message>>(
-                codec);
-        session.setAttribute(MESSAGE_CONTAINER_AT, container);
-    }
-
-    @Override
-    public void sessionClosed(final IoSession session) {
-        session.removeAttribute(MESSAGE_CONTAINER_AT);
-    }
-
-    @Override
-    public void sessionIdle(final IoSession session, final IdleStatus status) {
-        // TODO Auto-generated method stub
+        super(LdapProtocolEncoder.class, LdapProtocolDecoder.class);
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
     public void messageWriting(IoSession session, WriteRequest writeRequest, WriteFilterChainController controller) {
-        Object message = writeRequest.getOriginalMessage();
-
-        if (message instanceof AddResponse) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof BindResponse) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof DeleteResponse) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof CompareResponse) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof ExtendedResponse) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof IntermediateResponse) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof ModifyResponse) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof ModifyDnResponse) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof SearchResultDone) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof SearchResultEntry) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof SearchResultReference) {
-            ldapEncoder.encode(session, writeRequest, controller);
-        } else if (message instanceof ByteBuffer) {
+        if (writeRequest.getMessage() instanceof ByteBuffer) {
+            // already encoded
             controller.callWriteNextFilter(writeRequest);
+        } else {
+            super.messageWriting(session, writeRequest, controller);
         }
     }
-}
\ No newline at end of file
+}
@@ -19,8 +19,6 @@
  */
 package org.apache.mina.ldap;
 
-import static org.apache.mina.session.AttributeKey.createKey;
-
 import java.nio.ByteBuffer;
 
 import org.apache.directory.shared.asn1.DecoderException;
@@ -32,19 +30,19 @@ import org.apache.directory.shared.ldap.codec.api.ResponseCarryingException;
 import org.apache.directory.shared.ldap.model.exception.ResponseCarryingMessageException;
 import org.apache.directory.shared.ldap.model.message.Message;
 import org.apache.directory.shared.util.Strings;
-import org.apache.mina.api.IoSession;
 import org.apache.mina.codec.ProtocolDecoder;
-import org.apache.mina.filterchain.ReadFilterChainController;
-import org.apache.mina.session.AttributeKey;
+import org.apache.mina.codec.ProtocolDecoderException;
+import org.apache.mina.codec.ProtocolDecoderOutput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A LDAP message decoder. It is based on shared-ldap decoder.
+ * A LDAP message decoder. It is based on shared-ldap decoder. Like any decoder, an instance is used by a single
+ * session, and keeps the message being decoded in its container.
  * 
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
-public class LdapProtocolDecoder implements ProtocolDecoder {
+public class LdapProtocolDecoder implements ProtocolDecoder<ByteBuffer, Message> {
     /** The logger */
     private static Logger LOG = LoggerFactory.getLogger(LdapProtocolDecoder.class);
 
@@ -54,56 +52,45 @@ public class LdapProtocolDecoder implements ProtocolDecoder {
     /** The ASN 1 decoder instance */
     private Asn1Decoder asn1Decoder;
 
-    /** Key for the partial HTTP requests head */
-    private static final AttributeKey<Integer> MAX_PDU_SIZE_AT = createKey(Integer.class, "internal_max_pdu_size");
+    /** The container of the message being decoded */
+    private final LdapMessageContainer<MessageDecorator<? extends Message>> messageContainer;
 
     /**
-     * Creates a new instance of LdapProtocolEncoder.
-     * 
-     * @param codec The LDAP codec service associated with this encoder.
+     * Creates a new instance of LdapProtocolDecoder.
      */
     public LdapProtocolDecoder() {
         asn1Decoder = new Asn1Decoder();
+        messageContainer = new LdapMessageContainer<MessageDecorator<? extends Message>>(LdapCodec.CODEC);
     }
 
     /**
      * {@inheritDoc}
      */
-    public Object decode(IoSession session, ByteBuffer in, ReadFilterChainController controller) {
-        @SuppressWarnings("unchecked")
-        LdapMessageContainer<MessageDecorator<? extends Message>> messageContainer = (LdapMessageContainer<MessageDecorator<? extends Message>>) session
-                .getAttribute(LdapCodec.MESSAGE_CONTAINER_AT, null);
-
-        int maxPDUSize = session.getAttribute(MAX_PDU_SIZE_AT, 0);
-
-        messageContainer.setMaxPDUSize(maxPDUSize);
-
+    @Override
+    public void decode(ByteBuffer in, ProtocolDecoderOutput<Message> output) throws ProtocolDecoderException {
         try {
-            Object message = null;
+            Message message = decode(in, messageContainer);
 
-            do {
+            while (message != null) {
+                output.write(message);
                 message = decode(in, messageContainer);
-
-                controller.callReadNextFilter(message);
-            } while (message != null);
-        } catch (DecoderException lde) {
-            // Do something
+            }
+        } catch (DecoderException de) {
+            throw new ProtocolDecoderException(de.getMessage(), de);
         }
-
-        return null;
     }
 
     /**
-     * Decode an incoming buffer into LDAP messages. The result can be 0, 1 or many LDAP messages, which will be stored
-     * into the array the caller has created.
+     * Decode the next LDAP message of an incoming buffer. The buffer can contain 0, 1 or many LDAP messages, so this
+     * method is called until it returns <code>null</code>.
      * 
      * @param buffer The incoming byte buffer
      * @param messageContainer The LdapMessageContainer which will be used to store the message being decoded. If the
      *        message is not fully decoded, the ucrrent state is stored into this container
-     * @param decodedMessages The list of decoded messages
-     * @throws Exception If the decoding failed
+     * @return the decoded message, or <code>null</code> if the buffer doesn't contain a full message
+     * @throws DecoderException If the decoding failed
      */
-    private Object decode(ByteBuffer buffer, LdapMessageContainer<MessageDecorator<? extends Message>> messageContainer)
+    private Message decode(ByteBuffer buffer, LdapMessageContainer<MessageDecorator<? extends Message>> messageContainer)
             throws DecoderException {
         while (buffer.hasRemaining()) {
             try {
@@ -116,7 +103,7 @@ public class LdapProtocolDecoder implements ProtocolDecoder {
 
                     byte[] array = new byte[pduLength];
 
-                    System.arraycopy(buffer.array(), position, array, 0, pduLength);
+                    buffer.duplicate().get(array);
 
                     if (array.length == 0) {
                         LOG.debug("NULL buffer, what the HELL ???");
@@ -160,14 +147,9 @@ public class LdapProtocolDecoder implements ProtocolDecoder {
     /**
      * {@inheritDoc}
      */
-    public Object finishDecode(IoSession session) throws Exception {
-        return null;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public void dispose(IoSession session) throws Exception {
-        // Nothing to do
+    @Override
+    public void finishDecode() {
+        // drop the partially decoded message
+        messageContainer.clean();
     }
 }
@@ -21,52 +21,35 @@ package org.apache.mina.ldap;
 
 import java.nio.ByteBuffer;
 
-import org.apache.directory.shared.ldap.codec.api.LdapApiServiceFactory;
 import org.apache.directory.shared.ldap.codec.api.LdapEncoder;
 import org.apache.directory.shared.ldap.model.message.Message;
-import org.apache.mina.api.IoSession;
 import org.apache.mina.codec.ProtocolEncoder;
-import org.apache.mina.filterchain.WriteFilterChainController;
-import org.apache.mina.session.WriteRequest;
 
 /**
  * A LDAP message encoder. It is based on shared-ldap encoder.
  * 
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
-public class LdapProtocolEncoder implements ProtocolEncoder {
+public class LdapProtocolEncoder implements ProtocolEncoder<Message, ByteBuffer> {
     /** The stateful encoder */
     private LdapEncoder encoder;
 
     /**
      * Creates a new instance of LdapProtocolEncoder.
-     * 
-     * @param codec The LDAP codec service associated with this encoder.
      */
     public LdapProtocolEncoder() {
-        this.encoder = new LdapEncoder(LdapApiServiceFactory.getSingleton());
+        this.encoder = new LdapEncoder(LdapCodec.CODEC);
     }
 
     /**
      * {@inheritDoc}
      */
-    public Object encode(IoSession session, WriteRequest writeRequest, WriteFilterChainController controller) {
+    @Override
+    public ByteBuffer encode(Message message) {
         try {
-            ByteBuffer buffer = encoder.encodeMessage((Message) writeRequest.getOriginalMessage());
-            writeRequest.setMessage(buffer);
-
-            controller.callWriteNextFilter(writeRequest);
+            return encoder.encodeMessage(message);
         } catch (Exception e) {
-            return null;
+            throw new IllegalArgumentException("Failed to encode the LDAP message " + message, e);
         }
-
-        return null;
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public void dispose(IoSession session) throws Exception {
-        // Nothing to do
     }
 }